@@ -8,6 +8,9 @@ interface MediaFile {
   url: string;
 }
 
+// Matches the server's default page size for /api/media/unused
+const PAGE_SIZE = 500;
+
 interface ImageBrowserProps {
   onSelect?: (filename: string) => void;
   onClose?: () => void;
@@ -17,6 +20,10 @@ interface ImageBrowserProps {
 export const ImageBrowser = ({ onSelect, onClose, selectedFilename }: ImageBrowserProps) => {
   const [mediaFiles, setMediaFiles] = useState<MediaFile[]>([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextPage, setNextPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
+  const [totalCount, setTotalCount] = useState(0);
   const [selectedImage, setSelectedImage] = useState<string | null>(selectedFilename || null);
   const [selectedForDeletion, setSelectedForDeletion] = useState<Set<string>>(new Set());
   const [deleteMode, setDeleteMode] = useState(false);
@@ -25,15 +32,22 @@ export const ImageBrowser = ({ onSelect, onClose, selectedFilename }: ImageBrows
     loadUnusedMedia();
   }, []);
 
+  const fetchPage = async (page: number) => {
+    const response = await fetch(`/api/media/unused?page=${page}&size=${PAGE_SIZE}`);
+    if (!response.ok) {
+      throw new Error('Failed to load media');
+    }
+    const files: MediaFile[] = await response.json();
+    setTotalPages(Number(response.headers.get('X-Total-Pages') ?? 0));
+    setTotalCount(Number(response.headers.get('X-Total-Count') ?? files.length));
+    setNextPage(page + 1);
+    return files;
+  };
+
   const loadUnusedMedia = async () => {
     try {
       setLoading(true);
-      const response = await fetch('/api/media/unused');
-      if (!response.ok) {
-        throw new Error('Failed to load media');
-      }
-      const data = await response.json();
-      setMediaFiles(data);
+      setMediaFiles(await fetchPage(0));
     } catch (error) {
       console.error('Failed to load unused media:', error);
       alert('Failed to load media library');
@@ -42,6 +56,19 @@ export const ImageBrowser = ({ onSelect, onClose, selectedFilename }: ImageBrows
     }
   };
 
+  const loadMoreMedia = async () => {
+    try {
+      setLoadingMore(true);
+      const files = await fetchPage(nextPage);
+      setMediaFiles((current) => [...current, ...files]);
+    } catch (error) {
+      console.error('Failed to load unused media:', error);
+      alert('Failed to load more media');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleDeleteFiles = async () => {
     if (selectedForDeletion.size === 0) {
       alert('Please select files to delete');
@@ -120,7 +147,8 @@ export const ImageBrowser = ({ onSelect, onClose, selectedFilename }: ImageBrows
 
       <div className="image-browser-controls">
         <span className="file-count">
-          {mediaFiles.length} {mediaFiles.length === 1 ? 'file' : 'files'}
+          {totalCount} {totalCount === 1 ? 'file' : 'files'}
+          {mediaFiles.length < totalCount && ` (showing ${mediaFiles.length})`}
         </span>
         <div className="control-buttons">
           {!deleteMode ? (
@@ -187,6 +215,15 @@ export const ImageBrowser = ({ onSelect, onClose, selectedFilename }: ImageBrows
               )}
             </div>
           ))}
+          {nextPage < totalPages && (
+            <button
+              className="image-browser-load-more"
+              onClick={loadMoreMedia}
+              disabled={loadingMore}
+            >
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          )}
         </div>
       )}
     </div>
@@ -0,0 +1,44 @@
+package com.vault.config;
+
+import com.vault.storage.CachingStorageBackend;
+import com.vault.storage.LocalStorageBackend;
+import com.vault.storage.S3ObjectStore;
+import com.vault.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfig {
+
+    /**
+     * Backend for original media. "local" keeps files on the storage volume; "s3" keeps them
+     * in an S3-compatible bucket with a bounded read-through cache on the local volume, so
+     * nodes can serve images without sharing a disk.
+     */
+    @Bean
+    public StorageBackend storageBackend(@Value("${storage.backend:local}") String backend,
+                                         @Value("${storage.location}") String storageLocation,
+                                         @Value("${storage.layout:flat}") String layout,
+                                         @Value("${storage.s3.endpoint:}") String endpoint,
+                                         @Value("${storage.s3.region:us-east-1}") String region,
+                                         @Value("${storage.s3.bucket:}") String bucket,
+                                         @Value("${storage.s3.access-key:}") String accessKey,
+                                         @Value("${storage.s3.secret-key:}") String secretKey,
+                                         @Value("${storage.s3.prefix:}") String prefix,
+                                         @Value("${storage.cache.location:}") String cacheLocation,
+                                         @Value("${storage.cache.max-bytes:10737418240}") long cacheMaxBytes) {
+        Path root = Paths.get(storageLocation);
+        return switch (backend.toLowerCase()) {
+            case "local" -> new LocalStorageBackend(root, "sharded".equalsIgnoreCase(layout));
+            case "s3" -> new CachingStorageBackend(
+                    new S3ObjectStore(endpoint, region, bucket, accessKey, secretKey, prefix),
+                    cacheLocation.isBlank() ? root.resolveSibling(root.getFileName() + "-cache") : Paths.get(cacheLocation),
+                    cacheMaxBytes);
+            default -> throw new IllegalArgumentException("Unsupported storage.backend: " + backend);
+        };
+    }
+}
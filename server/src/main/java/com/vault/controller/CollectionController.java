@@ -1,20 +1,32 @@
 package com.vault.controller;
 
 import com.vault.dto.CollectionResponse;
-import com.vault.dto.ItemResponse;
+import com.vault.dto.CursorPage;
+import com.vault.dto.MetadataFilter;
+import com.vault.service.CatalogResponseCache;
+import com.vault.service.CatalogVersionService;
+import com.vault.service.FieldProjectionService;
 import com.vault.service.CollectionService;
+import com.vault.service.FacetService;
+import com.vault.service.ItemMetadataService;
 import com.vault.service.ItemService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/collections")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {"X-Next-Cursor", "ETag"})
 public class CollectionController {
 
     @Autowired
@@ -23,22 +35,174 @@ public class CollectionController {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private CatalogResponseCache catalogCache;
+
+    @Autowired
+    private CatalogVersionService catalogVersions;
+
+    @Autowired
+    private FieldProjectionService fieldProjectionService;
+
+    @Autowired
+    private ItemMetadataService itemMetadataService;
+
+    @Autowired
+    private FacetService facetService;
+
+    /**
+     * All collections, or one page of them when limit or cursor is given; view=summary
+     * leaves out metadata and item categories. Unpaged listings are served from the
+     * serialized response cache. Responses carry an ETag from the catalog version, so an
+     * unchanged listing is answered with 304 without a query. fields= selects columns and
+     * format=tuples returns rows as arrays.
+     */
     @GetMapping
-    public ResponseEntity<List<CollectionResponse>> getAllCollections() {
-        List<CollectionResponse> collections = collectionService.findAll();
-        return ResponseEntity.ok(collections);
+    public ResponseEntity<?> getAllCollections(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "format", required = false) String format,
+            WebRequest request) {
+        // The version is read before the rows, so the tag can only be older than the body
+        if (request.checkNotModified(catalogVersions.catalogETag())) {
+            return null;
+        }
+        if (fields != null || format != null) {
+            if (view != null) {
+                throw new IllegalArgumentException("Use either view or fields");
+            }
+            List<String> selected = fieldProjectionService.parseCollectionFields(fields);
+            boolean tuples = ListingResponses.isTupleFormat(format);
+            if (limit != null || cursor != null) {
+                CursorPage<Object[]> page = fieldProjectionService.findCollections(selected, cursor, limit);
+                return ListingResponses.page(page.getNextCursor(), fieldProjectionService.render(selected, page.getItems(), tuples));
+            }
+            return ListingResponses.json(catalogCache.get(CatalogResponseCache.collections(ListingResponses.fieldsView(selected, tuples)),
+                    () -> fieldProjectionService.render(selected, fieldProjectionService.findCollections(selected, null, null).getItems(), tuples)));
+        }
+        boolean summary = ListingResponses.isSummaryView(view);
+        if (limit != null || cursor != null) {
+            return summary ? ListingResponses.page(collectionService.findSummaryPage(cursor, limit))
+                    : ListingResponses.page(collectionService.findPage(cursor, limit));
+        }
+        byte[] body = catalogCache.get(CatalogResponseCache.collections(summary ? "summary" : "full"),
+                () -> summary ? collectionService.findSummaries() : collectionService.findAll());
+        return ListingResponses.json(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CollectionResponse> getCollectionById(@PathVariable String id) {
-        CollectionResponse collection = collectionService.findById(id);
-        return ResponseEntity.ok(collection);
+    public ResponseEntity<byte[]> getCollectionById(@PathVariable String id, WebRequest request) {
+        if (request.checkNotModified(catalogVersions.collectionETag(id))) {
+            return null;
+        }
+        byte[] body = catalogCache.get(CatalogResponseCache.collection(id), () -> collectionService.findById(id));
+        return ListingResponses.json(body);
     }
 
+    /**
+     * A collection's items; takes the same paging, view and fields options as /api/items.
+     * metadata.&lt;key&gt;=value parameters (also !=, &gt;, &gt;=, &lt;, &lt;=) keep only matching items.
+     */
     @GetMapping("/{id}/items")
-    public ResponseEntity<List<ItemResponse>> getItemsByCollectionId(@PathVariable String id) {
-        List<ItemResponse> items = itemService.findByCollectionId(id);
-        return ResponseEntity.ok(items);
+    public ResponseEntity<?> getItemsByCollectionId(
+            @PathVariable String id,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "format", required = false) String format,
+            WebRequest request) {
+        // The version is read before the rows, so the tag can only be older than the body
+        if (request.checkNotModified(catalogVersions.collectionETag(id))) {
+            return null;
+        }
+        List<MetadataFilter> filters = itemMetadataService.parseFilters(request.getParameterMap());
+        if (!filters.isEmpty()) {
+            if (fields != null || format != null) {
+                throw new IllegalArgumentException("Metadata filters cannot be combined with fields or format");
+            }
+            // Filtered reads are not cached; the combinations are unbounded
+            return ListingResponses.isSummaryView(view) ? ListingResponses.page(itemService.findFilteredSummaries(id, filters, cursor, limit))
+                    : ListingResponses.page(itemService.findFiltered(id, filters, cursor, limit));
+        }
+        if (fields != null || format != null) {
+            if (view != null) {
+                throw new IllegalArgumentException("Use either view or fields");
+            }
+            List<String> selected = fieldProjectionService.parseItemFields(fields);
+            boolean tuples = ListingResponses.isTupleFormat(format);
+            if (limit != null || cursor != null) {
+                CursorPage<Object[]> page = fieldProjectionService.findItems(selected, id, cursor, limit);
+                return ListingResponses.page(page.getNextCursor(), fieldProjectionService.render(selected, page.getItems(), tuples));
+            }
+            return ListingResponses.json(catalogCache.get(CatalogResponseCache.items(id, ListingResponses.fieldsView(selected, tuples)),
+                    () -> fieldProjectionService.render(selected, fieldProjectionService.findItems(selected, id, null, null).getItems(), tuples)));
+        }
+        boolean summary = ListingResponses.isSummaryView(view);
+        if (limit != null || cursor != null) {
+            return summary ? ListingResponses.page(itemService.findSummaryPage(id, cursor, limit))
+                    : ListingResponses.page(itemService.findPage(id, cursor, limit));
+        }
+        byte[] body = catalogCache.get(CatalogResponseCache.items(id, summary ? "summary" : "full"),
+                () -> summary ? itemService.findSummaries(id) : itemService.findByCollectionId(id));
+        return ListingResponses.json(body);
+    }
+
+    /**
+     * stream=true writes all of a collection's items while they are read from the database.
+     * A mapping of its own, since only a declared StreamingResponseBody is written asynchronously.
+     */
+    @GetMapping(value = "/{id}/items", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamItemsByCollectionId(
+            @PathVariable String id,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "format", required = false) String format,
+            WebRequest request) {
+        if (request.checkNotModified(catalogVersions.collectionETag(id))) {
+            return null;
+        }
+        if (limit != null || cursor != null || view != null || fields != null || format != null
+                || !itemMetadataService.parseFilters(request.getParameterMap()).isEmpty()) {
+            throw new IllegalArgumentException("stream cannot be combined with limit, cursor, view, fields, format or metadata filters");
+        }
+        // Checked up front; a missing collection found while streaming could no longer be a 400
+        itemService.requireCollection(id);
+        StreamingResponseBody body = out -> itemService.streamItems(id, out);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Item counts per category and per value of the requested metadata keys
+     * (keys=grade,year), optionally under the same metadata.&lt;key&gt; filters as the items list
+     */
+    @GetMapping("/{id}/facets")
+    public ResponseEntity<?> getFacets(
+            @PathVariable String id,
+            @RequestParam(value = "keys", required = false) String keys,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            WebRequest request) {
+        if (request.checkNotModified(catalogVersions.collectionETag(id))) {
+            return null;
+        }
+        List<String> selected = facetService.parseKeys(keys);
+        List<MetadataFilter> filters = itemMetadataService.parseFilters(request.getParameterMap());
+        // Resolved first, so an absent limit and the default share a cache entry
+        int valueLimit = facetService.resolveValueLimit(limit);
+        if (!filters.isEmpty()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(facetService.findFacets(id, selected, filters, valueLimit));
+        }
+        return ListingResponses.json(catalogCache.get(CatalogResponseCache.facets(id, "keys=" + String.join(",", selected) + ";limit=" + valueLimit),
+                () -> facetService.findFacets(id, selected, filters, valueLimit)));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(catalogCache.getStats());
     }
 
     @PostMapping
@@ -63,4 +227,19 @@ public class CollectionController {
         collectionService.deleteCollection(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/item-counts/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildItemCounts() {
+        int recounted = collectionService.rebuildItemCounts();
+        return ResponseEntity.ok(Map.of("recounted", recounted));
+    }
+
+    @DeleteMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulkDeleteCollections(@RequestBody List<String> ids) {
+        int deletedCount = collectionService.deleteCollections(ids);
+        return ResponseEntity.ok(Map.of(
+            "deletedCount", deletedCount,
+            "totalRequested", ids.stream().filter(Objects::nonNull).distinct().count()
+        ));
+    }
 }
@@ -1,13 +1,20 @@
 package com.vault.controller;
 
+import com.vault.service.ImageDeliveryService;
+import com.vault.service.ImageDerivativeService;
+import com.vault.service.ImageDerivativeService.DerivativeSpec;
 import com.vault.service.StorageService;
+import com.vault.storage.StorageBackend.LocalFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 @RestController
 @RequestMapping("/api/images")
 @CrossOrigin(origins = "*")
@@ -16,20 +23,62 @@ public class ImageController {
     @Autowired
     private StorageService storageService;
 
+    @Autowired
+    private ImageDeliveryService imageDeliveryService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
     @GetMapping("/{filename:.+}")
-    public ResponseEntity<Resource> serveImage(@PathVariable String filename) {
+    public void serveImage(@PathVariable String filename,
+                           @RequestParam(value = "width", required = false) Integer width,
+                           @RequestParam(value = "quality", required = false) Integer quality,
+                           @RequestParam(value = "format", required = false) String format,
+                           @RequestParam(value = "aspect", required = false) String aspect,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        // Serve a resized rendition when sizing parameters are present
+        DerivativeSpec spec = imageDerivativeService.resolveSpec(filename, width, quality, format, aspect);
+
+        // Hot images are answered from memory without touching the disk
+        String requestedName = spec != null ? spec.cacheKey(filename) : filename;
+        if (imageDeliveryService.serveFromMemory(requestedName, getContentType(requestedName), request, response)) {
+            return;
+        }
+
+        LocalFile original;
         try {
-            Resource file = storageService.loadAsResource(filename);
-            
-            // Determine content type based on file extension
-            String contentType = getContentType(filename);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                    .body(file);
+            original = storageService.load(filename);
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        // The original stays pinned in the cache tier until the response is written
+        try (original) {
+            Path file = original.path();
+            if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+
+            // sendfile opens the file after this method returns, which only local originals outlive
+            boolean sendfile = storageService.isLocal();
+            if (spec != null) {
+                try {
+                    file = imageDerivativeService.getOrCreate(filename, spec);
+                    sendfile = true;
+                } catch (RuntimeException e) {
+                    // Fall back to the original rather than failing the image request
+                    System.err.println("Failed to create derivative of " + filename + ": " + e.getMessage());
+                }
+            }
+
+            // Determine content type based on file extension
+            String servedName = file.getFileName().toString();
+            String contentType = getContentType(servedName);
+
+            imageDeliveryService.serve(file, contentType, servedName, sendfile, request, response);
         }
     }
 
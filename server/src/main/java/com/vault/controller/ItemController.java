@@ -1,33 +1,132 @@
 package com.vault.controller;
 
+import com.vault.dto.CursorPage;
 import com.vault.dto.ItemResponse;
+import com.vault.dto.SimilarItem;
+import com.vault.service.CatalogResponseCache;
+import com.vault.service.CatalogVersionService;
+import com.vault.service.FieldProjectionService;
 import com.vault.service.ItemService;
+import com.vault.service.PerceptualHashService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/items")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {"X-Next-Cursor", "ETag"})
 public class ItemController {
 
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private CatalogResponseCache catalogCache;
+
+    @Autowired
+    private CatalogVersionService catalogVersions;
+
+    @Autowired
+    private FieldProjectionService fieldProjectionService;
+
+    @Autowired
+    private PerceptualHashService perceptualHashService;
+
+    /**
+     * All items, or one page of them (newest first) when limit or cursor is given. The
+     * next page's cursor is returned in the X-Next-Cursor header. view=summary leaves out
+     * item metadata. Unpaged listings are served from the serialized response cache, and
+     * a request whose If-None-Match still matches the catalog version gets a 304. fields=
+     * selects columns (id,title,filename) and format=tuples returns rows as arrays.
+     */
     @GetMapping
-    public ResponseEntity<List<ItemResponse>> getAllItems() {
-        List<ItemResponse> items = itemService.findAll();
-        return ResponseEntity.ok(items);
+    public ResponseEntity<?> getAllItems(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "format", required = false) String format,
+            WebRequest request) {
+        // The version is read before the rows, so the tag can only be older than the body
+        if (request.checkNotModified(catalogVersions.catalogETag())) {
+            return null;
+        }
+        if (fields != null || format != null) {
+            if (view != null) {
+                throw new IllegalArgumentException("Use either view or fields");
+            }
+            List<String> selected = fieldProjectionService.parseItemFields(fields);
+            boolean tuples = ListingResponses.isTupleFormat(format);
+            if (limit != null || cursor != null) {
+                CursorPage<Object[]> page = fieldProjectionService.findItems(selected, null, cursor, limit);
+                return ListingResponses.page(page.getNextCursor(), fieldProjectionService.render(selected, page.getItems(), tuples));
+            }
+            return ListingResponses.json(catalogCache.get(CatalogResponseCache.items(null, ListingResponses.fieldsView(selected, tuples)),
+                    () -> fieldProjectionService.render(selected, fieldProjectionService.findItems(selected, null, null, null).getItems(), tuples)));
+        }
+        boolean summary = ListingResponses.isSummaryView(view);
+        if (limit != null || cursor != null) {
+            return summary ? ListingResponses.page(itemService.findSummaryPage(null, cursor, limit))
+                    : ListingResponses.page(itemService.findPage(null, cursor, limit));
+        }
+        byte[] body = catalogCache.get(CatalogResponseCache.items(null, summary ? "summary" : "full"),
+                () -> summary ? itemService.findSummaries(null) : itemService.findAll());
+        return ListingResponses.json(body);
+    }
+
+    /**
+     * stream=true writes every item while it is read, in constant memory. A mapping of its
+     * own, since only a declared StreamingResponseBody is written asynchronously.
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllItems(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "view", required = false) String view,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "format", required = false) String format,
+            WebRequest request) {
+        if (request.checkNotModified(catalogVersions.catalogETag())) {
+            return null;
+        }
+        if (limit != null || cursor != null || view != null || fields != null || format != null) {
+            throw new IllegalArgumentException("stream cannot be combined with limit, cursor, view, fields or format");
+        }
+        StreamingResponseBody body = out -> itemService.streamItems(null, out);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ItemResponse> getItemById(@PathVariable String id) {
+    public ResponseEntity<ItemResponse> getItemById(@PathVariable String id, WebRequest request) {
+        // Which collection the item is in is not known without a query, so this uses the catalog version
+        if (request.checkNotModified(catalogVersions.catalogETag())) {
+            return null;
+        }
         ItemResponse item = itemService.findById(id);
-        return ResponseEntity.ok(item);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(item);
+    }
+
+    /**
+     * Items whose image is within maxDistance bits (default 10, at most 16) of this item's,
+     * closest first: copies, rescans and re-encodes of the same picture
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<SimilarItem>> getSimilarItems(
+            @PathVariable String id,
+            @RequestParam(value = "maxDistance", required = false) Integer maxDistance,
+            @RequestParam(value = "limit", required = false) Integer limit) throws IOException {
+        return ResponseEntity.ok(perceptualHashService.findSimilar(id, maxDistance, limit));
     }
 
     @PostMapping
@@ -52,4 +151,13 @@ public class ItemController {
         itemService.deleteItem(id);
         return ResponseEntity.noContent().build();
     }
+
+    @DeleteMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulkDeleteItems(@RequestBody List<String> ids) {
+        int deletedCount = itemService.deleteItems(ids);
+        return ResponseEntity.ok(Map.of(
+            "deletedCount", deletedCount,
+            "totalRequested", ids.stream().filter(Objects::nonNull).distinct().count()
+        ));
+    }
 }
@@ -0,0 +1,66 @@
+package com.vault.controller;
+
+import com.vault.dto.CursorPage;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Listing parameters and response building shared by the catalog controllers
+ */
+final class ListingResponses {
+
+    private ListingResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> page(CursorPage<T> page) {
+        return page(page.getNextCursor(), page.getItems());
+    }
+
+    /**
+     * The body with the next page's cursor, if any, in the X-Next-Cursor header
+     */
+    static <T> ResponseEntity<T> page(String nextCursor, T body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        if (nextCursor != null) {
+            response.header("X-Next-Cursor", nextCursor);
+        }
+        return response.body(body);
+    }
+
+    /**
+     * An already serialized JSON body, such as one from the catalog response cache
+     */
+    static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    static boolean isSummaryView(String view) {
+        if (view == null || view.equals("full")) {
+            return false;
+        }
+        if (view.equals("summary")) {
+            return true;
+        }
+        throw new IllegalArgumentException("View must be 'full' or 'summary'");
+    }
+
+    static boolean isTupleFormat(String format) {
+        if (format == null || format.equals("objects")) {
+            return false;
+        }
+        if (format.equals("tuples")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Format must be 'objects' or 'tuples'");
+    }
+
+    /**
+     * Cache key view for a field selection
+     */
+    static String fieldsView(List<String> selected, boolean tuples) {
+        return "fields=" + String.join(",", selected) + (tuples ? ";tuples" : "");
+    }
+}
@@ -1,11 +1,25 @@
 package com.vault.controller;
 
+import com.vault.dto.SimilarItem;
+import com.vault.dto.UploadResult;
+import com.vault.service.HotImageCache;
+import com.vault.service.ImageDerivativeService;
+import com.vault.service.JobService;
+import com.vault.service.MediaReferenceService;
 import com.vault.service.MediaService;
+import com.vault.service.PerceptualHashService;
+import com.vault.service.StorageDeduplicationService;
+import com.vault.service.StorageLayoutMigrationService;
+import com.vault.service.StorageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,18 +30,63 @@ public class MediaController {
     @Autowired
     private MediaService mediaService;
 
+    @Autowired
+    private MediaReferenceService mediaReferenceService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private HotImageCache hotImageCache;
+
+    @Autowired
+    private StorageDeduplicationService storageDeduplicationService;
+
+    @Autowired
+    private StorageLayoutMigrationService storageLayoutMigrationService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private PerceptualHashService perceptualHashService;
+
     @PostMapping("/bulk")
     public ResponseEntity<Map<String, Object>> bulkUpload(
             @RequestParam("files") MultipartFile[] files
     ) {
         try {
-            List<String> uploadedFilenames = mediaService.bulkUpload(files);
-            
+            List<UploadResult> results = mediaService.bulkUpload(files);
+
+            List<String> uploadedFilenames = results.stream()
+                    .filter(result -> UploadResult.STORED.equals(result.getStatus()))
+                    .map(UploadResult::getFilename)
+                    .toList();
+            long skipped = results.stream().filter(result -> UploadResult.SKIPPED.equals(result.getStatus())).count();
+            long failed = results.stream().filter(result -> UploadResult.FAILED.equals(result.getStatus())).count();
+
+            // Nothing stored at all is still reported as a failed request
+            if (uploadedFilenames.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "All uploads failed",
+                    "results", results,
+                    "skipped", skipped,
+                    "failed", failed
+                ));
+            }
+
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Files uploaded successfully",
                 "filenames", uploadedFilenames,
-                "count", uploadedFilenames.size()
+                "count", uploadedFilenames.size(),
+                "skipped", skipped,
+                "failed", failed,
+                "results", results
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -37,11 +96,46 @@ public class MediaController {
         }
     }
 
+    /**
+     * Check an image against existing items before uploading it; nothing is stored
+     */
+    @PostMapping("/similar")
+    public ResponseEntity<Map<String, Object>> findSimilar(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "maxDistance", required = false) Integer maxDistance,
+            @RequestParam(value = "limit", required = false) Integer limit) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            List<SimilarItem> similarItems = perceptualHashService.findSimilarToImage(input, maxDistance, limit);
+            return ResponseEntity.ok(Map.of(
+                "duplicate", !similarItems.isEmpty(),
+                "similarItems", similarItems
+            ));
+        }
+    }
+
+    @GetMapping("/similar/stats")
+    public ResponseEntity<Map<String, Object>> getSimilarityStats() {
+        return ResponseEntity.ok(perceptualHashService.getStats());
+    }
+
+    @PostMapping("/similar/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSimilarityIndex() {
+        int indexed = perceptualHashService.rebuild();
+        return ResponseEntity.ok(Map.of("indexed", indexed));
+    }
+
     @GetMapping("/unused")
-    public ResponseEntity<List<Map<String, Object>>> getUnusedMedia() {
+    public ResponseEntity<List<Map<String, Object>>> getUnusedMedia(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "500") int size,
+            @RequestParam(value = "sort", defaultValue = "createdAt") String sort,
+            @RequestParam(value = "direction", defaultValue = "desc") String direction) {
         try {
-            List<Map<String, Object>> unusedFiles = mediaService.getUnusedMedia();
-            return ResponseEntity.ok(unusedFiles);
+            Page<Map<String, Object>> unusedFiles = mediaService.getUnusedMedia(page, size, sort, direction);
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(unusedFiles.getTotalElements()))
+                    .header("X-Total-Pages", String.valueOf(unusedFiles.getTotalPages()))
+                    .body(unusedFiles.getContent());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(List.of(Map.of(
                 "error", e.getMessage()
@@ -92,4 +186,71 @@ public class MediaController {
             ));
         }
     }
+
+    @GetMapping("/{filename}/references")
+    public ResponseEntity<Map<String, Object>> getReferences(@PathVariable String filename) {
+        List<Map<String, Object>> references = mediaReferenceService.findReferences(filename);
+        return ResponseEntity.ok(Map.of(
+            "filename", filename,
+            "referenced", !references.isEmpty(),
+            "references", references
+        ));
+    }
+
+    @PostMapping("/references/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildReferences() {
+        return ResponseEntity.ok(mediaReferenceService.rebuild());
+    }
+
+    @PostMapping("/deduplicate")
+    public ResponseEntity<Map<String, Object>> deduplicate() {
+        try {
+            return ResponseEntity.ok(storageDeduplicationService.deduplicate());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @PostMapping("/migrate-layout")
+    public ResponseEntity<Map<String, Object>> migrateLayout() {
+        try {
+            boolean started = storageLayoutMigrationService.start();
+            Map<String, Object> status = new LinkedHashMap<>(storageLayoutMigrationService.getStatus());
+            status.put("started", started);
+            return ResponseEntity.ok(status);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/migrate-layout")
+    public ResponseEntity<Map<String, Object>> getLayoutMigrationStatus() {
+        return ResponseEntity.ok(storageLayoutMigrationService.getStatus());
+    }
+
+    @GetMapping("/derivatives/stats")
+    public ResponseEntity<Map<String, Object>> getDerivativeStats() {
+        return ResponseEntity.ok(imageDerivativeService.getStats());
+    }
+
+    @GetMapping("/jobs/stats")
+    public ResponseEntity<Map<String, Object>> getJobStats() {
+        return ResponseEntity.ok(jobService.getStats());
+    }
+
+    @GetMapping("/hot-cache/stats")
+    public ResponseEntity<Map<String, Object>> getHotCacheStats() {
+        return ResponseEntity.ok(hotImageCache.getStats());
+    }
+
+    @GetMapping("/storage/stats")
+    public ResponseEntity<Map<String, Object>> getStorageStats() {
+        return ResponseEntity.ok(storageService.getStats());
+    }
 }
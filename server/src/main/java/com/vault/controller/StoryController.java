@@ -0,0 +1,68 @@
+package com.vault.controller;
+
+import com.vault.dto.StoryRequest;
+import com.vault.dto.StoryResponse;
+import com.vault.dto.StorySummary;
+import com.vault.service.StoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stories")
+@CrossOrigin(origins = "*", exposedHeaders = {"X-Next-Cursor"})
+public class StoryController {
+
+    @Autowired
+    private StoryService storyService;
+
+    /**
+     * Story feed, newest first, with excerpts instead of content. Optionally only stories
+     * with a tag, about an item or about a collection; pass X-Next-Cursor as cursor to continue.
+     */
+    @GetMapping
+    public ResponseEntity<List<StorySummary>> getStories(
+            @RequestParam(value = "tag", required = false) String tag,
+            @RequestParam(value = "itemId", required = false) String itemId,
+            @RequestParam(value = "collectionId", required = false) String collectionId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ListingResponses.page(storyService.findPage(tag, itemId, collectionId, cursor, limit));
+    }
+
+    @GetMapping("/tags")
+    public ResponseEntity<List<Map<String, Object>>> getTags() {
+        return ResponseEntity.ok(storyService.findTags());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<StoryResponse> getStoryById(@PathVariable String id) {
+        return ResponseEntity.ok(storyService.findById(id));
+    }
+
+    @PostMapping
+    public ResponseEntity<StoryResponse> createStory(@RequestBody StoryRequest request) {
+        StoryResponse response = storyService.createStory(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<StoryResponse> updateStory(@PathVariable String id, @RequestBody StoryRequest request) {
+        return ResponseEntity.ok(storyService.updateStory(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteStory(@PathVariable String id) {
+        storyService.deleteStory(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/tags/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildTagIndex() {
+        return ResponseEntity.ok(Map.of("indexed", storyService.rebuildTagIndex()));
+    }
+}
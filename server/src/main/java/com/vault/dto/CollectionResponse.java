@@ -16,10 +16,16 @@ public class CollectionResponse {
     private Map<String, String> metadata;
     private java.util.List<String> itemCategories;
     private int itemCount;
+    private LocalDateTime itemsUpdatedAt;
 
     public CollectionResponse() {
     }
 
+    public CollectionResponse(Collection collection) {
+        this(collection, collection.getItemCount());
+        this.itemsUpdatedAt = collection.getItemsUpdatedAt();
+    }
+
     public CollectionResponse(Collection collection, int itemCount) {
         this.id = collection.getId();
         this.name = collection.getName();
@@ -31,6 +37,23 @@ public class CollectionResponse {
         this.itemCount = itemCount;
     }
 
+    /**
+     * Column-for-column constructor for JPQL projections, which skip entity hydration
+     */
+    public CollectionResponse(String id, String name, LocalDateTime createdAt, String coverPhoto, AspectRatio aspectRatio,
+                              Map<String, String> metadata, java.util.List<String> itemCategories,
+                              int itemCount, LocalDateTime itemsUpdatedAt) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.coverPhoto = coverPhoto;
+        this.aspectRatio = aspectRatio;
+        this.metadata = metadata;
+        this.itemCategories = itemCategories;
+        this.itemCount = itemCount;
+        this.itemsUpdatedAt = itemsUpdatedAt;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -95,4 +118,12 @@ public class CollectionResponse {
     public void setItemCategories(java.util.List<String> itemCategories) {
         this.itemCategories = itemCategories;
     }
+
+    public LocalDateTime getItemsUpdatedAt() {
+        return itemsUpdatedAt;
+    }
+
+    public void setItemsUpdatedAt(LocalDateTime itemsUpdatedAt) {
+        this.itemsUpdatedAt = itemsUpdatedAt;
+    }
 }
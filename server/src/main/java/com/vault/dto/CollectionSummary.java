@@ -0,0 +1,59 @@
+package com.vault.dto;
+
+import com.vault.entity.AspectRatio;
+
+import java.time.LocalDateTime;
+
+/**
+ * Collection as shown on the home page: no metadata or item categories, so neither JSON
+ * column is read from the database for this view
+ */
+public class CollectionSummary {
+
+    private final String id;
+    private final String name;
+    private final LocalDateTime createdAt;
+    private final String coverPhoto;
+    private final AspectRatio aspectRatio;
+    private final int itemCount;
+    private final LocalDateTime itemsUpdatedAt;
+
+    public CollectionSummary(String id, String name, LocalDateTime createdAt, String coverPhoto,
+                             AspectRatio aspectRatio, int itemCount, LocalDateTime itemsUpdatedAt) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.coverPhoto = coverPhoto;
+        this.aspectRatio = aspectRatio;
+        this.itemCount = itemCount;
+        this.itemsUpdatedAt = itemsUpdatedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getCoverPhoto() {
+        return coverPhoto;
+    }
+
+    public AspectRatio getAspectRatio() {
+        return aspectRatio;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public LocalDateTime getItemsUpdatedAt() {
+        return itemsUpdatedAt;
+    }
+}
@@ -30,6 +30,21 @@ public class ItemResponse {
         this.category = item.getCategory();
     }
 
+    /**
+     * Column-for-column constructor for JPQL projections, which skip entity hydration
+     */
+    public ItemResponse(String id, String collectionId, String url, String title, String filename,
+                        LocalDateTime uploadedAt, Map<String, String> metadata, String category) {
+        this.id = id;
+        this.collectionId = collectionId;
+        this.url = url;
+        this.title = title;
+        this.filename = filename;
+        this.uploadedAt = uploadedAt;
+        this.metadata = metadata;
+        this.category = category;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
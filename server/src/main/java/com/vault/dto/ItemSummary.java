@@ -0,0 +1,57 @@
+package com.vault.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Item as shown in a grid or list: everything but metadata, which is never read from the
+ * database for this view
+ */
+public class ItemSummary {
+
+    private final String id;
+    private final String collectionId;
+    private final String url;
+    private final String title;
+    private final String filename;
+    private final LocalDateTime uploadedAt;
+    private final String category;
+
+    public ItemSummary(String id, String collectionId, String url, String title, String filename,
+                       LocalDateTime uploadedAt, String category) {
+        this.id = id;
+        this.collectionId = collectionId;
+        this.url = url;
+        this.title = title;
+        this.filename = filename;
+        this.uploadedAt = uploadedAt;
+        this.category = category;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCollectionId() {
+        return collectionId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public LocalDateTime getUploadedAt() {
+        return uploadedAt;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+}
@@ -0,0 +1,63 @@
+package com.vault.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Page size limits and the fetch-one-extra-row logic shared by every listing paged with a
+ * {@link KeysetCursor}
+ */
+public final class KeysetPaging {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private KeysetPaging() {
+    }
+
+    /**
+     * The page size for a requested limit: the default when absent, capped at the maximum
+     */
+    public static int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be >= 1");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Fetch one page, from the start without a cursor or after the decoded cursor otherwise
+     */
+    public static <T> CursorPage<T> page(String cursor, Integer limit,
+                                         Function<Pageable, List<T>> firstPage,
+                                         BiFunction<KeysetCursor, Pageable, List<T>> pageAfter,
+                                         Function<T, KeysetCursor> cursorOf) {
+        int pageSize = resolvePageSize(limit);
+        // One extra row tells us whether another page follows
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<T> rows = cursor == null
+                ? firstPage.apply(pageable)
+                : pageAfter.apply(KeysetCursor.decode(cursor), pageable);
+        return trim(rows, pageSize, cursorOf);
+    }
+
+    /**
+     * Cut rows fetched with a limit of pageSize + 1 down to the page, with a cursor after its
+     * last row when the extra row shows another page follows
+     */
+    public static <T> CursorPage<T> trim(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, pageSize);
+        return new CursorPage<>(page, cursorOf.apply(page.get(pageSize - 1)).encode());
+    }
+}
@@ -0,0 +1,34 @@
+package com.vault.dto;
+
+/**
+ * One condition on an item metadata value, e.g. grade = PSA10 or year >= 1990. The operator
+ * is one of =, !=, &gt;, &gt;=, &lt; and &lt;=; the ordering ones compare numerically.
+ */
+public class MetadataFilter {
+
+    private final String key;
+    private final String operator;
+    private final String value;
+
+    public MetadataFilter(String key, String operator, String value) {
+        this.key = key;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isRange() {
+        return !operator.equals("=") && !operator.equals("!=");
+    }
+}
@@ -0,0 +1,42 @@
+package com.vault.dto;
+
+/**
+ * One ranked search result. collectionId is the item's collection for items and stories,
+ * and null for collections.
+ */
+public class SearchHit {
+
+    private final String type;
+    private final String id;
+    private final String title;
+    private final String collectionId;
+    private final double score;
+
+    public SearchHit(String type, String id, String title, String collectionId, double score) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.collectionId = collectionId;
+        this.score = score;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getCollectionId() {
+        return collectionId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
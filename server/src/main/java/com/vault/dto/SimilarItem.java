@@ -0,0 +1,43 @@
+package com.vault.dto;
+
+/**
+ * An item whose image looks like another one. distance is the number of differing bits
+ * between the two perceptual hashes: 0 for the same picture, up to about 10 for a rescan
+ * or a re-encode.
+ */
+public class SimilarItem {
+
+    private final String id;
+    private final String collectionId;
+    private final String title;
+    private final String url;
+    private final int distance;
+
+    public SimilarItem(ItemSummary item, int distance) {
+        this.id = item.getId();
+        this.collectionId = item.getCollectionId();
+        this.title = item.getTitle();
+        this.url = item.getUrl();
+        this.distance = distance;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCollectionId() {
+        return collectionId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+}
@@ -0,0 +1,117 @@
+package com.vault.dto;
+
+import com.vault.entity.Story;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class StoryResponse {
+
+    private String id;
+    private String title;
+    private String content;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private String itemId;
+    private String collectionId;
+    private String coverImage;
+    private List<String> tags;
+    private String excerpt;
+
+    public StoryResponse() {
+    }
+
+    public StoryResponse(Story story) {
+        this.id = story.getId();
+        this.title = story.getTitle();
+        this.content = story.getContent();
+        this.createdAt = story.getCreatedAt();
+        this.updatedAt = story.getUpdatedAt();
+        this.itemId = story.getItemId();
+        this.collectionId = story.getCollectionId();
+        this.coverImage = story.getCoverImage();
+        this.tags = story.getTags();
+        this.excerpt = story.getExcerpt();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getCollectionId() {
+        return collectionId;
+    }
+
+    public void setCollectionId(String collectionId) {
+        this.collectionId = collectionId;
+    }
+
+    public String getCoverImage() {
+        return coverImage;
+    }
+
+    public void setCoverImage(String coverImage) {
+        this.coverImage = coverImage;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+}
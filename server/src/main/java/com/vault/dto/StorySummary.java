@@ -0,0 +1,69 @@
+package com.vault.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A story in a feed: the stored excerpt instead of the full content
+ */
+public class StorySummary {
+
+    private final String id;
+    private final String title;
+    private final String excerpt;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final String itemId;
+    private final String collectionId;
+    private final String coverImage;
+    private final List<String> tags;
+
+    public StorySummary(String id, String title, String excerpt, LocalDateTime createdAt, LocalDateTime updatedAt,
+                        String itemId, String collectionId, String coverImage, List<String> tags) {
+        this.id = id;
+        this.title = title;
+        this.excerpt = excerpt;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.itemId = itemId;
+        this.collectionId = collectionId;
+        this.coverImage = coverImage;
+        this.tags = tags;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public String getCollectionId() {
+        return collectionId;
+    }
+
+    public String getCoverImage() {
+        return coverImage;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+}
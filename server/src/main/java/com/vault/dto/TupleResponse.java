@@ -0,0 +1,26 @@
+package com.vault.dto;
+
+import java.util.List;
+
+/**
+ * Compact list encoding: the field names once, then one array of values per row in the
+ * same order, instead of repeating every key in every object
+ */
+public class TupleResponse {
+
+    private final List<String> fields;
+    private final List<Object[]> rows;
+
+    public TupleResponse(List<String> fields, List<Object[]> rows) {
+        this.fields = fields;
+        this.rows = rows;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+}
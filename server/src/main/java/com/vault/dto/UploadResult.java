@@ -0,0 +1,83 @@
+package com.vault.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of one file in a bulk upload
+ */
+public class UploadResult {
+
+    public static final String STORED = "stored";
+    public static final String SKIPPED = "skipped";
+    public static final String FAILED = "failed";
+
+    private String originalFilename;
+    private String status;
+    private String filename;
+    private String message;
+    // Existing items that look like the same picture; null when there are none
+    private List<SimilarItem> similarItems;
+
+    public UploadResult() {
+    }
+
+    public UploadResult(String originalFilename, String status, String filename, String message) {
+        this.originalFilename = originalFilename;
+        this.status = status;
+        this.filename = filename;
+        this.message = message;
+    }
+
+    public static UploadResult stored(String originalFilename, String filename) {
+        return new UploadResult(originalFilename, STORED, filename, null);
+    }
+
+    public static UploadResult skipped(String originalFilename, String message) {
+        return new UploadResult(originalFilename, SKIPPED, null, message);
+    }
+
+    public static UploadResult failed(String originalFilename, String message) {
+        return new UploadResult(originalFilename, FAILED, null, message);
+    }
+
+    // Getters and Setters
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    public void setOriginalFilename(String originalFilename) {
+        this.originalFilename = originalFilename;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<SimilarItem> getSimilarItems() {
+        return similarItems;
+    }
+
+    public void setSimilarItems(List<SimilarItem> similarItems) {
+        this.similarItems = similarItems;
+    }
+}
@@ -40,6 +40,13 @@ public class Collection {
     @Column(name = "item_categories", columnDefinition = "JSON")
     private java.util.List<String> itemCategories;
 
+    // Maintained by set-based updates on item writes; never written through the entity
+    @Column(name = "item_count", nullable = false, insertable = false, updatable = false)
+    private int itemCount;
+
+    @Column(name = "items_updated_at", insertable = false, updatable = false)
+    private LocalDateTime itemsUpdatedAt;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -106,4 +113,12 @@ public class Collection {
     public void setItemCategories(java.util.List<String> itemCategories) {
         this.itemCategories = itemCategories;
     }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public LocalDateTime getItemsUpdatedAt() {
+        return itemsUpdatedAt;
+    }
 }
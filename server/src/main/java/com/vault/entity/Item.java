@@ -41,6 +41,10 @@ public class Item {
     @Column(name = "metadata", columnDefinition = "JSON")
     private Map<String, String> metadata;
 
+    // 64-bit difference hash of the image, filled in by a background job after the image is stored
+    @Column(name = "image_hash")
+    private Long imageHash;
+
     @PrePersist
     protected void onCreate() {
         if (uploadedAt == null) {
@@ -115,4 +119,12 @@ public class Item {
     public void setCategory(String category) {
         this.category = category;
     }
+
+    public Long getImageHash() {
+        return imageHash;
+    }
+
+    public void setImageHash(Long imageHash) {
+        this.imageHash = imageHash;
+    }
 }
@@ -0,0 +1,80 @@
+package com.vault.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "item_metadata")
+@IdClass(ItemMetadataId.class)
+public class ItemMetadata {
+
+    @Id
+    @Column(name = "item_id", nullable = false, columnDefinition = "VARCHAR(36)")
+    private String itemId;
+
+    @Id
+    @Column(name = "meta_key", nullable = false, length = 100)
+    private String key;
+
+    @Column(name = "collection_id", columnDefinition = "VARCHAR(36)")
+    private String collectionId;
+
+    @Column(name = "meta_value", nullable = false, length = 191)
+    private String value;
+
+    @Column(name = "num_value", precision = 30, scale = 10)
+    private BigDecimal numValue;
+
+    public ItemMetadata() {
+    }
+
+    public ItemMetadata(String itemId, String key, String collectionId, String value, BigDecimal numValue) {
+        this.itemId = itemId;
+        this.key = key;
+        this.collectionId = collectionId;
+        this.value = value;
+        this.numValue = numValue;
+    }
+
+    // Getters and Setters
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getCollectionId() {
+        return collectionId;
+    }
+
+    public void setCollectionId(String collectionId) {
+        this.collectionId = collectionId;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public BigDecimal getNumValue() {
+        return numValue;
+    }
+
+    public void setNumValue(BigDecimal numValue) {
+        this.numValue = numValue;
+    }
+}
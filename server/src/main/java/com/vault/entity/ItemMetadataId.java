@@ -0,0 +1,34 @@
+package com.vault.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class ItemMetadataId implements Serializable {
+
+    private String itemId;
+    private String key;
+
+    public ItemMetadataId() {
+    }
+
+    public ItemMetadataId(String itemId, String key) {
+        this.itemId = itemId;
+        this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ItemMetadataId that)) {
+            return false;
+        }
+        return Objects.equals(itemId, that.itemId) && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(itemId, key);
+    }
+}
@@ -0,0 +1,8 @@
+package com.vault.entity;
+
+public enum JobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
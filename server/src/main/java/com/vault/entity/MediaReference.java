@@ -0,0 +1,56 @@
+package com.vault.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "media_references")
+@IdClass(MediaReferenceId.class)
+public class MediaReference {
+
+    @Id
+    @Column(name = "filename", nullable = false)
+    private String filename;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "owner_type", nullable = false)
+    private MediaOwnerType ownerType;
+
+    @Id
+    @Column(name = "owner_id", nullable = false, columnDefinition = "VARCHAR(36)")
+    private String ownerId;
+
+    public MediaReference() {
+    }
+
+    public MediaReference(String filename, MediaOwnerType ownerType, String ownerId) {
+        this.filename = filename;
+        this.ownerType = ownerType;
+        this.ownerId = ownerId;
+    }
+
+    // Getters and Setters
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public MediaOwnerType getOwnerType() {
+        return ownerType;
+    }
+
+    public void setOwnerType(MediaOwnerType ownerType) {
+        this.ownerType = ownerType;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+}
@@ -0,0 +1,38 @@
+package com.vault.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class MediaReferenceId implements Serializable {
+
+    private String filename;
+    private MediaOwnerType ownerType;
+    private String ownerId;
+
+    public MediaReferenceId() {
+    }
+
+    public MediaReferenceId(String filename, MediaOwnerType ownerType, String ownerId) {
+        this.filename = filename;
+        this.ownerType = ownerType;
+        this.ownerId = ownerId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MediaReferenceId that)) {
+            return false;
+        }
+        return Objects.equals(filename, that.filename)
+                && ownerType == that.ownerType
+                && Objects.equals(ownerId, that.ownerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filename, ownerType, ownerId);
+    }
+}
@@ -44,6 +44,9 @@ public class Story {
     @Column(name = "tags", columnDefinition = "JSON")
     private List<String> tags;
 
+    @Column(name = "excerpt", length = 320)
+    private String excerpt;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -131,4 +134,12 @@ public class Story {
     public void setTags(List<String> tags) {
         this.tags = tags;
     }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
 }
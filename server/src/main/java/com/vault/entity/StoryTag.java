@@ -0,0 +1,57 @@
+package com.vault.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "story_tags")
+@IdClass(StoryTagId.class)
+public class StoryTag {
+
+    @Id
+    @Column(name = "tag", nullable = false, length = 100)
+    private String tag;
+
+    @Id
+    @Column(name = "story_id", nullable = false, columnDefinition = "VARCHAR(36)")
+    private String storyId;
+
+    // Copy of the story's created_at so a tag's feed is read from this table's index in order
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public StoryTag() {
+    }
+
+    public StoryTag(String tag, String storyId, LocalDateTime createdAt) {
+        this.tag = tag;
+        this.storyId = storyId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public String getStoryId() {
+        return storyId;
+    }
+
+    public void setStoryId(String storyId) {
+        this.storyId = storyId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,34 @@
+package com.vault.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class StoryTagId implements Serializable {
+
+    private String tag;
+    private String storyId;
+
+    public StoryTagId() {
+    }
+
+    public StoryTagId(String tag, String storyId) {
+        this.tag = tag;
+        this.storyId = storyId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoryTagId that)) {
+            return false;
+        }
+        return Objects.equals(tag, that.tag) && Objects.equals(storyId, that.storyId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tag, storyId);
+    }
+}
@@ -0,0 +1,6 @@
+package com.vault.entity;
+
+public enum UploadStatus {
+    UPLOADING,
+    COMPLETED
+}
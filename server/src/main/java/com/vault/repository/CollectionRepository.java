@@ -1,9 +1,93 @@
 package com.vault.repository;
 
+import com.vault.dto.CollectionResponse;
+import com.vault.dto.CollectionSummary;
 import com.vault.entity.Collection;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CollectionRepository extends JpaRepository<Collection, String> {
+
+    // Read-only projections: rows become DTOs directly, without managed entities or dirty-checking
+    // snapshots, and the summary view never reads the JSON columns
+
+    String RESPONSE = "SELECT new com.vault.dto.CollectionResponse(c.id, c.name, c.createdAt, c.coverPhoto, c.aspectRatio, " +
+            "c.metadata, c.itemCategories, c.itemCount, c.itemsUpdatedAt) FROM Collection c ";
+
+    String SUMMARY = "SELECT new com.vault.dto.CollectionSummary(c.id, c.name, c.createdAt, c.coverPhoto, c.aspectRatio, " +
+            "c.itemCount, c.itemsUpdatedAt) FROM Collection c ";
+
+    String NEWEST_FIRST = "ORDER BY c.createdAt DESC, c.id DESC";
+
+    String AFTER = "WHERE c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id) ";
+
+    @Query(RESPONSE + NEWEST_FIRST)
+    List<CollectionResponse> findAllResponses();
+
+    @Query(RESPONSE + "WHERE c.id = :id")
+    Optional<CollectionResponse> findResponseById(@Param("id") String id);
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<CollectionSummary> findAllSummaries();
+
+    // Keyset pages, newest first
+
+    @Query(RESPONSE + NEWEST_FIRST)
+    List<CollectionResponse> findFirstPage(Pageable pageable);
+
+    @Query(RESPONSE + AFTER + NEWEST_FIRST)
+    List<CollectionResponse> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<CollectionSummary> findFirstSummaryPage(Pageable pageable);
+
+    @Query(SUMMARY + AFTER + NEWEST_FIRST)
+    List<CollectionSummary> findSummaryPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Collection c SET c.coverPhoto = :newFilename WHERE c.coverPhoto = :oldFilename")
+    int updateCoverPhoto(@Param("oldFilename") String oldFilename, @Param("newFilename") String newFilename);
+
+    /**
+     * Atomically add delta to a collection's item count and stamp its last item change
+     */
+    @Modifying
+    @Query("UPDATE Collection c SET c.itemCount = c.itemCount + :delta, c.itemsUpdatedAt = :now WHERE c.id = :id")
+    int adjustItemCount(@Param("id") String id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    /**
+     * Recount the items of the given collections from the items table
+     */
+    @Modifying
+    @Query(value = "UPDATE collections c SET c.item_count = (SELECT COUNT(*) FROM items i WHERE i.collection_id = c.id), " +
+            "c.items_updated_at = :now WHERE c.id IN (:ids)", nativeQuery = true)
+    int recountItems(@Param("ids") java.util.Collection<String> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Recount every collection in one statement; returns the number of collections recounted
+     */
+    @Modifying
+    @Query(value = "UPDATE collections c LEFT JOIN (SELECT collection_id, COUNT(*) AS actual, MAX(uploaded_at) AS last_upload " +
+            "FROM items WHERE collection_id IS NOT NULL GROUP BY collection_id) i ON i.collection_id = c.id " +
+            "SET c.item_count = COALESCE(i.actual, 0), c.items_updated_at = COALESCE(c.items_updated_at, i.last_upload)", nativeQuery = true)
+    int rebuildItemCounts();
+
+    @Query("SELECT c.id FROM Collection c WHERE c.id IN :ids")
+    List<String> findIdsByIdIn(@Param("ids") java.util.Collection<String> ids);
+
+    @Query("SELECT DISTINCT c.coverPhoto FROM Collection c WHERE c.id IN :ids AND c.coverPhoto IS NOT NULL AND c.coverPhoto <> ''")
+    List<String> findCoverPhotosByIdIn(@Param("ids") java.util.Collection<String> ids);
+
+    @Modifying
+    @Query("DELETE FROM Collection c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") java.util.Collection<String> ids);
 }
@@ -0,0 +1,27 @@
+package com.vault.repository;
+
+import com.vault.entity.ItemMetadata;
+import com.vault.entity.ItemMetadataId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * Rows go away with their item through ON DELETE CASCADE, so only writes that change an
+ * item's metadata or collection need to touch this table
+ */
+@Repository
+public interface ItemMetadataRepository extends JpaRepository<ItemMetadata, ItemMetadataId> {
+
+    @Modifying
+    @Query("DELETE FROM ItemMetadata m WHERE m.itemId IN :itemIds")
+    int deleteByItemIds(@Param("itemIds") Collection<String> itemIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM item_metadata", nativeQuery = true)
+    int deleteAllRows();
+}
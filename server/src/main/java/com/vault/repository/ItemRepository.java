@@ -1,10 +1,23 @@
 package com.vault.repository;
 
+import com.vault.dto.ItemResponse;
+import com.vault.dto.ItemSummary;
 import com.vault.entity.Item;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, String> {
@@ -12,4 +25,131 @@ public interface ItemRepository extends JpaRepository<Item, String> {
     long countByCollectionId(String collectionId);
     
     List<Item> findByCollectionId(String collectionId);
+
+    // Read-only projections: rows become DTOs directly, without managed entities or dirty-checking
+    // snapshots, and the summary view never reads the metadata JSON column
+
+    String RESPONSE = "SELECT new com.vault.dto.ItemResponse(i.id, i.collectionId, i.url, i.title, i.filename, " +
+            "i.uploadedAt, i.metadata, i.category) FROM Item i ";
+
+    String SUMMARY = "SELECT new com.vault.dto.ItemSummary(i.id, i.collectionId, i.url, i.title, i.filename, " +
+            "i.uploadedAt, i.category) FROM Item i ";
+
+    String NEWEST_FIRST = "ORDER BY i.uploadedAt DESC, i.id DESC";
+
+    // Keyset predicates; (uploaded_at, id) is unique so the order is total
+    String AFTER = "(i.uploadedAt < :uploadedAt OR (i.uploadedAt = :uploadedAt AND i.id < :id)) ";
+
+    // Every listing of the same items comes back newest first, whatever the view
+
+    @Query(RESPONSE + NEWEST_FIRST)
+    List<ItemResponse> findAllResponses();
+
+    @Query(RESPONSE + "WHERE i.collectionId = :collectionId " + NEWEST_FIRST)
+    List<ItemResponse> findResponsesByCollectionId(@Param("collectionId") String collectionId);
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<ItemSummary> findAllSummaries();
+
+    // Streamed reads; Integer.MIN_VALUE makes MySQL Connector/J hand rows over one at a time
+    // instead of buffering the whole result. Must be consumed inside a transaction.
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(RESPONSE + NEWEST_FIRST)
+    Stream<ItemResponse> streamAllResponses();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(RESPONSE + "WHERE i.collectionId = :collectionId " + NEWEST_FIRST)
+    Stream<ItemResponse> streamResponsesByCollectionId(@Param("collectionId") String collectionId);
+
+    @Query(SUMMARY + "WHERE i.collectionId = :collectionId " + NEWEST_FIRST)
+    List<ItemSummary> findSummariesByCollectionId(@Param("collectionId") String collectionId);
+
+    @Query(RESPONSE + "WHERE i.id IN :ids")
+    List<ItemResponse> findResponsesByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query(SUMMARY + "WHERE i.id IN :ids")
+    List<ItemSummary> findSummariesByIdIn(@Param("ids") Collection<String> ids);
+
+    // Keyset pages, newest first
+
+    @Query(RESPONSE + NEWEST_FIRST)
+    List<ItemResponse> findFirstPage(Pageable pageable);
+
+    @Query(RESPONSE + "WHERE " + AFTER + NEWEST_FIRST)
+    List<ItemResponse> findPageAfter(@Param("uploadedAt") LocalDateTime uploadedAt, @Param("id") String id, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE i.collectionId = :collectionId " + NEWEST_FIRST)
+    List<ItemResponse> findFirstPageByCollectionId(@Param("collectionId") String collectionId, Pageable pageable);
+
+    @Query(RESPONSE + "WHERE i.collectionId = :collectionId AND " + AFTER + NEWEST_FIRST)
+    List<ItemResponse> findPageByCollectionIdAfter(@Param("collectionId") String collectionId,
+                                                   @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                   @Param("id") String id,
+                                                   Pageable pageable);
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<ItemSummary> findFirstSummaryPage(Pageable pageable);
+
+    @Query(SUMMARY + "WHERE " + AFTER + NEWEST_FIRST)
+    List<ItemSummary> findSummaryPageAfter(@Param("uploadedAt") LocalDateTime uploadedAt, @Param("id") String id, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE i.collectionId = :collectionId " + NEWEST_FIRST)
+    List<ItemSummary> findFirstSummaryPageByCollectionId(@Param("collectionId") String collectionId, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE i.collectionId = :collectionId AND " + AFTER + NEWEST_FIRST)
+    List<ItemSummary> findSummaryPageByCollectionIdAfter(@Param("collectionId") String collectionId,
+                                                         @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                         @Param("id") String id,
+                                                         Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Item i SET i.filename = :newFilename, i.url = :newUrl WHERE i.filename = :oldFilename")
+    int updateFilename(@Param("oldFilename") String oldFilename,
+                       @Param("newFilename") String newFilename,
+                       @Param("newUrl") String newUrl);
+
+    // Perceptual hashes, paged by id for loading the similarity index and backfilling
+
+    @Query("SELECT i.id, i.imageHash FROM Item i WHERE i.imageHash IS NOT NULL AND i.id > :after ORDER BY i.id")
+    List<Object[]> findImageHashesAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("SELECT i.id, i.filename FROM Item i WHERE i.imageHash IS NULL AND i.id > :after ORDER BY i.id")
+    List<Object[]> findUnhashedAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * Any item whose metadata has at least one key
+     */
+    @Query(value = "SELECT id FROM items WHERE JSON_LENGTH(metadata) > 0 LIMIT 1", nativeQuery = true)
+    Optional<String> findAnyIdWithMetadata();
+
+    /**
+     * Record an image's hash unless the item has moved on to another image since it was read
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.imageHash = :hash WHERE i.id = :id AND i.filename = :filename")
+    int updateImageHash(@Param("id") String id, @Param("filename") String filename, @Param("hash") long hash);
+
+    @Query("SELECT DISTINCT i.filename FROM Item i WHERE i.id IN :ids AND i.filename IS NOT NULL AND i.filename <> ''")
+    List<String> findFilenamesByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT DISTINCT i.filename FROM Item i WHERE i.collectionId IN :collectionIds AND i.filename IS NOT NULL AND i.filename <> ''")
+    List<String> findFilenamesByCollectionIdIn(@Param("collectionIds") Collection<String> collectionIds);
+
+    @Query("SELECT i.id FROM Item i WHERE i.collectionId IN :collectionIds ORDER BY i.id")
+    List<String> findIdsByCollectionIdIn(@Param("collectionIds") Collection<String> collectionIds, Pageable pageable);
+
+    @Query("SELECT DISTINCT i.collectionId FROM Item i WHERE i.id IN :ids AND i.collectionId IS NOT NULL")
+    List<String> findCollectionIdsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query("DELETE FROM Item i WHERE i.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Delete up to limit items of the given collections; call repeatedly until it returns less than limit
+     */
+    @Modifying
+    @Query(value = "DELETE FROM items WHERE collection_id IN (:collectionIds) ORDER BY id LIMIT :limit", nativeQuery = true)
+    int deleteChunkByCollectionIdIn(@Param("collectionIds") Collection<String> collectionIds, @Param("limit") int limit);
 }
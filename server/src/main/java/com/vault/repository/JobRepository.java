@@ -0,0 +1,67 @@
+package com.vault.repository;
+
+import com.vault.entity.Job;
+import com.vault.entity.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, String> {
+
+    /**
+     * Insert a pending job unless one with the same dedupe key already exists
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO jobs (id, type, dedupe_key, payload, status, attempts, next_run_at, created_at) " +
+            "VALUES (:id, :type, :dedupeKey, :payload, 'PENDING', 0, :now, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id,
+                       @Param("type") String type,
+                       @Param("dedupeKey") String dedupeKey,
+                       @Param("payload") String payload,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Give a job that failed for good another run from scratch; used when the same work is
+     * enqueued again, so a terminal failure does not hold its dedupe key forever
+     */
+    @Modifying
+    @Query(value = "UPDATE jobs SET status = 'PENDING', attempts = 0, payload = :payload, next_run_at = :now, " +
+            "locked_at = NULL, last_error = NULL, updated_at = :now " +
+            "WHERE dedupe_key = :dedupeKey AND status = 'FAILED'", nativeQuery = true)
+    int resetFailed(@Param("dedupeKey") String dedupeKey,
+                    @Param("payload") String payload,
+                    @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT id FROM jobs WHERE status = 'PENDING' AND next_run_at <= :now " +
+            "ORDER BY next_run_at LIMIT :limit", nativeQuery = true)
+    List<String> findDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Claim a pending job; returns 0 when another worker got there first
+     */
+    @Modifying
+    @Query("UPDATE Job j SET j.status = com.vault.entity.JobStatus.RUNNING, j.lockedAt = :now, " +
+            "j.attempts = j.attempts + 1, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.status = com.vault.entity.JobStatus.PENDING")
+    int claim(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    /**
+     * Return jobs whose worker died mid-run to the pending state
+     */
+    @Modifying
+    @Query("UPDATE Job j SET j.status = com.vault.entity.JobStatus.PENDING, j.lockedAt = null, j.updatedAt = :now " +
+            "WHERE j.status = com.vault.entity.JobStatus.RUNNING AND j.lockedAt < :cutoff")
+    int releaseStale(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM Job j WHERE j.status = :status AND j.updatedAt < :cutoff")
+    int deleteByStatusBefore(@Param("status") JobStatus status, @Param("cutoff") LocalDateTime cutoff);
+
+    long countByStatus(JobStatus status);
+}
@@ -0,0 +1,24 @@
+package com.vault.repository;
+
+import com.vault.entity.MediaFile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MediaFileRepository extends JpaRepository<MediaFile, String> {
+
+    /**
+     * Files no item or collection points at; one primary-key probe per file
+     */
+    @Query("SELECT m FROM MediaFile m " +
+            "WHERE NOT EXISTS (SELECT 1 FROM MediaReference r WHERE r.filename = m.filename)")
+    Page<MediaFile> findUnused(Pageable pageable);
+
+    @Query("SELECT m.filename FROM MediaFile m")
+    List<String> findAllFilenames();
+}
@@ -0,0 +1,46 @@
+package com.vault.repository;
+
+import com.vault.entity.MediaOwnerType;
+import com.vault.entity.MediaReference;
+import com.vault.entity.MediaReferenceId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MediaReferenceRepository extends JpaRepository<MediaReference, MediaReferenceId> {
+
+    boolean existsByFilename(String filename);
+
+    List<MediaReference> findByFilename(String filename);
+
+    @Query("SELECT DISTINCT r.filename FROM MediaReference r WHERE r.filename IN :filenames")
+    List<String> findReferencedFilenames(@Param("filenames") Collection<String> filenames);
+
+    @Modifying
+    @Query("DELETE FROM MediaReference r WHERE r.ownerType = :ownerType AND r.ownerId IN :ownerIds")
+    int deleteByOwners(@Param("ownerType") MediaOwnerType ownerType, @Param("ownerIds") Collection<String> ownerIds);
+
+    @Modifying
+    @Query("UPDATE MediaReference r SET r.filename = :newFilename WHERE r.filename = :oldFilename")
+    int updateFilename(@Param("oldFilename") String oldFilename, @Param("newFilename") String newFilename);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO media_references (filename, owner_type, owner_id) " +
+            "SELECT filename, 'ITEM', id FROM items WHERE filename IS NOT NULL AND filename <> ''", nativeQuery = true)
+    int insertFromItems();
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO media_references (filename, owner_type, owner_id) " +
+            "SELECT cover_photo, 'COLLECTION', id FROM collections WHERE cover_photo IS NOT NULL AND cover_photo <> ''", nativeQuery = true)
+    int insertFromCollections();
+
+    @Modifying
+    @Query(value = "DELETE FROM media_references", nativeQuery = true)
+    int deleteAllRows();
+}
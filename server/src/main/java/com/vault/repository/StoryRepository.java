@@ -0,0 +1,85 @@
+package com.vault.repository;
+
+import com.vault.dto.StorySummary;
+import com.vault.entity.Story;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoryRepository extends JpaRepository<Story, String> {
+
+    // Feed rows carry the stored excerpt; the content TEXT column is only read for a single story
+
+    String SUMMARY = "SELECT new com.vault.dto.StorySummary(s.id, s.title, s.excerpt, s.createdAt, s.updatedAt, " +
+            "s.itemId, s.collectionId, s.coverImage, s.tags) FROM Story s ";
+
+    String NEWEST_FIRST = "ORDER BY s.createdAt DESC, s.id DESC";
+
+    // Keyset predicate; (created_at, id) is unique so the order is total
+    String AFTER = "(s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) ";
+
+    // A tag's feed seeks on story_tags (tag, created_at, story_id) and joins each story by id
+    String BY_TAG = "SELECT new com.vault.dto.StorySummary(s.id, s.title, s.excerpt, s.createdAt, s.updatedAt, " +
+            "s.itemId, s.collectionId, s.coverImage, s.tags) FROM StoryTag t JOIN Story s ON s.id = t.storyId WHERE t.tag = :tag ";
+
+    String TAG_NEWEST_FIRST = "ORDER BY t.createdAt DESC, t.storyId DESC";
+
+    String TAG_AFTER = "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.storyId < :id)) ";
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<StorySummary> findFirstPage(Pageable pageable);
+
+    @Query(SUMMARY + "WHERE " + AFTER + NEWEST_FIRST)
+    List<StorySummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE s.itemId = :itemId " + NEWEST_FIRST)
+    List<StorySummary> findFirstPageByItemId(@Param("itemId") String itemId, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE s.itemId = :itemId AND " + AFTER + NEWEST_FIRST)
+    List<StorySummary> findPageByItemIdAfter(@Param("itemId") String itemId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") String id,
+                                             Pageable pageable);
+
+    @Query(SUMMARY + "WHERE s.collectionId = :collectionId " + NEWEST_FIRST)
+    List<StorySummary> findFirstPageByCollectionId(@Param("collectionId") String collectionId, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE s.collectionId = :collectionId AND " + AFTER + NEWEST_FIRST)
+    List<StorySummary> findPageByCollectionIdAfter(@Param("collectionId") String collectionId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") String id,
+                                                   Pageable pageable);
+
+    @Query(BY_TAG + TAG_NEWEST_FIRST)
+    List<StorySummary> findFirstPageByTag(@Param("tag") String tag, Pageable pageable);
+
+    @Query(BY_TAG + TAG_AFTER + TAG_NEWEST_FIRST)
+    List<StorySummary> findPageByTagAfter(@Param("tag") String tag,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") String id,
+                                          Pageable pageable);
+
+    @Query("SELECT s.id FROM Story s WHERE s.excerpt IS NULL")
+    List<String> findIdsWithoutExcerpt(Pageable pageable);
+
+    /**
+     * Any story with at least one tag
+     */
+    @Query(value = "SELECT id FROM stories WHERE JSON_LENGTH(tags) > 0 LIMIT 1", nativeQuery = true)
+    Optional<String> findAnyIdWithTags();
+
+    /**
+     * Set an excerpt without touching updated_at
+     */
+    @Modifying
+    @Query("UPDATE Story s SET s.excerpt = :excerpt WHERE s.id = :id")
+    int updateExcerpt(@Param("id") String id, @Param("excerpt") String excerpt);
+}
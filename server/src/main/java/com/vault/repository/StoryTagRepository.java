@@ -0,0 +1,29 @@
+package com.vault.repository;
+
+import com.vault.entity.StoryTag;
+import com.vault.entity.StoryTagId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Rows go away with their story through ON DELETE CASCADE
+ */
+@Repository
+public interface StoryTagRepository extends JpaRepository<StoryTag, StoryTagId> {
+
+    @Modifying
+    @Query("DELETE FROM StoryTag t WHERE t.storyId IN :storyIds")
+    int deleteByStoryIds(@Param("storyIds") Collection<String> storyIds);
+
+    /**
+     * Each tag with its number of stories, most used first
+     */
+    @Query("SELECT t.tag, COUNT(t) FROM StoryTag t GROUP BY t.tag ORDER BY COUNT(t) DESC, t.tag")
+    List<Object[]> countByTag();
+}
@@ -0,0 +1,15 @@
+package com.vault.repository;
+
+import com.vault.entity.UploadSession;
+import com.vault.entity.UploadStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    List<UploadSession> findByStatusAndUpdatedAtBefore(UploadStatus status, LocalDateTime cutoff);
+}
@@ -0,0 +1,155 @@
+package com.vault.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * BK-tree over 64-bit image hashes under Hamming distance. Each node holds one hash and the
+ * items that have it, and each child hangs off the edge labelled with its distance to the
+ * parent. By the triangle inequality a search within r of the query only follows edges in
+ * [d - r, d + r], so a small radius visits a small part of the tree. Removing an item leaves
+ * its node in place to route searches; callers rebuild once too many nodes are empty.
+ * Not thread-safe.
+ */
+final class BkTree {
+
+    record Match(String itemId, long hash, int distance) {
+    }
+
+    private static final class Node {
+        final long hash;
+        final List<String> itemIds = new ArrayList<>(1);
+        // Children in insertion order with the distance of each edge; few nodes have many
+        byte[] distances = new byte[0];
+        Node[] children = new Node[0];
+        int childCount;
+
+        Node(long hash) {
+            this.hash = hash;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                distances = Arrays.copyOf(distances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            distances[childCount] = (byte) distance;
+            children[childCount++] = child;
+        }
+    }
+
+    private Node root;
+    private int size;
+    private int nodes;
+    private int emptyNodes;
+
+    static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    void add(long hash, String itemId) {
+        if (root == null) {
+            root = new Node(hash);
+            root.itemIds.add(itemId);
+            nodes++;
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.hash, hash);
+            if (distance == 0) {
+                if (node.itemIds.isEmpty()) {
+                    emptyNodes--;
+                }
+                node.itemIds.add(itemId);
+                size++;
+                return;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                Node added = new Node(hash);
+                added.itemIds.add(itemId);
+                node.addChild(distance, added);
+                nodes++;
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    boolean remove(long hash, String itemId) {
+        Node node = root;
+        while (node != null) {
+            int distance = distance(node.hash, hash);
+            if (distance == 0) {
+                if (!node.itemIds.remove(itemId)) {
+                    return false;
+                }
+                size--;
+                if (node.itemIds.isEmpty()) {
+                    emptyNodes++;
+                }
+                return true;
+            }
+            node = node.child(distance);
+        }
+        return false;
+    }
+
+    /**
+     * Every item whose hash is within maxDistance of the given one, in no particular order
+     */
+    List<Match> search(long hash, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            int distance = distance(node.hash, hash);
+            if (distance <= maxDistance) {
+                for (String itemId : node.itemIds) {
+                    matches.add(new Match(itemId, node.hash, distance));
+                }
+            }
+            int low = distance - maxDistance;
+            int high = distance + maxDistance;
+            for (int i = 0; i < node.childCount; i++) {
+                int edge = node.distances[i];
+                if (edge >= low && edge <= high) {
+                    stack.push(node.children[i]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int nodes() {
+        return nodes;
+    }
+
+    int emptyNodes() {
+        return emptyNodes;
+    }
+}
@@ -0,0 +1,155 @@
+package com.vault.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON bodies of the catalog listings (collections, a collection, a collection's
+ * items), so a repeated read is a map lookup and a byte copy instead of a query and a Jackson
+ * pass. Entries are dropped after a write to the affected collection commits; the cache is
+ * bounded by total bytes and evicts least recently used bodies first.
+ */
+@Service
+public class CatalogResponseCache {
+
+    /**
+     * A cached body: the endpoint, the collection it belongs to (null for catalog-wide
+     * listings) and the view it was rendered in
+     */
+    public record Key(String endpoint, String collectionId, String view) {
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final long maxBytes;
+    private final boolean enabled;
+
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesUsed;
+
+    // Bumped by every invalidation; a body loaded across one is not cached, as it may be stale
+    private long epoch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public CatalogResponseCache(@Value("${catalog.cache.max-bytes:16777216}") long maxBytes,
+                                @Value("${catalog.cache.enabled:true}") boolean enabled) {
+        this.maxBytes = maxBytes;
+        this.enabled = enabled;
+    }
+
+    public static Key collections(String view) {
+        return new Key("collections", null, view);
+    }
+
+    public static Key collection(String id) {
+        return new Key("collection", id, "full");
+    }
+
+    public static Key items(String collectionId, String view) {
+        return new Key("items", collectionId, view);
+    }
+
+    public static Key facets(String collectionId, String view) {
+        return new Key("facets", collectionId, view);
+    }
+
+    /**
+     * The serialized body for key, loading and serializing it on a miss
+     */
+    public byte[] get(Key key, Supplier<?> loader) {
+        long loadEpoch;
+        synchronized (this) {
+            byte[] body = entries.get(key);
+            if (body != null) {
+                hits++;
+                return body;
+            }
+            misses++;
+            loadEpoch = epoch;
+        }
+
+        byte[] body = serialize(loader.get());
+        if (!enabled || body.length > maxBytes) {
+            return body;
+        }
+
+        synchronized (this) {
+            if (epoch == loadEpoch && !entries.containsKey(key)) {
+                entries.put(key, body);
+                bytesUsed += body.length;
+                evictToBudget();
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Drop everything that shows the changed collection once the write commits: its own
+     * bodies and the catalog-wide listings, which carry item counts and timestamps
+     */
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCollectionChanged(CollectionService.CollectionChangedEvent event) {
+        String collectionId = event.collectionId();
+        synchronized (this) {
+            epoch++;
+            invalidations++;
+            Iterator<Map.Entry<Key, byte[]>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, byte[]> entry = iterator.next();
+                Key key = entry.getKey();
+                if (collectionId == null || key.collectionId() == null || Objects.equals(key.collectionId(), collectionId)) {
+                    bytesUsed -= entry.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("bytesUsed", bytesUsed);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    private void evictToBudget() {
+        Iterator<byte[]> iterator = entries.values().iterator();
+        while (bytesUsed > maxBytes && iterator.hasNext()) {
+            bytesUsed -= iterator.next().length;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.vault.service;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Change versions for the catalog, bumped after each committed write, from which the JSON
+ * endpoints derive ETags. A conditional request for an unchanged listing is answered from
+ * these counters alone, without touching the database.
+ * <p>
+ * Versions live in memory; the ETag includes the startup time so tags issued before a
+ * restart never match afterwards.
+ */
+@Service
+public class CatalogVersionService {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    // Versions are drawn from one counter, so a collection's version only ever increases
+    private long counter;
+
+    // Version of the last change to any collection
+    private volatile long globalVersion;
+
+    // Version of the last change that may have touched every collection
+    private volatile long allChangedVersion;
+
+    private final Map<String, Long> collectionVersions = new ConcurrentHashMap<>();
+
+    // After the response cache has dropped its bodies, so a new tag is never paired with an old body
+    @Order(2)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCollectionChanged(CollectionService.CollectionChangedEvent event) {
+        long version = ++counter;
+        if (event.collectionId() == null) {
+            allChangedVersion = version;
+        } else {
+            collectionVersions.put(event.collectionId(), version);
+        }
+        globalVersion = version;
+    }
+
+    /**
+     * ETag for listings that span collections
+     */
+    public String catalogETag() {
+        return tag("g", globalVersion);
+    }
+
+    /**
+     * ETag for a collection and its items
+     */
+    public String collectionETag(String collectionId) {
+        long version = Math.max(collectionVersions.getOrDefault(collectionId, 0L), allChangedVersion);
+        return tag("c", version);
+    }
+
+    private String tag(String scope, long version) {
+        return "W/\"" + instance + "-" + scope + version + "\"";
+    }
+}
@@ -0,0 +1,273 @@
+package com.vault.service;
+
+import com.vault.dto.CreateUploadRequest;
+import com.vault.entity.UploadSession;
+import com.vault.entity.UploadStatus;
+import com.vault.repository.UploadSessionRepository;
+import com.vault.validation.UploadValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable uploads: a client creates a session, PUTs byte ranges in order (resuming from
+ * the reported offset after a dropped connection) and then finalizes. Chunks are appended
+ * to a partial file inside the storage directory, so finalizing is a rename and the bytes
+ * are written exactly once.
+ */
+@Service
+public class ChunkedUploadService {
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private UploadValidator uploadValidator;
+
+    @Autowired
+    private DerivativeJobHandler derivativeJobHandler;
+
+    @Value("${uploads.max-chunk-bytes:67108864}")
+    private long maxChunkBytes;
+
+    @Value("${uploads.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    // Chunks for one session are written one at a time
+    private final ConcurrentHashMap<String, ReentrantLock> sessionLocks = new ConcurrentHashMap<>();
+
+    public Map<String, Object> createSession(CreateUploadRequest request) {
+        uploadValidator.validateCreateRequest(request);
+
+        UploadSession session = new UploadSession();
+        session.setOriginalFilename(StringUtils.cleanPath(request.getFilename()));
+        session.setContentType(request.getContentType());
+        session.setTotalSize(request.getSize());
+        session.setSha256(request.getSha256() != null ? request.getSha256().toLowerCase(Locale.ROOT) : null);
+        session.setStatus(UploadStatus.UPLOADING);
+        UploadSession savedSession = uploadSessionRepository.save(session);
+
+        try {
+            Files.deleteIfExists(storageService.partialPath(savedSession.getId()));
+            Files.createFile(storageService.partialPath(savedSession.getId()));
+        } catch (IOException e) {
+            uploadSessionRepository.delete(savedSession);
+            throw new RuntimeException("Failed to create upload session: " + e.getMessage(), e);
+        }
+
+        Map<String, Object> response = describe(savedSession);
+        response.put("maxChunkBytes", maxChunkBytes);
+        return response;
+    }
+
+    public Map<String, Object> getSession(String id) {
+        return describe(findSession(id));
+    }
+
+    /**
+     * Write one chunk described by a Content-Range header. A chunk may restart at or before
+     * the current offset (re-sending after a lost response); a gap is rejected.
+     */
+    public Map<String, Object> appendChunk(String id, String contentRange, InputStream body) {
+        ReentrantLock lock = sessionLocks.computeIfAbsent(id, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            UploadSession session = findSession(id);
+            if (session.getStatus() != UploadStatus.UPLOADING) {
+                throw new IllegalArgumentException("Upload session is already finalized");
+            }
+
+            long[] range = parseContentRange(contentRange, session.getTotalSize());
+            long start = range[0];
+            long length = range[1] - range[0] + 1;
+            if (length > maxChunkBytes) {
+                throw new IllegalArgumentException("Chunk must be at most " + maxChunkBytes + " bytes");
+            }
+
+            Path partial = storageService.partialPath(id);
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                long current = channel.size();
+                if (start > current) {
+                    throw new IllegalStateException("Expected chunk at offset " + current + " but got " + start);
+                }
+                // Drop anything after the chunk start so a re-sent chunk replaces its earlier copy
+                channel.truncate(start);
+
+                ReadableByteChannel source = Channels.newChannel(body);
+                long position = start;
+                long remaining = length;
+                while (remaining > 0) {
+                    long written = channel.transferFrom(source, position, remaining);
+                    if (written <= 0) {
+                        break;
+                    }
+                    position += written;
+                    remaining -= written;
+                }
+                if (remaining > 0) {
+                    // Connection dropped mid-chunk; keep what arrived so the client can resume
+                    channel.truncate(position);
+                }
+                channel.force(false);
+                session.setReceivedBytes(position);
+            }
+
+            UploadSession savedSession = uploadSessionRepository.save(session);
+            return describe(savedSession);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write chunk: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Verify size and checksum, then move the partial file into storage
+     */
+    public Map<String, Object> complete(String id) {
+        ReentrantLock lock = sessionLocks.computeIfAbsent(id, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            UploadSession session = findSession(id);
+            if (session.getStatus() == UploadStatus.COMPLETED) {
+                // Finalizing twice returns the same result
+                return describe(session);
+            }
+
+            Path partial = storageService.partialPath(id);
+            long size = Files.size(partial);
+            if (size != session.getTotalSize()) {
+                throw new IllegalStateException("Upload incomplete: received " + size + " of " + session.getTotalSize() + " bytes");
+            }
+
+            String hash = storageService.hash(partial);
+            if (session.getSha256() != null && !session.getSha256().equals(hash)) {
+                // The bytes are unusable; drop them so the client starts over
+                Files.deleteIfExists(partial);
+                uploadSessionRepository.delete(session);
+                throw new IllegalArgumentException("Checksum mismatch: expected " + session.getSha256() + " but got " + hash);
+            }
+
+            String filename = storageService.commitPartial(partial, extensionOf(session.getOriginalFilename()), hash);
+            session.setSha256(hash);
+            session.setFilename(filename);
+            session.setReceivedBytes(size);
+            session.setStatus(UploadStatus.COMPLETED);
+            UploadSession savedSession = uploadSessionRepository.save(session);
+
+            derivativeJobHandler.enqueue(filename, null);
+
+            return describe(savedSession);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to finalize upload: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+            sessionLocks.remove(id, lock);
+        }
+    }
+
+    public void abort(String id) {
+        UploadSession session = findSession(id);
+        try {
+            Files.deleteIfExists(storageService.partialPath(id));
+        } catch (IOException e) {
+            System.err.println("Failed to delete partial upload: " + id);
+        }
+        uploadSessionRepository.delete(session);
+        sessionLocks.remove(id);
+    }
+
+    /**
+     * Remove sessions that stopped receiving chunks, along with their partial files
+     */
+    @Scheduled(initialDelayString = "${uploads.cleanup-interval-ms:3600000}",
+            fixedDelayString = "${uploads.cleanup-interval-ms:3600000}")
+    public void collectAbandoned() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        try {
+            List<UploadSession> abandoned = uploadSessionRepository.findByStatusAndUpdatedAtBefore(UploadStatus.UPLOADING, cutoff);
+            for (UploadSession session : abandoned) {
+                Files.deleteIfExists(storageService.partialPath(session.getId()));
+                uploadSessionRepository.delete(session);
+                sessionLocks.remove(session.getId());
+            }
+            // Completed sessions are only kept so a repeated finalize is idempotent
+            uploadSessionRepository.deleteAll(
+                    uploadSessionRepository.findByStatusAndUpdatedAtBefore(UploadStatus.COMPLETED, cutoff));
+            if (!abandoned.isEmpty()) {
+                System.err.println("Removed " + abandoned.size() + " abandoned upload sessions");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Upload session cleanup failed: " + e.getMessage());
+        }
+    }
+
+    private UploadSession findSession(String id) {
+        return uploadSessionRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Upload session not found with id: " + id));
+    }
+
+    /**
+     * Parse "bytes start-end/total" into {start, end}
+     */
+    private long[] parseContentRange(String contentRange, long totalSize) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            throw new IllegalArgumentException("Content-Range header of the form 'bytes start-end/total' is required");
+        }
+        try {
+            String[] rangeAndTotal = contentRange.substring(6).trim().split("/");
+            String[] bounds = rangeAndTotal[0].split("-");
+            long start = Long.parseLong(bounds[0].trim());
+            long end = Long.parseLong(bounds[1].trim());
+            if (rangeAndTotal.length > 1 && !rangeAndTotal[1].equals("*")
+                    && Long.parseLong(rangeAndTotal[1].trim()) != totalSize) {
+                throw new IllegalArgumentException("Content-Range total does not match the session size");
+            }
+            if (start < 0 || end < start || end >= totalSize) {
+                throw new IllegalArgumentException("Content-Range is outside the file");
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed Content-Range header: " + contentRange);
+        }
+    }
+
+    private Map<String, Object> describe(UploadSession session) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", session.getId());
+        response.put("status", session.getStatus().name().toLowerCase());
+        response.put("offset", session.getReceivedBytes());
+        response.put("size", session.getTotalSize());
+        if (session.getFilename() != null) {
+            response.put("filename", session.getFilename());
+            response.put("url", "/api/images/" + session.getFilename());
+        }
+        return response;
+    }
+
+    private String extensionOf(String filename) {
+        int dotIndex = filename.lastIndexOf('.');
+        return dotIndex > 0 ? filename.substring(dotIndex) : "";
+    }
+}
@@ -2,23 +2,43 @@ package com.vault.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vault.dto.CollectionResponse;
+import com.vault.dto.CollectionSummary;
 import com.vault.dto.CreateCollectionRequest;
+import com.vault.dto.CursorPage;
+import com.vault.dto.KeysetCursor;
+import com.vault.dto.KeysetPaging;
 import com.vault.dto.UpdateCollectionRequest;
 import com.vault.entity.Collection;
+import com.vault.entity.MediaOwnerType;
 import com.vault.repository.CollectionRepository;
 import com.vault.repository.ItemRepository;
 import com.vault.validation.CollectionValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 @Service
 public class CollectionService {
 
+    /**
+     * Published when a collection or its items change; collectionId is null when any
+     * collection may have changed
+     */
+    public record CollectionChangedEvent(String collectionId) {
+    }
+
+    // Rows per set-based delete statement
+    private static final int DELETE_BATCH_SIZE = 1000;
+
     @Autowired
     private CollectionRepository collectionRepository;
 
@@ -31,9 +51,30 @@ public class CollectionService {
     @Autowired
     private CollectionValidator collectionValidator;
 
+    @Autowired
+    private DerivativeJobHandler derivativeJobHandler;
+
+    @Autowired
+    private MediaReferenceService mediaReferenceService;
+
+    @Autowired
+    private FileDeletionJobHandler fileDeletionJobHandler;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private PerceptualHashService perceptualHashService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Transactional
     public CollectionResponse createCollection(String requestData, MultipartFile coverPhoto) {
         try {
@@ -62,9 +103,16 @@ public class CollectionService {
 
             // Save collection to database
             Collection savedCollection = collectionRepository.save(collection);
+            mediaReferenceService.replace(MediaOwnerType.COLLECTION, savedCollection.getId(), savedCollection.getCoverPhoto());
+
+            // Pre-generate the cover renditions once the collection is committed
+            derivativeJobHandler.enqueue(savedCollection.getCoverPhoto(), savedCollection.getAspectRatio());
+            eventPublisher.publishEvent(new CollectionChangedEvent(savedCollection.getId()));
 
             // Return response with item count (0 for new collection)
-            return new CollectionResponse(savedCollection, 0);
+            CollectionResponse response = new CollectionResponse(savedCollection, 0);
+            searchIndexService.indexCollection(response);
+            return response;
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
@@ -74,23 +122,69 @@ public class CollectionService {
 
     @Transactional(readOnly = true)
     public List<CollectionResponse> findAll() {
-        List<Collection> collections = collectionRepository.findAll();
-        
-        return collections.stream()
-                .map(collection -> {
-                    int itemCount = (int) itemRepository.countByCollectionId(collection.getId());
-                    return new CollectionResponse(collection, itemCount);
-                })
-                .collect(Collectors.toList());
+        // Item counts are stored on the collection, so this is a single query
+        return collectionRepository.findAllResponses();
+    }
+
+    /**
+     * Collections without metadata or item categories, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<CollectionSummary> findSummaries() {
+        return collectionRepository.findAllSummaries();
+    }
+
+    /**
+     * One page of collections, newest first; pass the previous page's cursor to continue
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CollectionResponse> findPage(String cursor, Integer limit) {
+        return KeysetPaging.page(cursor, limit, collectionRepository::findFirstPage,
+                (after, pageable) -> collectionRepository.findPageAfter(after.getTimestamp(), after.getId(), pageable),
+                collection -> new KeysetCursor(collection.getCreatedAt(), collection.getId()));
+    }
+
+    /**
+     * Like {@link #findPage} but without metadata or item categories
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CollectionSummary> findSummaryPage(String cursor, Integer limit) {
+        return KeysetPaging.page(cursor, limit, collectionRepository::findFirstSummaryPage,
+                (after, pageable) -> collectionRepository.findSummaryPageAfter(after.getTimestamp(), after.getId(), pageable),
+                collection -> new KeysetCursor(collection.getCreatedAt(), collection.getId()));
     }
 
     @Transactional(readOnly = true)
     public CollectionResponse findById(String id) {
-        Collection collection = collectionRepository.findById(id)
+        return collectionRepository.findResponseById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Collection not found with id: " + id));
-        
-        int itemCount = (int) itemRepository.countByCollectionId(collection.getId());
-        return new CollectionResponse(collection, itemCount);
+    }
+
+    /**
+     * Recount every collection's items from the items table; corrects any drift from
+     * writes made outside this service
+     */
+    @Transactional
+    public int rebuildItemCounts() {
+        int recounted = collectionRepository.rebuildItemCounts();
+        eventPublisher.publishEvent(new CollectionChangedEvent(null));
+        return recounted;
+    }
+
+    /**
+     * Nightly rebuild of the item counts. Runs its own transaction inside the try, so a
+     * failed rebuild rolls back and is logged instead of escaping the scheduler.
+     */
+    @Scheduled(cron = "${collections.item-count-repair-cron:0 30 3 * * *}")
+    public void repairItemCounts() {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                collectionRepository.rebuildItemCounts();
+                eventPublisher.publishEvent(new CollectionChangedEvent(null));
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Collection item count repair failed: " + e.getMessage());
+        }
     }
 
     @Transactional
@@ -119,37 +213,31 @@ public class CollectionService {
             if (request.getExistingCoverPhoto() != null && !request.getExistingCoverPhoto().isEmpty()) {
                 // Use existing file from library
                 collection.setCoverPhoto(request.getExistingCoverPhoto());
-                
-                // Delete old cover photo if it's different
-                if (oldCoverPhoto != null && !oldCoverPhoto.equals(request.getExistingCoverPhoto())) {
-                    try {
-                        storageService.delete(oldCoverPhoto);
-                    } catch (Exception e) {
-                        System.err.println("Failed to delete old cover photo: " + oldCoverPhoto);
-                    }
-                }
             } else if (coverPhoto != null && !coverPhoto.isEmpty()) {
                 // Upload new file
                 String filename = storageService.store(coverPhoto);
                 collection.setCoverPhoto(filename);
-
-                // Delete old cover photo if it exists
-                if (oldCoverPhoto != null && !oldCoverPhoto.isEmpty()) {
-                    try {
-                        storageService.delete(oldCoverPhoto);
-                    } catch (Exception e) {
-                        // Log but don't fail the update if old file deletion fails
-                        System.err.println("Failed to delete old cover photo: " + oldCoverPhoto);
-                    }
-                }
             }
 
             // Save updated collection
             Collection updatedCollection = collectionRepository.save(collection);
+            if (!Objects.equals(oldCoverPhoto, updatedCollection.getCoverPhoto())) {
+                mediaReferenceService.replace(MediaOwnerType.COLLECTION, updatedCollection.getId(), updatedCollection.getCoverPhoto());
+            }
 
-            // Return response with current item count
-            int itemCount = (int) itemRepository.countByCollectionId(updatedCollection.getId());
-            return new CollectionResponse(updatedCollection, itemCount);
+            // Delete the replaced cover photo after commit unless something else still uses it
+            if (oldCoverPhoto != null && !oldCoverPhoto.isEmpty() && !oldCoverPhoto.equals(updatedCollection.getCoverPhoto())) {
+                fileDeletionJobHandler.enqueue(List.of(oldCoverPhoto));
+            }
+
+            // Cover renditions may be missing for a new photo or a changed aspect ratio
+            derivativeJobHandler.enqueue(updatedCollection.getCoverPhoto(), updatedCollection.getAspectRatio());
+            eventPublisher.publishEvent(new CollectionChangedEvent(updatedCollection.getId()));
+
+            // Return response with the maintained item count
+            CollectionResponse response = new CollectionResponse(updatedCollection);
+            searchIndexService.indexCollection(response);
+            return response;
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
@@ -157,41 +245,64 @@ public class CollectionService {
         }
     }
 
-    @Transactional
     public void deleteCollection(String id) {
-        // Find existing collection
-        Collection collection = collectionRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Collection not found with id: " + id));
-
-        // Find all items in this collection
-        List<com.vault.entity.Item> items = itemRepository.findByCollectionId(id);
-
-        // Delete all item images from storage
-        for (com.vault.entity.Item item : items) {
-            if (item.getFilename() != null && !item.getFilename().isEmpty()) {
-                try {
-                    storageService.delete(item.getFilename());
-                } catch (Exception e) {
-                    // Log but continue with deletion
-                    System.err.println("Failed to delete item image: " + item.getFilename());
-                }
-            }
+        if (!collectionRepository.existsById(id)) {
+            throw new IllegalArgumentException("Collection not found with id: " + id);
         }
+        deleteCollections(List.of(id));
+    }
 
-        // Delete all items from database
-        itemRepository.deleteAll(items);
+    /**
+     * Delete collections and all of their items with set-based statements; ids that do not
+     * exist are ignored. Items go first, a chunk per transaction, so a huge collection never
+     * holds all of its row locks and undo at once; then each batch of collections is deleted
+     * in one more transaction. A failure part-way leaves the collections with fewer items
+     * and the delete can simply be repeated. Returns the number of collections deleted.
+     */
+    public int deleteCollections(List<String> ids) {
+        List<String> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int deleted = 0;
+        for (int i = 0; i < distinctIds.size(); i += DELETE_BATCH_SIZE) {
+            List<String> requested = distinctIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, distinctIds.size()));
+            List<String> batch = transaction.execute(status -> collectionRepository.findIdsByIdIn(requested));
+            if (batch.isEmpty()) {
+                continue;
+            }
 
-        // Delete collection cover photo from storage
-        if (collection.getCoverPhoto() != null && !collection.getCoverPhoto().isEmpty()) {
-            try {
-                storageService.delete(collection.getCoverPhoto());
-            } catch (Exception e) {
-                // Log but continue with deletion
-                System.err.println("Failed to delete cover photo: " + collection.getCoverPhoto());
+            while (transaction.execute(status -> deleteItemChunk(batch)) == DELETE_BATCH_SIZE) {
+                // Keep deleting until a chunk comes back short
             }
+
+            deleted += transaction.execute(status -> {
+                List<String> coverPhotos = collectionRepository.findCoverPhotosByIdIn(batch);
+                int removed = collectionRepository.deleteByIdIn(batch);
+                mediaReferenceService.removeOwners(MediaOwnerType.COLLECTION, batch);
+                batch.forEach(id -> eventPublisher.publishEvent(new CollectionChangedEvent(id)));
+                searchIndexService.removeCollections(batch);
+                fileDeletionJobHandler.enqueue(coverPhotos);
+                return removed;
+            });
         }
+        return deleted;
+    }
 
-        // Delete collection from database
-        collectionRepository.delete(collection);
+    /**
+     * Delete up to one chunk of the collections' items with their references; the files they
+     * used are cleaned up in the background once the chunk commits. Returns the items deleted.
+     */
+    private int deleteItemChunk(List<String> collectionIds) {
+        List<String> itemIds = itemRepository.findIdsByCollectionIdIn(collectionIds, PageRequest.of(0, DELETE_BATCH_SIZE));
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        List<String> filenames = itemRepository.findFilenamesByIdIn(itemIds);
+        mediaReferenceService.removeOwners(MediaOwnerType.ITEM, itemIds);
+        itemRepository.deleteByIdIn(itemIds);
+        searchIndexService.removeItems(itemIds);
+        perceptualHashService.remove(itemIds);
+        collectionIds.forEach(id -> eventPublisher.publishEvent(new CollectionChangedEvent(id)));
+        fileDeletionJobHandler.enqueue(filenames);
+        return itemIds.size();
     }
 }
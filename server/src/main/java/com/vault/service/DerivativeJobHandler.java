@@ -0,0 +1,63 @@
+package com.vault.service;
+
+import com.vault.entity.AspectRatio;
+import com.vault.entity.Job;
+import com.vault.service.ImageDerivativeService.DerivativeSpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Pre-generates the standard derivatives of newly stored images so the first gallery
+ * view does not resize on the request thread.
+ */
+@Component
+public class DerivativeJobHandler implements JobHandler {
+
+    public static final String TYPE = "DERIVATIVE";
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    /**
+     * Enqueue one job per standard rendition; safe to call repeatedly for the same file
+     */
+    public void enqueue(String filename, AspectRatio aspectRatio) {
+        if (filename == null || filename.isEmpty()) {
+            return;
+        }
+        for (DerivativeSpec spec : imageDerivativeService.presetsFor(filename, aspectRatio)) {
+            Map<String, String> payload = Map.of(
+                    "filename", filename,
+                    "width", String.valueOf(spec.width()),
+                    "height", String.valueOf(spec.height()),
+                    "quality", String.valueOf(spec.quality()),
+                    "format", spec.format());
+            jobService.enqueue(TYPE, TYPE + ":" + spec.cacheKey(filename), payload);
+        }
+    }
+
+    @Override
+    public void handle(Job job) {
+        Map<String, String> payload = job.getPayload();
+        String filename = payload.get("filename");
+        DerivativeSpec spec = new DerivativeSpec(
+                Integer.parseInt(payload.get("width")),
+                Integer.parseInt(payload.get("height")),
+                Integer.parseInt(payload.get("quality")),
+                payload.get("format"));
+
+        if (!imageDerivativeService.isCached(filename, spec)) {
+            imageDerivativeService.getOrCreate(filename, spec);
+        }
+    }
+}
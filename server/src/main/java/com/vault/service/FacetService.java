@@ -0,0 +1,159 @@
+package com.vault.service;
+
+import com.vault.dto.MetadataFilter;
+import com.vault.entity.Collection;
+import com.vault.repository.CollectionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Item counts per category and per value of chosen metadata keys within a collection, so
+ * category tabs and filter menus come from one call instead of the whole item list. Each
+ * count is a GROUP BY over an index that covers it: (collection_id, category) on items and
+ * (collection_id, meta_key, meta_value) on item_metadata.
+ */
+@Service
+public class FacetService {
+
+    private static final int MAX_KEYS = 20;
+    private static final int DEFAULT_VALUE_LIMIT = 50;
+    private static final int MAX_VALUE_LIMIT = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private ItemMetadataService itemMetadataService;
+
+    public List<String> parseKeys(String keys) {
+        if (keys == null || keys.isBlank()) {
+            return List.of();
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String key : keys.split(",")) {
+            if (!key.isBlank()) {
+                parsed.add(key.trim());
+            }
+        }
+        if (parsed.size() > MAX_KEYS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYS + " metadata keys per request");
+        }
+        return List.copyOf(parsed);
+    }
+
+    /**
+     * Counts for a collection's items matching the filters. Categories listed on the
+     * collection appear even with no items, in the collection's order. A metadata key's
+     * values are counted without the filters on that key, so the other values stay
+     * selectable; up to valueLimit values per key, most frequent first.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> findFacets(String collectionId, List<String> keys, List<MetadataFilter> filters, Integer valueLimit) {
+        Collection collection = collectionRepository.findById(collectionId)
+                .orElseThrow(() -> new IllegalArgumentException("Collection not found with id: " + collectionId));
+        int limit = resolveValueLimit(valueLimit);
+
+        Map<String, Long> categoryCounts = new LinkedHashMap<>();
+        if (collection.getItemCategories() != null) {
+            collection.getItemCategories().forEach(category -> categoryCounts.put(category, 0L));
+        }
+        long total = 0;
+        for (Object[] row : countCategories(collectionId, filters)) {
+            long count = ((Number) row[1]).longValue();
+            categoryCounts.put((String) row[0], count);
+            total += count;
+        }
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        for (String key : keys) {
+            List<MetadataFilter> otherFilters = filters.stream().filter(filter -> !filter.getKey().equals(key)).toList();
+            metadata.put(key, counts(countValues(collectionId, key, otherFilters, limit)));
+        }
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("collectionId", collectionId);
+        facets.put("total", total);
+        facets.put("categories", counts(categoryCounts));
+        facets.put("metadata", metadata);
+        return facets;
+    }
+
+    private List<Object[]> countCategories(String collectionId, List<MetadataFilter> filters) {
+        StringBuilder sql = new StringBuilder("SELECT i.category, COUNT(*) FROM items i WHERE i.collection_id = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(collectionId);
+        itemMetadataService.appendFilters(sql, parameters, collectionId, filters);
+        sql.append(" GROUP BY i.category");
+        return resultList(sql.toString(), parameters);
+    }
+
+    private List<Object[]> countValues(String collectionId, String key, List<MetadataFilter> filters, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT f.meta_value, COUNT(*) FROM item_metadata f");
+        if (!filters.isEmpty()) {
+            sql.append(" JOIN items i ON i.id = f.item_id");
+        }
+        sql.append(" WHERE f.collection_id = ? AND f.meta_key = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(collectionId);
+        parameters.add(key);
+        itemMetadataService.appendFilters(sql, parameters, collectionId, filters);
+        sql.append(" GROUP BY f.meta_value ORDER BY COUNT(*) DESC, f.meta_value LIMIT ?");
+        parameters.add(limit);
+        return resultList(sql.toString(), parameters);
+    }
+
+    private List<Map<String, Object>> counts(List<Object[]> rows) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts(counts);
+    }
+
+    private List<Map<String, Object>> counts(Map<String, Long> counts) {
+        List<Map<String, Object>> entries = new ArrayList<>(counts.size());
+        counts.forEach((value, count) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("value", value);
+            entry.put("count", count);
+            entries.add(entry);
+        });
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> resultList(String sql, List<Object> parameters) {
+        Query query = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Values counted per key: the default when absent, capped at the maximum
+     */
+    public int resolveValueLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_VALUE_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be >= 1");
+        }
+        return Math.min(limit, MAX_VALUE_LIMIT);
+    }
+}
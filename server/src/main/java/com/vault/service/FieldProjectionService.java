@@ -0,0 +1,152 @@
+package com.vault.service;
+
+import com.vault.dto.CursorPage;
+import com.vault.dto.KeysetCursor;
+import com.vault.dto.KeysetPaging;
+import com.vault.dto.TupleResponse;
+import com.vault.repository.CollectionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Item and collection listings restricted to the fields a client asks for (fields=id,title).
+ * The selection becomes the SELECT list of the query, so unrequested columns, the JSON ones
+ * in particular, are never read or serialized.
+ */
+@Service
+public class FieldProjectionService {
+
+    private static final List<String> ITEM_FIELDS = List.of(
+            "id", "collectionId", "url", "title", "filename", "uploadedAt", "metadata", "category");
+
+    private static final List<String> COLLECTION_FIELDS = List.of(
+            "id", "name", "createdAt", "coverPhoto", "aspectRatio", "metadata", "itemCategories", "itemCount", "itemsUpdatedAt");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    public List<String> parseItemFields(String fields) {
+        return parse(fields, ITEM_FIELDS);
+    }
+
+    public List<String> parseCollectionFields(String fields) {
+        return parse(fields, COLLECTION_FIELDS);
+    }
+
+    /**
+     * Items newest first, optionally within a collection. Unpaged when both cursor and
+     * limit are null.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Object[]> findItems(List<String> fields, String collectionId, String cursor, Integer limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (collectionId != null) {
+            if (!collectionRepository.existsById(collectionId)) {
+                throw new IllegalArgumentException("Collection not found with id: " + collectionId);
+            }
+            conditions.add("e.collectionId = :collectionId");
+            parameters.put("collectionId", collectionId);
+        }
+        return find("Item", "uploadedAt", fields, conditions, parameters, cursor, limit);
+    }
+
+    /**
+     * Collections newest first. Unpaged when both cursor and limit are null.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Object[]> findCollections(List<String> fields, String cursor, Integer limit) {
+        return find("Collection", "createdAt", fields, new ArrayList<>(), new LinkedHashMap<>(), cursor, limit);
+    }
+
+    /**
+     * Rows as objects keyed by field name, or as one {@link TupleResponse}
+     */
+    public Object render(List<String> fields, List<Object[]> rows, boolean tuples) {
+        if (tuples) {
+            return new TupleResponse(fields, rows);
+        }
+        List<Map<String, Object>> objects = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> object = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                object.put(fields.get(i), row[i]);
+            }
+            objects.add(object);
+        }
+        return objects;
+    }
+
+    private CursorPage<Object[]> find(String entity, String timestampField, List<String> fields,
+                                      List<String> conditions, Map<String, Object> parameters,
+                                      String cursor, Integer limit) {
+        boolean paged = cursor != null || limit != null;
+        if (cursor != null) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            conditions.add("(e." + timestampField + " < :after OR (e." + timestampField + " = :after AND e.id < :afterId))");
+            parameters.put("after", after.getTimestamp());
+            parameters.put("afterId", after.getId());
+        }
+
+        // Field names come from the allow-list, never from the request verbatim. The ordering
+        // columns ride along at the end of each row to build the next cursor.
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        for (String field : fields) {
+            jpql.append("e.").append(field).append(", ");
+        }
+        jpql.append("e.").append(timestampField).append(", e.id FROM ").append(entity).append(" e");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY e.").append(timestampField).append(" DESC, e.id DESC");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        int pageSize = KeysetPaging.resolvePageSize(limit);
+        if (paged) {
+            // One extra row tells us whether another page follows
+            query.setMaxResults(pageSize + 1);
+        }
+        List<Object[]> rows = query.getResultList();
+        CursorPage<Object[]> page = paged
+                ? KeysetPaging.trim(rows, pageSize, row -> new KeysetCursor((LocalDateTime) row[fields.size()], (String) row[fields.size() + 1]))
+                : new CursorPage<>(rows, null);
+
+        List<Object[]> trimmed = new ArrayList<>(page.getItems().size());
+        for (Object[] row : page.getItems()) {
+            trimmed.add(Arrays.copyOf(row, fields.size()));
+        }
+        return new CursorPage<>(trimmed, page.getNextCursor());
+    }
+
+    private List<String> parse(String fields, List<String> allowed) {
+        if (fields == null || fields.isBlank()) {
+            return allowed;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + " (allowed: " + String.join(", ", allowed) + ")");
+            }
+            selected.add(name);
+        }
+        return List.copyOf(selected);
+    }
+}
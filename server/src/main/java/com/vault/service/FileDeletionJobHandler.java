@@ -0,0 +1,104 @@
+package com.vault.service;
+
+import com.vault.entity.Job;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Deletes files that may have become unreferenced. Jobs are written to the outbox in the
+ * same transaction that drops the references, so a rollback leaves the files alone, and
+ * the worker only touches storage after commit. Whether a file is still referenced is
+ * decided when the job runs, not when it is enqueued.
+ * <p>
+ * A content-addressed upload can hand out a blob again before its new owner's reference
+ * commits, and a library upload never adds one. Reuse touches the blob, so files stored or
+ * reused since shortly before the job was enqueued are kept; the grace period covers an
+ * upload whose item is saved by a later request.
+ */
+@Component
+public class FileDeletionJobHandler implements JobHandler {
+
+    public static final String TYPE = "FILE_DELETE";
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private MediaReferenceService mediaReferenceService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    @Value("${jobs.file-delete.batch-size:500}")
+    private int batchSize;
+
+    @Value("${jobs.file-delete.grace-seconds:900}")
+    private long graceSeconds;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    /**
+     * Record files to delete once the caller's transaction commits, in batches of batch-size
+     */
+    public void enqueue(Collection<String> filenames) {
+        List<String> pending = new ArrayList<>();
+        for (String filename : new LinkedHashSet<>(filenames)) {
+            if (filename != null && !filename.isEmpty()) {
+                pending.add(filename);
+            }
+        }
+        for (int i = 0; i < pending.size(); i += batchSize) {
+            List<String> batch = pending.subList(i, Math.min(i + batchSize, pending.size()));
+            // A name may legitimately be deleted again later (content-addressed re-upload), so keys are unique
+            jobService.enqueue(TYPE, TYPE + ":" + UUID.randomUUID(), Map.of("filenames", String.join("\n", batch)));
+        }
+    }
+
+    @Override
+    public void handle(Job job) {
+        String filenames = job.getPayload().get("filenames");
+        if (filenames == null) {
+            throw new IllegalArgumentException("File deletion job without filenames");
+        }
+
+        Set<String> batch = new LinkedHashSet<>(List.of(filenames.split("\n")));
+        Set<String> referenced = mediaReferenceService.findReferenced(batch);
+        Instant cutoff = job.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().minusSeconds(graceSeconds);
+
+        List<String> failed = new ArrayList<>();
+        for (String filename : batch) {
+            if (referenced.contains(filename)) {
+                continue;
+            }
+            try {
+                if (storageService.deleteIfUnusedSince(filename, cutoff)) {
+                    imageDerivativeService.evictAll(filename);
+                }
+            } catch (RuntimeException e) {
+                failed.add(filename);
+            }
+        }
+
+        // Deletes are idempotent, so retrying the whole batch is safe
+        if (!failed.isEmpty()) {
+            throw new RuntimeException("Failed to delete " + failed.size() + " of " + batch.size() + " files, first: " + failed.get(0));
+        }
+    }
+}
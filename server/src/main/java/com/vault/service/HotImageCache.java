@@ -0,0 +1,339 @@
+package com.vault.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Off-heap cache for small, frequently requested images (cover photos, the first items
+ * of each collection, their thumbnails). Bytes live in one direct buffer allocated at
+ * startup and carved into fixed-size blocks, so cached images cost the garbage collector
+ * nothing and the budget is exact.
+ * <p>
+ * Admission is frequency-based (TinyLFU): every request is counted in a small aging
+ * sketch, an image is only admitted once it has been requested more than once, and it
+ * only displaces the least recently used entry if it is requested more often than that
+ * entry. A burst of one-off requests therefore cannot flush the hot set.
+ */
+@Service
+public class HotImageCache {
+
+    private static final int BLOCK_SIZE = 16 * 1024;
+
+    private final ByteBuffer arena;
+    private final long maxEntryBytes;
+    private final int admissionMinHits;
+
+    // Stack of free block indexes
+    private final int[] freeBlocks;
+    private int freeCount;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final FrequencySketch sketch = new FrequencySketch(4096);
+
+    private long hits;
+    private long misses;
+    private long admissions;
+    private long rejections;
+    private long evictions;
+
+    /**
+     * A cached image. Callers hold a reference between {@link #acquire} and {@link #release}
+     * so its blocks are not reused while the response is written.
+     */
+    public final class Entry {
+        private final String key;
+        private final int[] blocks;
+        private final long length;
+        private final long lastModified;
+        // Held by the cache itself while the entry is indexed, plus one per reader
+        private int refs;
+
+        private Entry(String key, int[] blocks, long length, long lastModified) {
+            this.key = key;
+            this.blocks = blocks;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        public long lastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Write count bytes starting at offset straight from off-heap memory
+         */
+        public void writeTo(WritableByteChannel out, long offset, long count) throws IOException {
+            ByteBuffer view = arena.duplicate();
+            long position = offset;
+            long remaining = count;
+            while (remaining > 0) {
+                int block = blocks[(int) (position / BLOCK_SIZE)];
+                int within = (int) (position % BLOCK_SIZE);
+                int chunk = (int) Math.min(BLOCK_SIZE - within, remaining);
+                int start = block * BLOCK_SIZE + within;
+                view.clear().position(start).limit(start + chunk);
+                while (view.hasRemaining()) {
+                    out.write(view);
+                }
+                position += chunk;
+                remaining -= chunk;
+            }
+        }
+    }
+
+    public HotImageCache(@Value("${storage.hot-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${storage.hot-cache.max-entry-bytes:524288}") long maxEntryBytes,
+                         @Value("${storage.hot-cache.admission-min-hits:2}") int admissionMinHits) {
+        // A single direct buffer is int-indexed
+        long budget = Math.min(Math.max(maxBytes, 0), Integer.MAX_VALUE - BLOCK_SIZE);
+        int blockCount = (int) (budget / BLOCK_SIZE);
+        this.arena = blockCount > 0 ? ByteBuffer.allocateDirect(blockCount * BLOCK_SIZE) : null;
+        this.maxEntryBytes = Math.min(maxEntryBytes, (long) blockCount * BLOCK_SIZE);
+        this.admissionMinHits = admissionMinHits;
+        this.freeBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            freeBlocks[i] = blockCount - 1 - i;
+        }
+        this.freeCount = blockCount;
+    }
+
+    /**
+     * Count a request for the image and return its entry if cached. The caller must
+     * {@link #release} a returned entry once the response is written.
+     */
+    public synchronized Entry acquire(String key) {
+        if (arena == null) {
+            return null;
+        }
+        sketch.increment(key);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        entry.refs++;
+        hits++;
+        return entry;
+    }
+
+    public synchronized void release(Entry entry) {
+        unreference(entry);
+    }
+
+    /**
+     * Offer an image that was just served from disk. It is copied into memory only if it
+     * is small enough and requested often enough to earn a place.
+     */
+    public void offer(String key, Path file, long length, long lastModified) {
+        if (arena == null || length <= 0 || length > maxEntryBytes) {
+            return;
+        }
+
+        Entry entry;
+        synchronized (this) {
+            if (entries.containsKey(key) || sketch.frequency(key) < admissionMinHits) {
+                return;
+            }
+            int needed = (int) ((length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            if (!makeRoom(key, needed)) {
+                rejections++;
+                return;
+            }
+            int[] blocks = new int[needed];
+            for (int i = 0; i < needed; i++) {
+                blocks[i] = freeBlocks[--freeCount];
+            }
+            entry = new Entry(key, blocks, length, lastModified);
+            // Pinned by the loader until it is indexed or abandoned
+            entry.refs = 1;
+        }
+
+        boolean loaded = load(entry, file);
+
+        synchronized (this) {
+            if (loaded && !entries.containsKey(key)) {
+                // The loader's reference becomes the cache's own
+                entries.put(key, entry);
+                admissions++;
+            } else {
+                unreference(entry);
+            }
+        }
+    }
+
+    /**
+     * Drop an original and every rendition derived from it
+     */
+    @EventListener
+    public void onFileDeleted(StorageService.FileDeletedEvent event) {
+        String filename = event.filename();
+        String base = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
+        String prefix = base + "_";
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.key.equals(filename) || entry.key.startsWith(prefix)) {
+                    iterator.remove();
+                    unreference(entry);
+                }
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        int blockCount = freeBlocks.length;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("bytesUsed", (long) (blockCount - freeCount) * BLOCK_SIZE);
+        stats.put("maxBytes", (long) blockCount * BLOCK_SIZE);
+        stats.put("maxEntryBytes", maxEntryBytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("admissions", admissions);
+        stats.put("rejections", rejections);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    /**
+     * Evict least recently used entries until enough blocks are free. Gives up, evicting
+     * nothing, if a victim is requested more often than the candidate.
+     */
+    private boolean makeRoom(String candidate, int needed) {
+        if (freeCount >= needed) {
+            return true;
+        }
+        int candidateFrequency = sketch.frequency(candidate);
+        List<Entry> victims = new ArrayList<>();
+        long reclaimable = freeCount;
+        for (Entry entry : entries.values()) {
+            if (reclaimable >= needed) {
+                break;
+            }
+            if (sketch.frequency(entry.key) > candidateFrequency) {
+                return false;
+            }
+            victims.add(entry);
+            // Blocks pinned by an in-flight response come back only when it finishes
+            if (entry.refs == 1) {
+                reclaimable += entry.blocks.length;
+            }
+        }
+        if (reclaimable < needed) {
+            return false;
+        }
+        for (Entry victim : victims) {
+            entries.remove(victim.key);
+            unreference(victim);
+            evictions++;
+        }
+        return true;
+    }
+
+    private void unreference(Entry entry) {
+        if (--entry.refs == 0) {
+            for (int block : entry.blocks) {
+                freeBlocks[freeCount++] = block;
+            }
+        }
+    }
+
+    private boolean load(Entry entry, Path file) {
+        ByteBuffer view = arena.duplicate();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            for (int block : entry.blocks) {
+                int chunk = (int) Math.min(BLOCK_SIZE, entry.length - position);
+                int start = block * BLOCK_SIZE;
+                view.clear().position(start).limit(start + chunk);
+                while (view.hasRemaining()) {
+                    if (channel.read(view, position + (view.position() - start)) < 0) {
+                        return false;
+                    }
+                }
+                position += chunk;
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to cache image " + entry.key + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Count-min sketch of recent request counts. Counters are halved periodically so
+     * images that were popular last week do not crowd out today's.
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final int[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            this.counters = new int[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = width * 10;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            for (int row = 0; row < DEPTH; row++) {
+                int[] rowCounters = counters[row];
+                int index = indexOf(hash, row);
+                if (rowCounters[index] < Integer.MAX_VALUE) {
+                    rowCounters[index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                age();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, counters[row][indexOf(hash, row)]);
+            }
+            return min;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return h & mask;
+        }
+
+        private void age() {
+            for (int[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
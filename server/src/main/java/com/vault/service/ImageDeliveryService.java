@@ -0,0 +1,212 @@
+package com.vault.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Writes stored image files to the HTTP response with validators, long-lived caching
+ * and single byte-range support. Stored files are never rewritten under the same name,
+ * so responses are marked immutable. Hot images are served from {@link HotImageCache}
+ * without touching the disk.
+ */
+@Service
+public class ImageDeliveryService {
+
+    // Tomcat request attributes used by its DefaultServlet to hand a file off to sendfile
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Below this size a plain channel copy is cheaper than a sendfile hand-off
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private final String cacheControl;
+
+    @Autowired(required = false)
+    private HotImageCache hotImageCache;
+
+    /**
+     * Writes the selected byte range of a response body
+     */
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(long start, long end) throws IOException;
+    }
+
+    public ImageDeliveryService(@Value("${storage.cache-max-age-days:365}") long cacheMaxAgeDays) {
+        this.cacheControl = CacheControl.maxAge(Duration.ofDays(cacheMaxAgeDays))
+                .cachePublic()
+                .immutable()
+                .getHeaderValue();
+    }
+
+    /**
+     * Serve an image from memory if it is in the hot cache; returns false when the caller
+     * should fall back to {@link #serve}
+     */
+    public boolean serveFromMemory(String filename, String contentType,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (hotImageCache == null) {
+            return false;
+        }
+        HotImageCache.Entry entry = hotImageCache.acquire(filename);
+        if (entry == null) {
+            return false;
+        }
+        try {
+            respond(entry.length(), entry.lastModified(), contentType, filename, request, response, (start, end) ->
+                    entry.writeTo(Channels.newChannel(response.getOutputStream()), start, end - start + 1));
+        } finally {
+            hotImageCache.release(entry);
+        }
+        return true;
+    }
+
+    /**
+     * Serve a file, answering conditional requests with 304 and single ranges with 206.
+     * Pass sendfile=false when the file may be removed once this call returns, since the
+     * connector only opens a sendfile hand-off afterwards.
+     */
+    public void serve(Path file, String contentType, String filename, boolean sendfile,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        if (hotImageCache != null) {
+            hotImageCache.offer(filename, file, length, lastModified);
+        }
+
+        respond(length, lastModified, contentType, filename, request, response, (start, end) -> {
+            long count = end - start + 1;
+            if (sendfile && count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                // Let the connector stream the file straight from the page cache
+                request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long written = channel.transferTo(position, remaining, out);
+                    if (written <= 0) {
+                        break;
+                    }
+                    position += written;
+                    remaining -= written;
+                }
+            }
+        });
+    }
+
+    private void respond(long length, long lastModified, String contentType, String filename,
+                         HttpServletRequest request, HttpServletResponse response, BodyWriter body) throws IOException {
+        String etag = buildEtag(length, lastModified);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+        // Sets ETag/Last-Modified and answers 304 when the client copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = length - 1;
+
+        HttpRange range = resolveRange(request, etag, lastModified);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        body.write(start, end);
+    }
+
+    /**
+     * Strong validator derived from size and modification time; file bytes never change in place
+     */
+    private String buildEtag(long length, long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * Return the single requested range, or null when the full body should be sent
+     */
+    private HttpRange resolveRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !"GET".equalsIgnoreCase(request.getMethod())) {
+            return null;
+        }
+
+        // If-Range: only honour the range when the client's copy still matches
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            if (ifRange.startsWith("\"")) {
+                if (!ifRange.equals(etag)) {
+                    return null;
+                }
+            } else {
+                try {
+                    long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+                    if (since == -1 || lastModified / 1000 > since / 1000) {
+                        return null;
+                    }
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            // Multipart/byteranges responses are not worth it for images; send the whole file
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            // Malformed Range headers are ignored per RFC 9110
+            return null;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.vault.service;
+
+import com.vault.entity.AspectRatio;
+import com.vault.storage.StorageBackend.LocalFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Generates resized copies of stored images on demand and keeps them in a size-bounded,
+ * LRU-evicted directory next to the storage root. Concurrent requests for the same
+ * derivative share a single generation.
+ */
+@Service
+public class ImageDerivativeService {
+
+    /**
+     * A requested rendition of an original. Height 0 keeps the source aspect ratio;
+     * a positive height center-crops to exactly width x height.
+     */
+    public record DerivativeSpec(int width, int height, int quality, String format) {
+
+        public String cacheKey(String filename) {
+            String base = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
+            String size = height > 0 ? width + "x" + height : String.valueOf(width);
+            return base + "_" + size + "_q" + quality + "." + format;
+        }
+    }
+
+    private static final Set<String> SOURCE_FORMATS = Set.of("jpg", "jpeg", "png", "bmp");
+    private static final Set<String> OUTPUT_FORMATS = Set.of("jpg", "png");
+
+    // Refuse to decode anything larger than this many pixels after subsampling
+    private static final long MAX_DECODED_PIXELS = 40_000_000L;
+
+    // Renditions pre-generated at upload time; the gallery requests these widths
+    private static final int THUMBNAIL_WIDTH = 320;
+    private static final int MEDIUM_WIDTH = 960;
+    private static final int COVER_WIDTH = 640;
+
+    private final StorageService storageService;
+    private final Path derivativeLocation;
+    private final long maxBytes;
+    private final int[] allowedWidths;
+    private final int defaultQuality;
+    private final Semaphore decodePermits;
+
+    // Access-ordered index of cached derivatives (cache key -> size in bytes)
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes = 0;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public ImageDerivativeService(StorageService storageService,
+                                  @Value("${storage.derivatives.location:}") String derivativeLocation,
+                                  @Value("${storage.derivatives.max-bytes:2147483648}") long maxBytes,
+                                  @Value("${storage.derivatives.widths:160,320,480,640,960,1280,1920}") int[] allowedWidths,
+                                  @Value("${storage.derivatives.default-quality:80}") int defaultQuality,
+                                  @Value("${storage.derivatives.max-concurrent-decodes:2}") int maxConcurrentDecodes) {
+        this.storageService = storageService;
+        Path root = storageService.getRootLocation();
+        this.derivativeLocation = derivativeLocation == null || derivativeLocation.isBlank()
+                ? root.toAbsolutePath().resolveSibling(root.toAbsolutePath().getFileName() + "-derivatives")
+                : Path.of(derivativeLocation);
+        this.maxBytes = maxBytes;
+        this.allowedWidths = allowedWidths.clone();
+        Arrays.sort(this.allowedWidths);
+        this.defaultQuality = defaultQuality;
+        this.decodePermits = new Semaphore(Math.max(1, maxConcurrentDecodes));
+        init();
+    }
+
+    /**
+     * Create the derivative directory and rebuild the LRU index from what is on disk
+     */
+    private void init() {
+        try {
+            Files.createDirectories(derivativeLocation);
+            List<Path> existing;
+            try (Stream<Path> paths = Files.list(derivativeLocation)) {
+                existing = paths.filter(Files::isRegularFile)
+                        .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                        .sorted(Comparator.comparing(this::lastAccess))
+                        .toList();
+            }
+            synchronized (index) {
+                for (Path path : existing) {
+                    long size = Files.size(path);
+                    index.put(path.getFileName().toString(), size);
+                    currentBytes += size;
+                }
+            }
+            evictIfNeeded();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize derivative storage", e);
+        }
+    }
+
+    /**
+     * Normalize client parameters onto the small set of renditions we are willing to cache.
+     * Returns null when the original should be served as-is.
+     */
+    public DerivativeSpec resolveSpec(String filename, Integer width, Integer quality, String format, String aspect) {
+        if (width == null && quality == null && format == null && aspect == null) {
+            return null;
+        }
+        String sourceExtension = extensionOf(filename);
+        if (!SOURCE_FORMATS.contains(sourceExtension)) {
+            // Vector, animated or unsupported formats are always served untouched
+            return null;
+        }
+
+        int snappedWidth = snapWidth(width != null ? width : allowedWidths[allowedWidths.length - 1]);
+
+        int resolvedQuality = quality != null ? quality : defaultQuality;
+        if (resolvedQuality < 1 || resolvedQuality > 100) {
+            throw new IllegalArgumentException("Quality must be between 1 and 100");
+        }
+        // Round to a multiple of 5 so near-identical requests share a cache entry
+        resolvedQuality = Math.max(5, Math.round(resolvedQuality / 5.0f) * 5);
+
+        String resolvedFormat = format != null ? format.toLowerCase(Locale.ROOT) : sourceExtension;
+        if (resolvedFormat.equals("jpeg") || resolvedFormat.equals("bmp")) {
+            resolvedFormat = "jpg";
+        }
+        if (!OUTPUT_FORMATS.contains(resolvedFormat)) {
+            throw new IllegalArgumentException("Unsupported image format: " + format);
+        }
+
+        int height = aspect != null ? cropHeight(snappedWidth, AspectRatio.fromString(aspect)) : 0;
+
+        return new DerivativeSpec(snappedWidth, height, resolvedQuality, resolvedFormat);
+    }
+
+    /**
+     * Standard renditions of an original: a grid thumbnail, a medium view and a cover crop
+     * matching the collection's aspect ratio (when known)
+     */
+    public List<DerivativeSpec> presetsFor(String filename, AspectRatio aspectRatio) {
+        List<DerivativeSpec> presets = new ArrayList<>();
+        if (resolveSpec(filename, THUMBNAIL_WIDTH, null, null, null) == null) {
+            return presets;
+        }
+        presets.add(resolveSpec(filename, THUMBNAIL_WIDTH, null, null, null));
+        presets.add(resolveSpec(filename, MEDIUM_WIDTH, null, null, null));
+        if (aspectRatio != null) {
+            presets.add(resolveSpec(filename, COVER_WIDTH, null, null, aspectRatio.toValue()));
+        }
+        return presets;
+    }
+
+    /**
+     * Return the path of the derivative, generating it if it is not cached yet
+     */
+    public Path getOrCreate(String filename, DerivativeSpec spec) {
+        String key = spec.cacheKey(filename);
+        Path target = derivativeLocation.resolve(key);
+
+        synchronized (index) {
+            // get() rather than containsKey() so the entry moves to the MRU end
+            if (index.get(key) != null && Files.exists(target)) {
+                hits.incrementAndGet();
+                return target;
+            }
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            // Another request is already generating this derivative; wait for it
+            return await(existing);
+        }
+
+        try {
+            Path result = generate(filename, spec, target);
+            created.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * Whether a derivative is already cached, without generating it
+     */
+    public boolean isCached(String filename, DerivativeSpec spec) {
+        synchronized (index) {
+            return index.containsKey(spec.cacheKey(filename));
+        }
+    }
+
+    /**
+     * Remove all cached derivatives of an original, e.g. after the original is deleted
+     */
+    public void evictAll(String filename) {
+        String base = filename.contains(".") ? filename.substring(0, filename.lastIndexOf('.')) : filename;
+        String prefix = base + "_";
+        List<String> keys;
+        synchronized (index) {
+            keys = index.keySet().stream().filter(key -> key.startsWith(prefix)).toList();
+        }
+        keys.forEach(this::remove);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (index) {
+            stats.put("entries", index.size());
+            stats.put("sizeBytes", currentBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("generations", generations.get());
+        stats.put("evictions", evictions.get());
+        stats.put("failures", failures.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    private Path generate(String filename, DerivativeSpec spec, Path target) {
+        try (LocalFile source = storageService.load(filename)) {
+            if (!Files.isRegularFile(source.path())) {
+                throw new IllegalArgumentException("Image not found: " + filename);
+            }
+            return generate(filename, source.path(), spec, target);
+        }
+    }
+
+    private Path generate(String filename, Path source, DerivativeSpec spec, Path target) {
+        try {
+            decodePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to resize " + filename, e);
+        }
+
+        try {
+            BufferedImage resized = render(source, spec);
+            Path temp = Files.createTempFile(derivativeLocation, "derivative-", ".tmp");
+            try {
+                write(resized, spec, temp);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            generations.incrementAndGet();
+            record(target.getFileName().toString(), Files.size(target));
+            return target;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create derivative of " + filename + ": " + e.getMessage(), e);
+        } finally {
+            decodePermits.release();
+        }
+    }
+
+    /**
+     * Decode with source subsampling so memory scales with the output size, then resize
+     */
+    private BufferedImage render(Path source, DerivativeSpec spec) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot open image");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+
+                // Work out the output size; never upscale
+                int targetWidth;
+                int targetHeight;
+                int cropWidth = sourceWidth;
+                int cropHeight = sourceHeight;
+                if (spec.height() > 0) {
+                    double targetRatio = (double) spec.width() / spec.height();
+                    if ((double) sourceWidth / sourceHeight > targetRatio) {
+                        cropWidth = (int) Math.round(sourceHeight * targetRatio);
+                    } else {
+                        cropHeight = (int) Math.round(sourceWidth / targetRatio);
+                    }
+                    double scale = Math.min(1.0, (double) spec.width() / cropWidth);
+                    targetWidth = Math.max(1, (int) Math.round(cropWidth * scale));
+                    targetHeight = Math.max(1, (int) Math.round(cropHeight * scale));
+                } else {
+                    targetWidth = Math.min(spec.width(), sourceWidth);
+                    targetHeight = Math.max(1, (int) Math.round((double) sourceHeight * targetWidth / sourceWidth));
+                }
+
+                // Subsample to roughly twice the target, leaving the final step to a smooth resize
+                int subsampling = Math.max(1, cropWidth / (targetWidth * 2));
+                long decodedPixels = ((long) cropWidth / subsampling) * ((long) cropHeight / subsampling);
+                if (decodedPixels > MAX_DECODED_PIXELS) {
+                    throw new IOException("Image is too large to resize");
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new java.awt.Rectangle(
+                        (sourceWidth - cropWidth) / 2, (sourceHeight - cropHeight) / 2, cropWidth, cropHeight));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                return resize(decoded, targetWidth, targetHeight, spec.format().equals("png"));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Progressive bilinear downscale, halving each step to avoid aliasing
+     */
+    private BufferedImage resize(BufferedImage image, int targetWidth, int targetHeight, boolean keepAlpha) {
+        int type = keepAlpha && image.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_INT_ARGB
+                : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            if (width <= targetWidth * 1.05 && height <= targetHeight * 1.05) {
+                width = targetWidth;
+                height = targetHeight;
+            }
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                if (type == BufferedImage.TYPE_INT_RGB) {
+                    // JPEG has no alpha channel; flatten transparency onto white
+                    graphics.setColor(java.awt.Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private void write(BufferedImage image, DerivativeSpec spec, Path target) throws IOException {
+        String formatName = spec.format().equals("jpg") ? "jpeg" : spec.format();
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("No writer for format " + formatName);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed() && formatName.equals("jpeg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(spec.quality() / 100f);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private void record(String key, long size) {
+        synchronized (index) {
+            Long previous = index.put(key, size);
+            currentBytes += size - (previous != null ? previous : 0);
+        }
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        List<String> victims = new ArrayList<>();
+        synchronized (index) {
+            Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+            while (currentBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                currentBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        for (String key : victims) {
+            evictions.incrementAndGet();
+            deleteQuietly(derivativeLocation.resolve(key));
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (index) {
+            Long size = index.remove(key);
+            if (size != null) {
+                currentBytes -= size;
+            }
+        }
+        deleteQuietly(derivativeLocation.resolve(key));
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Failed to delete derivative: " + path.getFileName());
+        }
+    }
+
+    private Path await(CompletableFuture<Path> future) {
+        try {
+            coalesced.incrementAndGet();
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for derivative", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Failed to create derivative", e.getCause());
+        }
+    }
+
+    private int snapWidth(int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Width must be positive");
+        }
+        for (int allowed : allowedWidths) {
+            if (allowed >= width) {
+                return allowed;
+            }
+        }
+        return allowedWidths[allowedWidths.length - 1];
+    }
+
+    private int cropHeight(int width, AspectRatio aspectRatio) {
+        return switch (aspectRatio) {
+            case SQUARE -> width;
+            case PORTRAIT -> Math.round(width * 3 / 2f);
+            case LANDSCAPE -> Math.round(width * 2 / 3f);
+        };
+    }
+
+    private long lastAccess(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).lastAccessTime().toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private String extensionOf(String filename) {
+        int dotIndex = filename.lastIndexOf('.');
+        return dotIndex > 0 ? filename.substring(dotIndex + 1).toLowerCase(Locale.ROOT) : "";
+    }
+}
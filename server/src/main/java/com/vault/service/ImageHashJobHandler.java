@@ -0,0 +1,107 @@
+package com.vault.service;
+
+import com.vault.entity.Job;
+import com.vault.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the perceptual hash of an item's image after the item is committed, so creating
+ * an item never waits on decoding its image. Items stored before hashing existed are queued
+ * at startup.
+ */
+@Component
+public class ImageHashJobHandler implements JobHandler {
+
+    public static final String TYPE = "IMAGE_HASH";
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private PerceptualHashService perceptualHashService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    /**
+     * Hash the item's image once the caller's transaction commits
+     */
+    public void enqueue(String itemId, String filename) {
+        if (filename == null || filename.isEmpty()) {
+            return;
+        }
+        // An item may return to an image it had before, so keys are unique
+        jobService.enqueue(TYPE, TYPE + ":" + UUID.randomUUID(), Map.of("itemId", itemId, "filename", filename));
+    }
+
+    /**
+     * Queue a job for every item without a hash. Keys are fixed per item and image, so a
+     * restart does not queue the same work twice, and an image that could not be hashed
+     * (unsupported format, corrupt or missing file) is not decoded again on every start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            AtomicInteger queued = new AtomicInteger();
+            String after = "";
+            List<Object[]> rows;
+            do {
+                String from = after;
+                rows = transaction.execute(status -> {
+                    List<Object[]> batch = itemRepository.findUnhashedAfter(from, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                    for (Object[] row : batch) {
+                        String itemId = (String) row[0];
+                        String filename = (String) row[1];
+                        if (filename != null && !filename.isEmpty()
+                                && jobService.enqueueOnce(TYPE, TYPE + ":backfill:" + itemId + ":" + filename,
+                                        Map.of("itemId", itemId, "filename", filename))) {
+                            queued.incrementAndGet();
+                        }
+                    }
+                    return batch;
+                });
+                if (!rows.isEmpty()) {
+                    after = (String) rows.get(rows.size() - 1)[0];
+                }
+            } while (rows.size() == BACKFILL_BATCH_SIZE);
+            if (queued.get() > 0) {
+                System.err.println("Queued image hashing for " + queued.get() + " items");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to queue image hashing: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void handle(Job job) throws Exception {
+        Map<String, String> payload = job.getPayload();
+        String itemId = payload.get("itemId");
+        String filename = payload.get("filename");
+        if (itemId == null || filename == null) {
+            throw new IllegalArgumentException("Image hash job without itemId or filename");
+        }
+        perceptualHashService.record(itemId, filename, perceptualHashService.hashStored(filename));
+    }
+}
@@ -0,0 +1,311 @@
+package com.vault.service;
+
+import com.vault.dto.CursorPage;
+import com.vault.dto.ItemResponse;
+import com.vault.dto.KeysetCursor;
+import com.vault.dto.KeysetPaging;
+import com.vault.dto.MetadataFilter;
+import com.vault.entity.ItemMetadata;
+import com.vault.repository.ItemMetadataRepository;
+import com.vault.repository.ItemRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Filtering a collection's items by metadata values (metadata.grade=PSA10&amp;metadata.year&gt;=1990)
+ * without reading the JSON column. Declared hot keys have a generated column on items with a
+ * (collection_id, column, uploaded_at) index; every other key, and range conditions on any
+ * key, go through the item_metadata side table, which holds one row per item and key with
+ * the value as text and, when it is a number, as a DECIMAL.
+ */
+@Service
+public class ItemMetadataService {
+
+    public static final String PARAMETER_PREFIX = "metadata.";
+
+    // Keys with a generated column on items; see schema.sql
+    private static final Map<String, String> HOT_KEY_COLUMNS = Map.of(
+            "grade", "meta_grade",
+            "set", "meta_set",
+            "year", "meta_year");
+
+    private static final int MAX_KEY_LENGTH = 100;
+    // Indexed value prefix; longer values are rechecked against the JSON column
+    private static final int MAX_VALUE_LENGTH = 191;
+
+    private static final Pattern NUMBER = Pattern.compile("-?[0-9]{1,20}(\\.[0-9]{1,10})?");
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ItemMetadataRepository itemMetadataRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * SQL and positional parameters of a filter query, kept apart so tests can EXPLAIN it
+     */
+    record IdQuery(String sql, List<Object> parameters) {
+    }
+
+    /**
+     * Backfill the side table the first time this version starts against an existing library.
+     * Only items with metadata produce rows, so a library without any is not rebuilt on every
+     * start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (itemMetadataRepository.count() == 0 && itemRepository.findAnyIdWithMetadata().isPresent()) {
+                System.err.println("Rebuilt item metadata index for " + rebuild() + " items");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to backfill item metadata index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record an item's current metadata, replacing what was recorded before. Called by the
+     * item write paths in the same transaction as the item row.
+     */
+    @Transactional
+    public void replace(String itemId, String collectionId, Map<String, String> metadata) {
+        itemMetadataRepository.deleteByItemIds(List.of(itemId));
+        insert(itemId, collectionId, metadata);
+    }
+
+    /**
+     * Rebuild the side table from the items table, a batch of items per transaction.
+     * Returns the number of items indexed.
+     */
+    public int rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> itemMetadataRepository.deleteAllRows());
+
+        Pageable batch = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        int indexed = 0;
+        KeysetCursor after = null;
+        while (true) {
+            KeysetCursor from = after;
+            List<ItemResponse> items = transaction.execute(status -> {
+                List<ItemResponse> rows = from == null
+                        ? itemRepository.findFirstPage(batch)
+                        : itemRepository.findPageAfter(from.getTimestamp(), from.getId(), batch);
+                itemMetadataRepository.deleteByItemIds(rows.stream().map(ItemResponse::getId).toList());
+                rows.forEach(item -> insert(item.getId(), item.getCollectionId(), item.getMetadata()));
+                return rows;
+            });
+            indexed += items.size();
+            if (items.size() < REBUILD_BATCH_SIZE) {
+                return indexed;
+            }
+            ItemResponse last = items.get(items.size() - 1);
+            after = new KeysetCursor(last.getUploadedAt(), last.getId());
+        }
+    }
+
+    /**
+     * Filters from request parameters named metadata.&lt;key&gt;. Browsers and HTTP clients split
+     * metadata.year&gt;=1990 at the '=', so the operator may end the name (year&gt;) or sit inside
+     * it with no value at all (year&gt;1990).
+     */
+    public List<MetadataFilter> parseFilters(Map<String, String[]> parameters) {
+        List<MetadataFilter> filters = new ArrayList<>();
+        parameters.forEach((name, values) -> {
+            if (name.startsWith(PARAMETER_PREFIX)) {
+                for (String value : values) {
+                    filters.add(parseFilter(name.substring(PARAMETER_PREFIX.length()), value == null ? "" : value));
+                }
+            }
+        });
+        return filters;
+    }
+
+    /**
+     * One page of ids of a collection's items matching every filter, newest first.
+     * Unpaged when both cursor and limit are null.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<String> findMatchingIds(String collectionId, List<MetadataFilter> filters, String cursor, Integer limit) {
+        boolean paged = cursor != null || limit != null;
+        int pageSize = KeysetPaging.resolvePageSize(limit);
+        IdQuery idQuery = buildIdQuery(collectionId, filters,
+                cursor == null ? null : KeysetCursor.decode(cursor),
+                // One extra row tells us whether another page follows
+                paged ? pageSize + 1 : null);
+
+        Query query = entityManager.createNativeQuery(idQuery.sql());
+        for (int i = 0; i < idQuery.parameters().size(); i++) {
+            query.setParameter(i + 1, idQuery.parameters().get(i));
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        CursorPage<Object[]> page = paged
+                ? KeysetPaging.trim(rows, pageSize, row -> new KeysetCursor(toLocalDateTime(row[1]), (String) row[0]))
+                : new CursorPage<>(rows, null);
+        return new CursorPage<>(page.getItems().stream().map(row -> (String) row[0]).toList(), page.getNextCursor());
+    }
+
+    IdQuery buildIdQuery(String collectionId, List<MetadataFilter> filters, KeysetCursor after, Integer fetchLimit) {
+        StringBuilder sql = new StringBuilder("SELECT i.id, i.uploaded_at FROM items i WHERE i.collection_id = ?");
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(collectionId);
+        appendFilters(sql, parameters, collectionId, filters);
+
+        if (after != null) {
+            sql.append(" AND (i.uploaded_at < ? OR (i.uploaded_at = ? AND i.id < ?))");
+            parameters.add(after.getTimestamp());
+            parameters.add(after.getTimestamp());
+            parameters.add(after.getId());
+        }
+        sql.append(" ORDER BY i.uploaded_at DESC, i.id DESC");
+        if (fetchLimit != null) {
+            sql.append(" LIMIT ?");
+            parameters.add(fetchLimit);
+        }
+        return new IdQuery(sql.toString(), parameters);
+    }
+
+    /**
+     * Append one " AND ..." condition per filter on the items of a collection, aliased i
+     */
+    void appendFilters(StringBuilder sql, List<Object> parameters, String collectionId, List<MetadataFilter> filters) {
+        for (MetadataFilter filter : filters) {
+            String operator = filter.getOperator().equals("!=") ? "<>" : filter.getOperator();
+            String value = filter.getValue();
+            String hotColumn = HOT_KEY_COLUMNS.get(filter.getKey());
+
+            // A stored value of MAX_VALUE_LENGTH characters may be the prefix of a longer one,
+            // so a filter value that long can't be decided on the index alone
+            if (value.length() >= MAX_VALUE_LENGTH && !filter.isRange()) {
+                // Only a prefix is indexed; narrow by it for equality, then compare the full value
+                if (operator.equals("=")) {
+                    appendEquality(sql, parameters, collectionId, filter.getKey(), hotColumn, value.substring(0, MAX_VALUE_LENGTH));
+                }
+                // JSON_UNQUOTE yields a binary string; compare it the way item_metadata values compare
+                sql.append(" AND JSON_UNQUOTE(JSON_EXTRACT(i.metadata, ?)) COLLATE utf8mb4_unicode_ci ").append(operator).append(" ?");
+                parameters.add(jsonPath(filter.getKey()));
+                parameters.add(value);
+            } else if (filter.isRange()) {
+                sql.append(" AND EXISTS (SELECT 1 FROM item_metadata m WHERE m.collection_id = ? AND m.meta_key = ?")
+                        .append(" AND m.num_value ").append(operator).append(" ? AND m.item_id = i.id)");
+                parameters.add(collectionId);
+                parameters.add(filter.getKey());
+                parameters.add(new BigDecimal(value));
+            } else if (operator.equals("=")) {
+                appendEquality(sql, parameters, collectionId, filter.getKey(), hotColumn, value);
+            } else if (hotColumn != null) {
+                sql.append(" AND i.").append(hotColumn).append(" <> ?");
+                parameters.add(value);
+            } else {
+                sql.append(" AND EXISTS (SELECT 1 FROM item_metadata m WHERE m.collection_id = ? AND m.meta_key = ?")
+                        .append(" AND m.meta_value <> ? AND m.item_id = i.id)");
+                parameters.add(collectionId);
+                parameters.add(filter.getKey());
+                parameters.add(value);
+            }
+        }
+    }
+
+    private void appendEquality(StringBuilder sql, List<Object> parameters, String collectionId,
+                                String key, String hotColumn, String value) {
+        if (hotColumn != null) {
+            sql.append(" AND i.").append(hotColumn).append(" = ?");
+            parameters.add(value);
+        } else {
+            sql.append(" AND EXISTS (SELECT 1 FROM item_metadata m WHERE m.collection_id = ? AND m.meta_key = ?")
+                    .append(" AND m.meta_value = ? AND m.item_id = i.id)");
+            parameters.add(collectionId);
+            parameters.add(key);
+            parameters.add(value);
+        }
+    }
+
+    private MetadataFilter parseFilter(String expression, String value) {
+        String key;
+        String operator;
+        int inline = indexOfOperator(expression);
+        if (expression.endsWith(">") || expression.endsWith("<") || expression.endsWith("!")) {
+            key = expression.substring(0, expression.length() - 1);
+            operator = expression.charAt(expression.length() - 1) + "=";
+        } else if (inline >= 0 && value.isEmpty()) {
+            key = expression.substring(0, inline);
+            operator = String.valueOf(expression.charAt(inline));
+            value = expression.substring(inline + 1);
+        } else {
+            key = expression;
+            operator = "=";
+        }
+
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Metadata filter key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Metadata filter on " + key + " needs a value");
+        }
+        MetadataFilter filter = new MetadataFilter(key, operator, value);
+        if (filter.isRange() && !NUMBER.matcher(value).matches()) {
+            throw new IllegalArgumentException("Metadata filter " + key + operator + value + " needs a number");
+        }
+        return filter;
+    }
+
+    private int indexOfOperator(String expression) {
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '>' || c == '<') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(String itemId, String collectionId, Map<String, String> metadata) {
+        if (metadata == null) {
+            return;
+        }
+        metadata.forEach((key, value) -> {
+            // Keys too long to index can't be filtered on; the request is rejected up front
+            if (value == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+                return;
+            }
+            BigDecimal number = NUMBER.matcher(value).matches() ? new BigDecimal(value) : null;
+            String indexed = value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) : value;
+            entityManager.persist(new ItemMetadata(itemId, key, collectionId, indexed, number));
+        });
+    }
+
+    private String jsonPath(String key) {
+        return "$.\"" + key.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -1,24 +1,49 @@
 package com.vault.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vault.dto.CreateItemRequest;
+import com.vault.dto.CursorPage;
 import com.vault.dto.ItemResponse;
+import com.vault.dto.ItemSummary;
+import com.vault.dto.KeysetCursor;
+import com.vault.dto.KeysetPaging;
+import com.vault.dto.MetadataFilter;
 import com.vault.dto.UpdateItemRequest;
+import com.vault.entity.Collection;
 import com.vault.entity.Item;
+import com.vault.entity.MediaOwnerType;
 import com.vault.repository.CollectionRepository;
 import com.vault.repository.ItemRepository;
 import com.vault.validation.ItemValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class ItemService {
 
+    // Ids per DELETE ... WHERE id IN (...) statement
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    // Ids per SELECT ... WHERE id IN (...) lookup
+    private static final int LOAD_BATCH_SIZE = 1000;
+
     @Autowired
     private ItemRepository itemRepository;
 
@@ -31,9 +56,33 @@ public class ItemService {
     @Autowired
     private ItemValidator itemValidator;
 
+    @Autowired
+    private DerivativeJobHandler derivativeJobHandler;
+
+    @Autowired
+    private MediaReferenceService mediaReferenceService;
+
+    @Autowired
+    private FileDeletionJobHandler fileDeletionJobHandler;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ItemMetadataService itemMetadataService;
+
+    @Autowired
+    private ImageHashJobHandler imageHashJobHandler;
+
+    @Autowired
+    private PerceptualHashService perceptualHashService;
+
     @Transactional
     public ItemResponse createItem(String requestData, MultipartFile image) {
         try {
@@ -44,7 +93,7 @@ public class ItemService {
             itemValidator.validateCreateRequest(request, image);
 
             // Verify collection exists
-            collectionRepository.findById(request.getCollectionId())
+            Collection collection = collectionRepository.findById(request.getCollectionId())
                     .orElseThrow(() -> new IllegalArgumentException("Collection not found with id: " + request.getCollectionId()));
 
             // Create new item entity
@@ -69,9 +118,19 @@ public class ItemService {
 
             // Save item to database
             Item savedItem = itemRepository.save(item);
+            mediaReferenceService.replace(MediaOwnerType.ITEM, savedItem.getId(), savedItem.getFilename());
+            itemMetadataService.replace(savedItem.getId(), savedItem.getCollectionId(), savedItem.getMetadata());
+            collectionRepository.adjustItemCount(savedItem.getCollectionId(), 1, LocalDateTime.now());
+            eventPublisher.publishEvent(new CollectionService.CollectionChangedEvent(savedItem.getCollectionId()));
+
+            // Pre-generate gallery renditions and hash the image once the item is committed
+            derivativeJobHandler.enqueue(savedItem.getFilename(), collection.getAspectRatio());
+            imageHashJobHandler.enqueue(savedItem.getId(), savedItem.getFilename());
 
             // Return response
-            return new ItemResponse(savedItem);
+            ItemResponse response = new ItemResponse(savedItem);
+            searchIndexService.indexItem(response);
+            return response;
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
@@ -79,22 +138,125 @@ public class ItemService {
         }
     }
 
+    @Transactional(readOnly = true)
     public List<ItemResponse> findByCollectionId(String collectionId) {
-        // Verify collection exists
-        collectionRepository.findById(collectionId)
-                .orElseThrow(() -> new IllegalArgumentException("Collection not found with id: " + collectionId));
-
-        List<Item> items = itemRepository.findByCollectionId(collectionId);
-        return items.stream()
-                .map(ItemResponse::new)
-                .collect(Collectors.toList());
+        requireCollection(collectionId);
+        return itemRepository.findResponsesByCollectionId(collectionId);
+    }
+
+    /**
+     * Items without their metadata, newest first, optionally within a collection
+     */
+    @Transactional(readOnly = true)
+    public List<ItemSummary> findSummaries(String collectionId) {
+        if (collectionId == null) {
+            return itemRepository.findAllSummaries();
+        }
+        requireCollection(collectionId);
+        return itemRepository.findSummariesByCollectionId(collectionId);
+    }
+
+    /**
+     * One page of items, newest first, optionally within a collection. Pass the previous
+     * page's cursor to continue; items inserted meanwhile never shift later pages.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ItemResponse> findPage(String collectionId, String cursor, Integer limit) {
+        if (collectionId == null) {
+            return KeysetPaging.page(cursor, limit, itemRepository::findFirstPage,
+                    (after, pageable) -> itemRepository.findPageAfter(after.getTimestamp(), after.getId(), pageable),
+                    item -> new KeysetCursor(item.getUploadedAt(), item.getId()));
+        }
+        requireCollection(collectionId);
+        return KeysetPaging.page(cursor, limit,
+                pageable -> itemRepository.findFirstPageByCollectionId(collectionId, pageable),
+                (after, pageable) -> itemRepository.findPageByCollectionIdAfter(collectionId, after.getTimestamp(), after.getId(), pageable),
+                item -> new KeysetCursor(item.getUploadedAt(), item.getId()));
+    }
+
+    /**
+     * Like {@link #findPage} but without item metadata
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ItemSummary> findSummaryPage(String collectionId, String cursor, Integer limit) {
+        if (collectionId == null) {
+            return KeysetPaging.page(cursor, limit, itemRepository::findFirstSummaryPage,
+                    (after, pageable) -> itemRepository.findSummaryPageAfter(after.getTimestamp(), after.getId(), pageable),
+                    item -> new KeysetCursor(item.getUploadedAt(), item.getId()));
+        }
+        requireCollection(collectionId);
+        return KeysetPaging.page(cursor, limit,
+                pageable -> itemRepository.findFirstSummaryPageByCollectionId(collectionId, pageable),
+                (after, pageable) -> itemRepository.findSummaryPageByCollectionIdAfter(collectionId, after.getTimestamp(), after.getId(), pageable),
+                item -> new KeysetCursor(item.getUploadedAt(), item.getId()));
+    }
+
+    /**
+     * Items of a collection whose metadata matches every filter, newest first. Unpaged when
+     * both cursor and limit are null.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ItemResponse> findFiltered(String collectionId, List<MetadataFilter> filters, String cursor, Integer limit) {
+        requireCollection(collectionId);
+        CursorPage<String> ids = itemMetadataService.findMatchingIds(collectionId, filters, cursor, limit);
+        return new CursorPage<>(loadInOrder(ids.getItems(), itemRepository::findResponsesByIdIn, ItemResponse::getId), ids.getNextCursor());
+    }
+
+    /**
+     * Like {@link #findFiltered} but without item metadata
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ItemSummary> findFilteredSummaries(String collectionId, List<MetadataFilter> filters, String cursor, Integer limit) {
+        requireCollection(collectionId);
+        CursorPage<String> ids = itemMetadataService.findMatchingIds(collectionId, filters, cursor, limit);
+        return new CursorPage<>(loadInOrder(ids.getItems(), itemRepository::findSummariesByIdIn, ItemSummary::getId), ids.getNextCursor());
+    }
+
+    /**
+     * Rows for the given ids, in the order of the ids, loaded a batch at a time
+     */
+    private <T> List<T> loadInOrder(List<String> ids, Function<List<String>, List<T>> load, Function<T, String> idOf) {
+        Map<String, T> byId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += LOAD_BATCH_SIZE) {
+            load.apply(ids.subList(i, Math.min(i + LOAD_BATCH_SIZE, ids.size())))
+                    .forEach(row -> byId.put(idOf.apply(row), row));
+        }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
+    /**
+     * Throw IllegalArgumentException unless the collection exists
+     */
+    public void requireCollection(String collectionId) {
+        if (!collectionRepository.existsById(collectionId)) {
+            throw new IllegalArgumentException("Collection not found with id: " + collectionId);
+        }
+    }
+
+    @Transactional(readOnly = true)
     public List<ItemResponse> findAll() {
-        List<Item> items = itemRepository.findAll();
-        return items.stream()
-                .map(ItemResponse::new)
-                .collect(Collectors.toList());
+        return itemRepository.findAllResponses();
+    }
+
+    /**
+     * Write every item, optionally of one collection, to out as a JSON array while rows
+     * are still arriving from the database. Memory use does not grow with the number of
+     * items, and the first bytes go out before the last row is read. The response status is
+     * committed by then, so callers check the collection with {@link #requireCollection} first.
+     */
+    @Transactional(readOnly = true)
+    public void streamItems(String collectionId, OutputStream out) throws IOException {
+        try (Stream<ItemResponse> items = collectionId == null
+                ? itemRepository.streamAllResponses()
+                : itemRepository.streamResponsesByCollectionId(collectionId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            Iterator<ItemResponse> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+            }
+            generator.writeEndArray();
+        }
     }
 
     public ItemResponse findById(String id) {
@@ -117,11 +279,12 @@ public class ItemService {
                     .orElseThrow(() -> new IllegalArgumentException("Item not found with id: " + id));
 
             // Verify collection exists
-            collectionRepository.findById(request.getCollectionId())
+            Collection collection = collectionRepository.findById(request.getCollectionId())
                     .orElseThrow(() -> new IllegalArgumentException("Collection not found with id: " + request.getCollectionId()));
 
             // Store old image filename for deletion if being replaced
             String oldFilename = item.getFilename();
+            String oldCollectionId = item.getCollectionId();
 
             // Update item fields
             item.setCollectionId(request.getCollectionId());
@@ -134,37 +297,51 @@ public class ItemService {
                 // Use existing file from library
                 item.setFilename(request.getExistingImage());
                 item.setUrl("/api/images/" + request.getExistingImage());
-                
-                // Delete old image if it's different
-                if (oldFilename != null && !oldFilename.equals(request.getExistingImage())) {
-                    try {
-                        storageService.delete(oldFilename);
-                    } catch (Exception e) {
-                        System.err.println("Failed to delete old item image: " + oldFilename);
-                    }
-                }
             } else if (image != null && !image.isEmpty()) {
                 // Upload new file
                 String filename = storageService.store(image);
                 item.setFilename(filename);
                 item.setUrl("/api/images/" + filename);
+            }
 
-                // Delete old image if it exists
-                if (oldFilename != null && !oldFilename.isEmpty()) {
-                    try {
-                        storageService.delete(oldFilename);
-                    } catch (Exception e) {
-                        // Log but don't fail the update if old file deletion fails
-                        System.err.println("Failed to delete old item image: " + oldFilename);
-                    }
-                }
+            // A new image needs a new hash; the old one must not match it meanwhile
+            boolean imageChanged = !Objects.equals(oldFilename, item.getFilename());
+            if (imageChanged) {
+                item.setImageHash(null);
             }
 
             // Save updated item
             Item updatedItem = itemRepository.save(item);
+            if (imageChanged) {
+                mediaReferenceService.replace(MediaOwnerType.ITEM, updatedItem.getId(), updatedItem.getFilename());
+                perceptualHashService.remove(List.of(updatedItem.getId()));
+                imageHashJobHandler.enqueue(updatedItem.getId(), updatedItem.getFilename());
+            }
+            itemMetadataService.replace(updatedItem.getId(), updatedItem.getCollectionId(), updatedItem.getMetadata());
+
+            // Moving an item shifts one from the old collection's count to the new one
+            LocalDateTime now = LocalDateTime.now();
+            if (oldCollectionId != null && !oldCollectionId.equals(updatedItem.getCollectionId())) {
+                collectionRepository.adjustItemCount(oldCollectionId, -1, now);
+                collectionRepository.adjustItemCount(updatedItem.getCollectionId(), 1, now);
+                eventPublisher.publishEvent(new CollectionService.CollectionChangedEvent(oldCollectionId));
+            } else {
+                collectionRepository.adjustItemCount(updatedItem.getCollectionId(), 0, now);
+            }
+            eventPublisher.publishEvent(new CollectionService.CollectionChangedEvent(updatedItem.getCollectionId()));
+
+            // Delete the replaced image after commit unless something else still uses it
+            if (oldFilename != null && !oldFilename.isEmpty() && !oldFilename.equals(updatedItem.getFilename())) {
+                fileDeletionJobHandler.enqueue(List.of(oldFilename));
+            }
+
+            // Renditions may be missing for a new image or a collection with another aspect ratio
+            derivativeJobHandler.enqueue(updatedItem.getFilename(), collection.getAspectRatio());
 
             // Return response
-            return new ItemResponse(updatedItem);
+            ItemResponse response = new ItemResponse(updatedItem);
+            searchIndexService.indexItem(response);
+            return response;
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
@@ -178,18 +355,47 @@ public class ItemService {
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Item not found with id: " + id));
 
-        // Delete associated image from storage
+        // Delete item from database
+        itemRepository.delete(item);
+        mediaReferenceService.removeOwners(MediaOwnerType.ITEM, List.of(item.getId()));
+        if (item.getCollectionId() != null) {
+            collectionRepository.adjustItemCount(item.getCollectionId(), -1, LocalDateTime.now());
+        }
+        eventPublisher.publishEvent(new CollectionService.CollectionChangedEvent(item.getCollectionId()));
+        searchIndexService.removeItems(List.of(item.getId()));
+        perceptualHashService.remove(List.of(item.getId()));
+
+        // Delete associated image from storage after commit unless something else still uses it
         String filename = item.getFilename();
         if (filename != null && !filename.isEmpty()) {
-            try {
-                storageService.delete(filename);
-            } catch (Exception e) {
-                // Log but don't fail the delete if file deletion fails
-                System.err.println("Failed to delete item image: " + filename);
+            fileDeletionJobHandler.enqueue(List.of(filename));
+        }
+    }
+
+    /**
+     * Delete many items with a few set-based statements; ids that do not exist are ignored.
+     * Returns the number of items deleted.
+     */
+    @Transactional
+    public int deleteItems(List<String> ids) {
+        List<String> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        int deleted = 0;
+        Set<String> filenames = new LinkedHashSet<>();
+        for (int i = 0; i < distinctIds.size(); i += DELETE_BATCH_SIZE) {
+            List<String> batch = distinctIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, distinctIds.size()));
+            filenames.addAll(itemRepository.findFilenamesByIdIn(batch));
+            List<String> collectionIds = itemRepository.findCollectionIdsByIdIn(batch);
+            deleted += itemRepository.deleteByIdIn(batch);
+            mediaReferenceService.removeOwners(MediaOwnerType.ITEM, batch);
+            if (!collectionIds.isEmpty()) {
+                collectionRepository.recountItems(collectionIds, LocalDateTime.now());
             }
+            collectionIds.forEach(collectionId -> eventPublisher.publishEvent(new CollectionService.CollectionChangedEvent(collectionId)));
         }
+        searchIndexService.removeItems(distinctIds);
+        perceptualHashService.remove(distinctIds);
 
-        // Delete item from database
-        itemRepository.delete(item);
+        fileDeletionJobHandler.enqueue(filenames);
+        return deleted;
     }
 }
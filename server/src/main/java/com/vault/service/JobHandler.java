@@ -0,0 +1,18 @@
+package com.vault.service;
+
+import com.vault.entity.Job;
+
+/**
+ * Executes one type of background job. Handlers must be idempotent: a job may run
+ * more than once if a worker dies before recording its result.
+ */
+public interface JobHandler {
+
+    String getType();
+
+    /**
+     * Run the job. Throw IllegalArgumentException for permanent failures that
+     * should not be retried; any other exception schedules a retry.
+     */
+    void handle(Job job) throws Exception;
+}
@@ -0,0 +1,148 @@
+package com.vault.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vault.entity.Job;
+import com.vault.entity.JobStatus;
+import com.vault.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class JobService {
+
+    /**
+     * Published when new jobs are written; the worker picks them up once the
+     * enclosing transaction commits.
+     */
+    public record JobsEnqueuedEvent(String type) {
+    }
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${jobs.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${jobs.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    /**
+     * Enqueue a job in the caller's transaction. A job whose dedupe key was already
+     * enqueued is ignored, which makes enqueueing safe to repeat, unless that job failed
+     * for good: then it is reset to run again.
+     */
+    @Transactional
+    public boolean enqueue(String type, String dedupeKey, Map<String, String> payload) {
+        return enqueue(type, dedupeKey, payload, true);
+    }
+
+    /**
+     * Enqueue a job in the caller's transaction unless its dedupe key was ever enqueued,
+     * including by a job that failed for good. For sweeps that run again on every start
+     * and should not retry work that cannot succeed.
+     */
+    @Transactional
+    public boolean enqueueOnce(String type, String dedupeKey, Map<String, String> payload) {
+        return enqueue(type, dedupeKey, payload, false);
+    }
+
+    private boolean enqueue(String type, String dedupeKey, Map<String, String> payload, boolean retryFailed) {
+        try {
+            String json = objectMapper.writeValueAsString(payload);
+            LocalDateTime now = LocalDateTime.now();
+            int queued = retryFailed ? jobRepository.resetFailed(dedupeKey, json, now) : 0;
+            if (queued == 0) {
+                queued = jobRepository.insertIfAbsent(UUID.randomUUID().toString(), type, dedupeKey, json, now);
+            }
+            if (queued > 0) {
+                eventPublisher.publishEvent(new JobsEnqueuedEvent(type));
+            }
+            return queued > 0;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to enqueue job: " + e.getMessage(), e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findDueIds(int limit) {
+        return jobRepository.findDueIds(LocalDateTime.now(), limit);
+    }
+
+    /**
+     * Atomically move a pending job to running; empty if another worker claimed it first
+     */
+    @Transactional
+    public Optional<Job> claim(String id) {
+        if (jobRepository.claim(id, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+        return jobRepository.findById(id);
+    }
+
+    @Transactional
+    public void markDone(Job job) {
+        jobRepository.findById(job.getId()).ifPresent(current -> {
+            current.setStatus(JobStatus.DONE);
+            current.setLockedAt(null);
+            current.setLastError(null);
+            jobRepository.save(current);
+        });
+    }
+
+    /**
+     * Record a failure, scheduling a retry with exponential backoff unless the error is
+     * permanent or the job has used up its attempts
+     */
+    @Transactional
+    public void markFailed(Job job, Exception error, boolean retryable) {
+        jobRepository.findById(job.getId()).ifPresent(current -> {
+            String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+            current.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+            current.setLockedAt(null);
+
+            if (retryable && current.getAttempts() < maxAttempts) {
+                long delay = retryBackoffSeconds * (1L << Math.min(current.getAttempts() - 1, 10));
+                current.setStatus(JobStatus.PENDING);
+                current.setNextRunAt(LocalDateTime.now().plusSeconds(delay));
+            } else {
+                current.setStatus(JobStatus.FAILED);
+            }
+            jobRepository.save(current);
+        });
+    }
+
+    /**
+     * Release jobs stuck in RUNNING after a crash and purge old completed jobs
+     */
+    @Transactional
+    public void maintain(long staleAfterSeconds, long retainDoneDays) {
+        LocalDateTime now = LocalDateTime.now();
+        int released = jobRepository.releaseStale(now.minusSeconds(staleAfterSeconds), now);
+        if (released > 0) {
+            System.err.println("Released " + released + " stalled jobs");
+        }
+        jobRepository.deleteByStatusBefore(JobStatus.DONE, now.minusDays(retainDoneDays));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (JobStatus status : JobStatus.values()) {
+            stats.put(status.name().toLowerCase(), jobRepository.countByStatus(status));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,117 @@
+package com.vault.service;
+
+import com.vault.entity.Job;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Claims due jobs from the jobs table and runs them on the job executor. Polls on a
+ * fixed delay and is also woken as soon as a transaction that enqueued jobs commits.
+ */
+@Component
+public class JobWorker {
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    @Qualifier("jobExecutor")
+    private ThreadPoolTaskExecutor jobExecutor;
+
+    @Value("${jobs.stale-after-seconds:600}")
+    private long staleAfterSeconds;
+
+    @Value("${jobs.retain-done-days:7}")
+    private long retainDoneDays;
+
+    private final Map<String, JobHandler> handlers;
+    private final Semaphore slots;
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    public JobWorker(List<JobHandler> handlers, @Value("${jobs.worker-threads:2}") int workerThreads) {
+        this.handlers = handlers.stream().collect(Collectors.toMap(JobHandler::getType, Function.identity()));
+        this.slots = new Semaphore(workerThreads);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobsEnqueued(JobService.JobsEnqueuedEvent event) {
+        // Poll off the committing thread so the request returns immediately
+        Thread.ofVirtual().start(this::poll);
+    }
+
+    @Scheduled(initialDelayString = "${jobs.poll-interval-ms:5000}", fixedDelayString = "${jobs.poll-interval-ms:5000}")
+    public void poll() {
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (slots.availablePermits() > 0) {
+                List<String> dueIds = jobService.findDueIds(slots.availablePermits());
+                if (dueIds.isEmpty()) {
+                    return;
+                }
+                for (String id : dueIds) {
+                    if (!slots.tryAcquire()) {
+                        return;
+                    }
+                    Optional<Job> claimed = jobService.claim(id);
+                    if (claimed.isEmpty()) {
+                        slots.release();
+                        continue;
+                    }
+                    jobExecutor.execute(() -> {
+                        try {
+                            run(claimed.get());
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Job polling failed: " + e.getMessage());
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${jobs.maintenance-interval-ms:60000}", fixedDelayString = "${jobs.maintenance-interval-ms:60000}")
+    public void maintain() {
+        try {
+            jobService.maintain(staleAfterSeconds, retainDoneDays);
+        } catch (RuntimeException e) {
+            System.err.println("Job maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private void run(Job job) {
+        JobHandler handler = handlers.get(job.getType());
+        if (handler == null) {
+            jobService.markFailed(job, new IllegalStateException("No handler for job type " + job.getType()), false);
+            return;
+        }
+        try {
+            handler.handle(job);
+            jobService.markDone(job);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Job " + job.getId() + " failed permanently: " + e.getMessage());
+            jobService.markFailed(job, e, false);
+        } catch (Exception e) {
+            System.err.println("Job " + job.getId() + " failed, will retry: " + e.getMessage());
+            jobService.markFailed(job, e, true);
+        }
+    }
+}
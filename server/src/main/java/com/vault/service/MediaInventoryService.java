@@ -0,0 +1,228 @@
+package com.vault.service;
+
+import com.vault.entity.MediaFile;
+import com.vault.repository.MediaFileRepository;
+import com.vault.storage.ObjectStore.StoredObject;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the media_files table: an inventory of every stored file with its size,
+ * creation time and content type. Storage writes update it directly; a watcher on the
+ * storage root and a periodic reconciliation catch changes made outside the app.
+ */
+@Service
+public class MediaInventoryService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int SAVE_BATCH_SIZE = 500;
+
+    @Autowired
+    private MediaFileRepository mediaFileRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Value("${storage.inventory.watch:true}")
+    private boolean watchEnabled;
+
+    private final AtomicBoolean reconciling = new AtomicBoolean(false);
+    private volatile WatchService watchService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Build the inventory in the background; the first run on an existing library walks it once
+        Thread.ofVirtual().name("media-inventory-reconcile").start(this::reconcile);
+        // Remote stores are only changed through this app, so there is nothing to watch
+        if (watchEnabled && storageService.isLocal()) {
+            startWatcher();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onFileStored(StorageService.FileStoredEvent event) {
+        record(event.filename());
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onFileDeleted(StorageService.FileDeletedEvent event) {
+        mediaFileRepository.deleteById(event.filename());
+    }
+
+    /**
+     * Page through unreferenced files, sorted by size or age
+     */
+    @Transactional(readOnly = true)
+    public Page<MediaFile> findUnused(int page, int size, String sort, String direction) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page must be >= 0 and size must be >= 1");
+        }
+        String property = switch (sort) {
+            case "size" -> "size";
+            case "createdAt" -> "createdAt";
+            case "filename" -> "filename";
+            default -> throw new IllegalArgumentException("Unsupported sort: " + sort);
+        };
+        Sort.Direction sortDirection = Sort.Direction.fromString(direction);
+        Sort order = Sort.by(sortDirection, property).and(Sort.by(Sort.Direction.ASC, "filename"));
+        return mediaFileRepository.findUnused(PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), order));
+    }
+
+    /**
+     * Bring the inventory in line with the storage directory
+     */
+    @Scheduled(initialDelayString = "${storage.inventory.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${storage.inventory.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Set<String> known = new HashSet<>(mediaFileRepository.findAllFilenames());
+            List<MediaFile> pending = new ArrayList<>();
+            int added = 0;
+
+            try (Stream<StoredObject> objects = storageService.list()) {
+                Iterator<StoredObject> iterator = objects.iterator();
+                while (iterator.hasNext()) {
+                    StoredObject object = iterator.next();
+                    if (known.remove(object.filename())) {
+                        continue;
+                    }
+                    pending.add(describe(object));
+                    added++;
+                    if (pending.size() >= SAVE_BATCH_SIZE) {
+                        mediaFileRepository.saveAll(pending);
+                        pending.clear();
+                    }
+                }
+            }
+            mediaFileRepository.saveAll(pending);
+
+            // Whatever is left was not found on disk; re-check in case it was written mid-walk
+            List<String> missing = known.stream()
+                    .filter(filename -> !storageService.exists(filename))
+                    .toList();
+            for (int i = 0; i < missing.size(); i += SAVE_BATCH_SIZE) {
+                mediaFileRepository.deleteAllByIdInBatch(missing.subList(i, Math.min(i + SAVE_BATCH_SIZE, missing.size())));
+            }
+
+            if (added > 0 || !missing.isEmpty()) {
+                System.err.println("Media inventory reconciled: " + added + " added, " + missing.size() + " removed");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Media inventory reconciliation failed: " + e.getMessage());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    private void record(String filename) {
+        try {
+            StoredObject object = storageService.stat(filename);
+            if (object != null) {
+                mediaFileRepository.save(describe(object));
+            }
+        } catch (IOException e) {
+            // File is unreadable; the next reconciliation will settle it
+        }
+    }
+
+    private MediaFile describe(StoredObject object) {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setFilename(object.filename());
+        mediaFile.setSize(object.size());
+        mediaFile.setCreatedAt(LocalDateTime.ofInstant(object.lastModified(), ZoneId.systemDefault()));
+        mediaFile.setContentType(MediaTypeFactory.getMediaType(object.filename())
+                .map(Object::toString)
+                .orElse("application/octet-stream"));
+        return mediaFile;
+    }
+
+    /**
+     * Watch the storage root for files added or removed by hand. Shard directories are
+     * not watched individually; the periodic reconciliation covers them.
+     */
+    private void startWatcher() {
+        try {
+            Path root = storageService.getRootLocation();
+            watchService = root.getFileSystem().newWatchService();
+            root.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Media inventory watcher unavailable: " + e.getMessage());
+            return;
+        }
+
+        Thread.ofVirtual().name("media-inventory-watch").start(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean overflow = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                            continue;
+                        }
+                        handleWatchEvent(event.kind(), (Path) event.context());
+                    }
+                    key.reset();
+                    if (overflow) {
+                        reconcile();
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Shutting down
+            }
+        });
+    }
+
+    private void handleWatchEvent(WatchEvent.Kind<?> kind, Path relative) {
+        String filename = relative.getFileName().toString();
+        if (filename.startsWith(".")) {
+            return;
+        }
+        try {
+            Path path = storageService.getRootLocation().resolve(relative);
+            if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                if (!storageService.exists(filename)) {
+                    mediaFileRepository.deleteById(filename);
+                }
+            } else if (Files.isRegularFile(path)) {
+                record(filename);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to update media inventory for " + filename + ": " + e.getMessage());
+        }
+    }
+}
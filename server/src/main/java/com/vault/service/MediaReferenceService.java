@@ -0,0 +1,136 @@
+package com.vault.service;
+
+import com.vault.entity.MediaOwnerType;
+import com.vault.entity.MediaReference;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import com.vault.repository.MediaReferenceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.Collection;
+
+/**
+ * Tracks which items and collections use each stored file. Files can be shared (library
+ * reuse, content-addressed deduplication), so a file may only be deleted once nothing
+ * points at it. The media_references table is maintained by the item and collection
+ * write paths in the same transaction as the owning row.
+ */
+@Service
+public class MediaReferenceService {
+
+    @Autowired
+    private MediaReferenceRepository mediaReferenceRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Backfill the index the first time this version starts against an existing library
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (mediaReferenceRepository.count() == 0
+                    && (itemRepository.count() > 0 || collectionRepository.count() > 0)) {
+                Map<String, Object> result = rebuild();
+                System.err.println("Rebuilt media reference index: " + result);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to backfill media reference index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record that an owner now uses the given file, replacing whatever it used before
+     */
+    @Transactional
+    public void replace(MediaOwnerType ownerType, String ownerId, String filename) {
+        mediaReferenceRepository.deleteByOwners(ownerType, List.of(ownerId));
+        if (filename != null && !filename.isEmpty()) {
+            mediaReferenceRepository.save(new MediaReference(filename, ownerType, ownerId));
+        }
+    }
+
+    /**
+     * Drop the references held by owners that are being deleted
+     */
+    @Transactional
+    public void removeOwners(MediaOwnerType ownerType, Collection<String> ownerIds) {
+        if (!ownerIds.isEmpty()) {
+            mediaReferenceRepository.deleteByOwners(ownerType, ownerIds);
+        }
+    }
+
+    /**
+     * Whether any item or collection references the file; a primary-key prefix lookup
+     */
+    @Transactional
+    public boolean isReferenced(String filename) {
+        return mediaReferenceRepository.existsByFilename(filename);
+    }
+
+    /**
+     * The subset of the given files that are referenced by something
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findReferenced(Collection<String> filenames) {
+        if (filenames.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(mediaReferenceRepository.findReferencedFilenames(filenames));
+    }
+
+    /**
+     * Who references the file
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findReferences(String filename) {
+        List<Map<String, Object>> references = new ArrayList<>();
+        for (MediaReference reference : mediaReferenceRepository.findByFilename(filename)) {
+            Map<String, Object> owner = new LinkedHashMap<>();
+            owner.put("ownerType", reference.getOwnerType().name().toLowerCase());
+            owner.put("ownerId", reference.getOwnerId());
+            references.add(owner);
+        }
+        return references;
+    }
+
+    /**
+     * Point every item and collection that uses oldFilename at newFilename
+     */
+    @Transactional
+    public int rewriteReferences(String oldFilename, String newFilename) {
+        int updated = itemRepository.updateFilename(oldFilename, newFilename, "/api/images/" + newFilename);
+        updated += collectionRepository.updateCoverPhoto(oldFilename, newFilename);
+        mediaReferenceRepository.updateFilename(oldFilename, newFilename);
+        if (updated > 0) {
+            // Any listing may show the renamed file
+            eventPublisher.publishEvent(new CollectionService.CollectionChangedEvent(null));
+        }
+        return updated;
+    }
+
+    /**
+     * Rebuild the index from the items and collections tables with two set-based inserts
+     */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        mediaReferenceRepository.deleteAllRows();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", mediaReferenceRepository.insertFromItems());
+        result.put("collections", mediaReferenceRepository.insertFromCollections());
+        return result;
+    }
+}
@@ -1,20 +1,22 @@
 package com.vault.service;
 
-import com.vault.repository.CollectionRepository;
-import com.vault.repository.ItemRepository;
+import com.vault.dto.SimilarItem;
+import com.vault.dto.UploadResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.time.Instant;
+import java.io.InputStream;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class MediaService {
@@ -23,119 +25,151 @@ public class MediaService {
     private StorageService storageService;
 
     @Autowired
-    private ItemRepository itemRepository;
+    private MediaReferenceService mediaReferenceService;
 
     @Autowired
-    private CollectionRepository collectionRepository;
+    private ImageDerivativeService imageDerivativeService;
 
-    @Value("${storage.location}")
-    private String storageLocation;
+    @Autowired
+    private DerivativeJobHandler derivativeJobHandler;
 
-    public List<String> bulkUpload(MultipartFile[] files) {
-        List<String> uploadedFilenames = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
+    @Autowired
+    private MediaInventoryService mediaInventoryService;
 
-        for (MultipartFile file : files) {
-            try {
-                if (file.isEmpty()) {
-                    errors.add("Skipped empty file: " + file.getOriginalFilename());
-                    continue;
-                }
+    @Autowired
+    private PerceptualHashService perceptualHashService;
 
-                // Validate file is an image
-                String contentType = file.getContentType();
-                if (contentType == null || !contentType.startsWith("image/")) {
-                    errors.add("Skipped non-image file: " + file.getOriginalFilename());
-                    continue;
-                }
+    @Value("${media.bulk-upload.per-request-concurrency:4}")
+    private int perRequestConcurrency;
 
-                // Store the file
-                String filename = storageService.store(file);
-                uploadedFilenames.add(filename);
-            } catch (Exception e) {
-                errors.add("Failed to upload " + file.getOriginalFilename() + ": " + e.getMessage());
+    // Shared across all bulk uploads in flight
+    private final Semaphore globalUploadPermits;
+
+    public MediaService(@Value("${media.bulk-upload.global-concurrency:8}") int globalConcurrency) {
+        this.globalUploadPermits = new Semaphore(globalConcurrency);
+    }
+
+    /**
+     * Store a batch of files in parallel on virtual threads. Concurrency is capped both per
+     * request and across all concurrent bulk uploads so disk and connection pools are not
+     * swamped. Results are returned in the order the files were sent.
+     */
+    public List<UploadResult> bulkUpload(MultipartFile[] files) {
+        Semaphore requestPermits = new Semaphore(perRequestConcurrency);
+        List<Future<UploadResult>> futures = new ArrayList<>(files.length);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : files) {
+                futures.add(executor.submit(() -> uploadWithPermits(file, requestPermits)));
             }
         }
 
-        // If there were errors but some files succeeded, we still return success with warnings
-        if (!errors.isEmpty() && uploadedFilenames.isEmpty()) {
-            throw new RuntimeException("All uploads failed: " + String.join(", ", errors));
+        List<UploadResult> results = new ArrayList<>(files.length);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(UploadResult.failed(files[i].getOriginalFilename(), "Upload interrupted"));
+            } catch (ExecutionException e) {
+                results.add(UploadResult.failed(files[i].getOriginalFilename(), e.getCause().getMessage()));
+            }
         }
-
-        return uploadedFilenames;
+        return results;
     }
 
-    public List<Map<String, Object>> getUnusedMedia() {
+    private UploadResult uploadWithPermits(MultipartFile file, Semaphore requestPermits) {
+        String originalFilename = file.getOriginalFilename();
         try {
-            // Get all filenames referenced in database
-            Set<String> usedFilenames = getUsedFilenames();
-
-            // Get all files in storage
-            Path rootPath = Paths.get(storageLocation);
-            List<Map<String, Object>> unusedFiles = new ArrayList<>();
-
-            try (Stream<Path> paths = Files.walk(rootPath, 1)) {
-                paths.filter(Files::isRegularFile)
-                     .filter(path -> !usedFilenames.contains(path.getFileName().toString()))
-                     .forEach(path -> {
-                         try {
-                             BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
-                             Map<String, Object> fileInfo = new HashMap<>();
-                             fileInfo.put("filename", path.getFileName().toString());
-                             fileInfo.put("size", attrs.size());
-                             fileInfo.put("createdAt", Instant.ofEpochMilli(attrs.creationTime().toMillis()));
-                             fileInfo.put("url", "/api/images/" + path.getFileName().toString());
-                             unusedFiles.add(fileInfo);
-                         } catch (IOException e) {
-                             // Skip files we can't read
-                         }
-                     });
+            requestPermits.acquire();
+            try {
+                globalUploadPermits.acquire();
+                try {
+                    return uploadOne(file);
+                } finally {
+                    globalUploadPermits.release();
+                }
+            } finally {
+                requestPermits.release();
             }
-
-            return unusedFiles;
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to list unused media: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UploadResult.failed(originalFilename, "Upload interrupted");
         }
     }
 
-    private Set<String> getUsedFilenames() {
-        Set<String> usedFilenames = new HashSet<>();
+    private UploadResult uploadOne(MultipartFile file) {
+        String originalFilename = file.getOriginalFilename();
+        try {
+            if (file.isEmpty()) {
+                return UploadResult.skipped(originalFilename, "Empty file");
+            }
 
-        // Get all item filenames
-        itemRepository.findAll().forEach(item -> {
-            if (item.getFilename() != null && !item.getFilename().isEmpty()) {
-                usedFilenames.add(item.getFilename());
+            // Validate file is an image
+            String contentType = file.getContentType();
+            if (contentType == null || !contentType.startsWith("image/")) {
+                return UploadResult.skipped(originalFilename, "Not an image file");
             }
-        });
 
-        // Get all collection cover photos
-        collectionRepository.findAll().forEach(collection -> {
-            if (collection.getCoverPhoto() != null && !collection.getCoverPhoto().isEmpty()) {
-                usedFilenames.add(collection.getCoverPhoto());
+            // Look for items this is a copy or rescan of before storing it
+            List<SimilarItem> similarItems = findSimilarItems(file);
+
+            // Store the file
+            String filename = storageService.store(file);
+
+            // Library files are not tied to a collection yet, so only size renditions are queued
+            derivativeJobHandler.enqueue(filename, null);
+
+            UploadResult result = UploadResult.stored(originalFilename, filename);
+            if (!similarItems.isEmpty()) {
+                result.setSimilarItems(similarItems);
+                result.setMessage("Looks like " + similarItems.size() + " existing item(s)");
             }
-        });
+            return result;
+        } catch (Exception e) {
+            return UploadResult.failed(originalFilename, e.getMessage());
+        }
+    }
 
-        return usedFilenames;
+    /**
+     * Existing items whose image is nearly identical to the upload; a file that cannot be
+     * hashed is still stored, just without the check
+     */
+    private List<SimilarItem> findSimilarItems(MultipartFile file) {
+        try (InputStream input = file.getInputStream()) {
+            return perceptualHashService.findUploadDuplicates(perceptualHashService.hash(input));
+        } catch (IOException | IllegalArgumentException e) {
+            return List.of();
+        }
     }
 
-    public boolean deleteMedia(String filename) {
-        try {
-            // Check if file is in use
-            Set<String> usedFilenames = getUsedFilenames();
-            if (usedFilenames.contains(filename)) {
-                throw new RuntimeException("Cannot delete file that is in use: " + filename);
-            }
+    public Page<Map<String, Object>> getUnusedMedia(int page, int size, String sort, String direction) {
+        // Served from the media inventory rather than walking the storage directory
+        return mediaInventoryService.findUnused(page, size, sort, direction)
+                .map(mediaFile -> {
+                    Map<String, Object> fileInfo = new HashMap<>();
+                    fileInfo.put("filename", mediaFile.getFilename());
+                    fileInfo.put("size", mediaFile.getSize());
+                    fileInfo.put("createdAt", mediaFile.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+                    fileInfo.put("contentType", mediaFile.getContentType());
+                    fileInfo.put("url", "/api/images/" + mediaFile.getFilename());
+                    return fileInfo;
+                });
+    }
 
-            // Delete the file
-            Path filePath = Paths.get(storageLocation).resolve(filename);
-            return Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to delete file: " + e.getMessage(), e);
+    public boolean deleteMedia(String filename) {
+        // Check if file is in use
+        if (mediaReferenceService.isReferenced(filename)) {
+            throw new RuntimeException("Cannot delete file that is in use: " + filename);
         }
+
+        // Delete the file and any resized copies of it
+        imageDerivativeService.evictAll(filename);
+        return storageService.delete(filename);
     }
 
     public int bulkDeleteMedia(List<String> filenames) {
-        Set<String> usedFilenames = getUsedFilenames();
+        Set<String> usedFilenames = mediaReferenceService.findReferenced(filenames);
         int deletedCount = 0;
         List<String> errors = new ArrayList<>();
 
@@ -148,13 +182,13 @@ public class MediaService {
                 }
 
                 // Delete the file
-                Path filePath = Paths.get(storageLocation).resolve(filename);
-                if (Files.deleteIfExists(filePath)) {
+                imageDerivativeService.evictAll(filename);
+                if (storageService.delete(filename)) {
                     deletedCount++;
                 } else {
                     errors.add("File not found: " + filename);
                 }
-            } catch (IOException e) {
+            } catch (RuntimeException e) {
                 errors.add("Failed to delete " + filename + ": " + e.getMessage());
             }
         }
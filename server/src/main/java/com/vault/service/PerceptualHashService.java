@@ -0,0 +1,387 @@
+package com.vault.service;
+
+import com.vault.dto.ItemSummary;
+import com.vault.dto.SimilarItem;
+import com.vault.entity.Item;
+import com.vault.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Near-duplicate detection for item images. Each image gets a 64-bit difference hash (dHash):
+ * the picture is averaged down to 9x8 grey cells and each bit records whether a cell is
+ * brighter than its right-hand neighbour, so rescans, re-encodes and resizes of the same card
+ * land a few bits apart. Hashes are kept in an in-memory BK-tree, which answers "everything
+ * within n bits" without comparing against every item.
+ */
+@Service
+public class PerceptualHashService {
+
+    // Largest radius a query may ask for; wider searches visit most of the tree and match unrelated images
+    public static final int MAX_DISTANCE = 16;
+    private static final int DEFAULT_DISTANCE = 10;
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+
+    // Decode at least this many pixels per cell side; subsampling below that aliases
+    private static final int MIN_PIXELS_PER_CELL = 8;
+    private static final long MAX_DECODED_PIXELS = 40_000_000L;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${media.similarity.upload-warning-distance:6}")
+    private int uploadWarningDistance;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private BkTree tree = new BkTree();
+    private Map<String, Long> hashes = new HashMap<>();
+
+    // Changes applied while a rebuild reads the database, replayed onto the new tree
+    private List<Consumer<PerceptualHashService>> pending;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            long start = System.currentTimeMillis();
+            int indexed = rebuild();
+            System.err.println("Image similarity index built: " + indexed + " items in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Image similarity index build failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reload every stored hash into a fresh tree and swap it in. Returns the number of items indexed.
+     */
+    public synchronized int rebuild() {
+        withWriteLock(() -> pending = new ArrayList<>());
+        BkTree freshTree = new BkTree();
+        Map<String, Long> freshHashes = new HashMap<>();
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            String after = "";
+            List<Object[]> rows;
+            do {
+                String from = after;
+                rows = readOnly.execute(status -> itemRepository.findImageHashesAfter(from, PageRequest.of(0, LOAD_BATCH_SIZE)));
+                for (Object[] row : rows) {
+                    String itemId = (String) row[0];
+                    long hash = (Long) row[1];
+                    freshTree.add(hash, itemId);
+                    freshHashes.put(itemId, hash);
+                    after = itemId;
+                }
+            } while (rows.size() == LOAD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            withWriteLock(() -> pending = null);
+            throw e;
+        }
+        withWriteLock(() -> {
+            List<Consumer<PerceptualHashService>> changes = pending;
+            pending = null;
+            tree = freshTree;
+            hashes = freshHashes;
+            changes.forEach(change -> change.accept(this));
+        });
+        return freshHashes.size();
+    }
+
+    /**
+     * Hash an image read from the stream. Throws IllegalArgumentException for data that is not
+     * a decodable image.
+     */
+    public long hash(InputStream stream) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            if (input == null) {
+                throw new IOException("Cannot open image");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // Only a few pixels per cell are needed, so decode subsampled
+                int subsampling = Math.max(1, Math.min(width / (COLUMNS * MIN_PIXELS_PER_CELL), height / (ROWS * MIN_PIXELS_PER_CELL)));
+                if (((long) width / subsampling) * ((long) height / subsampling) > MAX_DECODED_PIXELS) {
+                    throw new IllegalArgumentException("Image is too large to hash");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return dHash(reader.read(0, param));
+            } catch (IIOException e) {
+                throw new IllegalArgumentException("Cannot decode image: " + e.getMessage(), e);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Hash a stored file. Throws IllegalArgumentException when it is missing or not an image.
+     */
+    public long hashStored(String filename) throws IOException {
+        try (InputStream stream = storageService.stream(filename)) {
+            return hash(stream);
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("Image not found: " + filename);
+        }
+    }
+
+    /**
+     * Difference hash: average into 9x8 grey cells, then one bit per horizontally adjacent pair,
+     * row by row from the top left
+     */
+    static long dHash(BufferedImage image) {
+        if (image.getWidth() < COLUMNS || image.getHeight() < ROWS) {
+            image = scale(image, COLUMNS, ROWS);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] sums = new double[ROWS * COLUMNS];
+        int[] counts = new int[ROWS * COLUMNS];
+        int[] pixels = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, pixels, 0, width);
+            int rowOffset = (int) ((long) y * ROWS / height) * COLUMNS;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[x];
+                int cell = rowOffset + (int) ((long) x * COLUMNS / width);
+                sums[cell] += 0.299 * ((rgb >> 16) & 0xff) + 0.587 * ((rgb >> 8) & 0xff) + 0.114 * (rgb & 0xff);
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS - 1; column++) {
+                int cell = row * COLUMNS + column;
+                boolean brighter = sums[cell] / counts[cell] > sums[cell + 1] / counts[cell + 1];
+                hash = (hash << 1) | (brighter ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Record a freshly computed hash for an item and index it after commit; ignored when the
+     * item has been deleted or given another image meanwhile
+     */
+    @Transactional
+    public boolean record(String itemId, String filename, long hash) {
+        if (itemRepository.updateImageHash(itemId, filename, hash) == 0) {
+            return false;
+        }
+        apply(service -> service.putNow(itemId, hash));
+        return true;
+    }
+
+    /**
+     * Drop items from the index after commit, e.g. when deleted or given a new image
+     */
+    public void remove(Collection<String> itemIds) {
+        List<String> ids = List.copyOf(itemIds);
+        apply(service -> ids.forEach(service::removeNow));
+    }
+
+    /**
+     * Items whose image is within maxDistance bits of this item's, closest first. An item
+     * that has not been hashed yet is hashed now from its file.
+     */
+    public List<SimilarItem> findSimilar(String itemId, Integer maxDistance, Integer limit) throws IOException {
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new IllegalArgumentException("Item not found with id: " + itemId));
+        long hash = item.getImageHash() != null ? item.getImageHash() : hashStored(item.getFilename());
+        return findSimilar(hash, resolveDistance(maxDistance), resolveLimit(limit), itemId);
+    }
+
+    /**
+     * Existing items that an uploaded image is likely a copy or rescan of
+     */
+    public List<SimilarItem> findUploadDuplicates(long hash) {
+        return findSimilar(hash, uploadWarningDistance, DEFAULT_LIMIT, null);
+    }
+
+    /**
+     * Items within maxDistance bits of an image, closest first
+     */
+    public List<SimilarItem> findSimilarToImage(InputStream image, Integer maxDistance, Integer limit) throws IOException {
+        return findSimilar(hash(image), resolveDistance(maxDistance), resolveLimit(limit), null);
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("items", tree.size());
+            stats.put("nodes", tree.nodes());
+            stats.put("emptyNodes", tree.emptyNodes());
+            stats.put("uploadWarningDistance", uploadWarningDistance);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<SimilarItem> findSimilar(long hash, int maxDistance, int limit, String excludeId) {
+        List<BkTree.Match> matches;
+        lock.readLock().lock();
+        try {
+            matches = tree.search(hash, maxDistance);
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches = matches.stream()
+                .filter(match -> !match.itemId().equals(excludeId))
+                .sorted(Comparator.comparingInt(BkTree.Match::distance).thenComparing(BkTree.Match::itemId))
+                .limit(limit)
+                .toList();
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, ItemSummary> items = new HashMap<>();
+        itemRepository.findSummariesByIdIn(matches.stream().map(BkTree.Match::itemId).toList())
+                .forEach(item -> items.put(item.getId(), item));
+        List<SimilarItem> similar = new ArrayList<>(matches.size());
+        List<String> gone = new ArrayList<>();
+        for (BkTree.Match match : matches) {
+            ItemSummary item = items.get(match.itemId());
+            if (item != null) {
+                similar.add(new SimilarItem(item, match.distance()));
+            } else {
+                gone.add(match.itemId());
+            }
+        }
+        // Rows deleted outside the item and collection services drop out as they turn up
+        if (!gone.isEmpty()) {
+            applyNow(service -> gone.forEach(service::removeNow));
+        }
+        return similar;
+    }
+
+    private void putNow(String itemId, long hash) {
+        removeNow(itemId);
+        tree.add(hash, itemId);
+        hashes.put(itemId, hash);
+    }
+
+    private void removeNow(String itemId) {
+        Long hash = hashes.remove(itemId);
+        if (hash != null) {
+            tree.remove(hash, itemId);
+        }
+    }
+
+    /**
+     * Apply a change once the surrounding transaction commits, or now outside one
+     */
+    private void apply(Consumer<PerceptualHashService> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyNow(change);
+                }
+            });
+        } else {
+            applyNow(change);
+        }
+    }
+
+    private void applyNow(Consumer<PerceptualHashService> change) {
+        withWriteLock(() -> {
+            change.accept(this);
+            if (pending != null) {
+                pending.add(change);
+            }
+            // Removed items leave routing nodes behind; start over once they outnumber the live ones
+            if (tree.emptyNodes() > 1024 && tree.emptyNodes() > tree.nodes() / 2) {
+                BkTree compacted = new BkTree();
+                hashes.forEach((itemId, hash) -> compacted.add(hash, itemId));
+                tree = compacted;
+            }
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private int resolveDistance(Integer maxDistance) {
+        if (maxDistance == null) {
+            return DEFAULT_DISTANCE;
+        }
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and " + MAX_DISTANCE);
+        }
+        return maxDistance;
+    }
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be >= 1");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -0,0 +1,564 @@
+package com.vault.service;
+
+import com.vault.dto.CollectionResponse;
+import com.vault.dto.ItemResponse;
+import com.vault.dto.SearchHit;
+import com.vault.entity.Story;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import com.vault.repository.StoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over item titles, categories and metadata values, collection
+ * names and story titles, content and tags. Built from the database at startup and kept
+ * current by the item, collection and story write paths (applied after their transaction
+ * commits), so searches never query MySQL.
+ * <p>
+ * Every query word must match a word of the document, either whole or as its prefix, so
+ * "char holo" finds "Charizard Holo". Results are ranked with BM25 over field-weighted
+ * term frequencies; whole-word matches rank above prefix matches.
+ */
+@Service
+public class SearchIndexService {
+
+    public static final String ITEM = "item";
+    public static final String COLLECTION = "collection";
+    public static final String STORY = "story";
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float TAG_WEIGHT = 2f;
+    private static final float TEXT_WEIGHT = 1f;
+
+    // A prefix match is worth this fraction of a whole-word match
+    private static final float PREFIX_FACTOR = 0.6f;
+    // Dictionary terms a single query word may expand to
+    private static final int MAX_EXPANSIONS = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+
+    // Changes applied while a rebuild reads the database, replayed onto the new index
+    private List<Consumer<Index>> pending;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            long start = System.currentTimeMillis();
+            int indexed = rebuild();
+            System.err.println("Search index built: " + indexed + " documents in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Search index build failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-read everything from the database into a fresh index and swap it in. Searches keep
+     * using the old index meanwhile. Returns the number of documents indexed.
+     */
+    public synchronized int rebuild() {
+        withWriteLock(() -> pending = new ArrayList<>());
+        Index fresh = new Index();
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<ItemResponse> items = itemRepository.streamAllResponses()) {
+                    items.forEach(item -> putItem(fresh, item));
+                }
+                collectionRepository.findAllSummaries()
+                        .forEach(collection -> putCollection(fresh, collection.getId(), collection.getName()));
+                storyRepository.findAll().forEach(story -> putStory(fresh, story));
+            });
+        } catch (RuntimeException e) {
+            withWriteLock(() -> pending = null);
+            throw e;
+        }
+        withWriteLock(() -> {
+            pending.forEach(change -> change.accept(fresh));
+            pending = null;
+            index = fresh;
+        });
+        return fresh.live;
+    }
+
+    public void indexItem(ItemResponse item) {
+        apply(index -> putItem(index, item));
+    }
+
+    public void removeItems(Collection<String> ids) {
+        List<String> keys = ids.stream().map(id -> key(ITEM, id)).toList();
+        apply(index -> keys.forEach(index::remove));
+    }
+
+    public void indexCollection(CollectionResponse collection) {
+        String id = collection.getId();
+        String name = collection.getName();
+        apply(index -> putCollection(index, id, name));
+    }
+
+    /**
+     * Drop collections together with their items
+     */
+    public void removeCollections(Collection<String> ids) {
+        Set<String> collectionIds = new HashSet<>(ids);
+        apply(index -> {
+            collectionIds.forEach(id -> index.remove(key(COLLECTION, id)));
+            for (Doc doc : index.docs) {
+                if (doc != null && doc.type.equals(ITEM) && collectionIds.contains(doc.collectionId)) {
+                    index.remove(key(ITEM, doc.id));
+                }
+            }
+        });
+    }
+
+    public void indexStory(Story story) {
+        Doc doc = storyDoc(story);
+        Map<String, Float> terms = storyTerms(story);
+        apply(index -> index.put(doc, terms));
+    }
+
+    public void removeStories(Collection<String> ids) {
+        List<String> keys = ids.stream().map(id -> key(STORY, id)).toList();
+        apply(index -> keys.forEach(index::remove));
+    }
+
+    /**
+     * Ranked matches for a query, optionally of one type (item, collection or story)
+     */
+    public Map<String, Object> search(String query, String type, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query must not be empty");
+        }
+        if (type != null && !type.equals(ITEM) && !type.equals(COLLECTION) && !type.equals(STORY)) {
+            throw new IllegalArgumentException("Type must be item, collection or story");
+        }
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new IllegalArgumentException("Page must be >= 0 and size >= 1");
+        }
+
+        List<String> words = tokens(query).stream().distinct().toList();
+        List<SearchHit> results = new ArrayList<>();
+        int total = 0;
+
+        lock.readLock().lock();
+        try {
+            if (!words.isEmpty()) {
+                Index current = index;
+                double averageLength = current.live == 0 ? 1 : Math.max(current.totalLength / current.live, 1);
+
+                // Rarest word first, so later words only revisit documents every earlier word matched
+                Map<String, Map<String, Postings>> expansions = new HashMap<>();
+                words.forEach(word -> expansions.put(word, current.expand(word)));
+                List<String> ordered = new ArrayList<>(words);
+                ordered.sort(Comparator.comparingInt(word -> expansions.get(word).values().stream().mapToInt(p -> p.live).sum()));
+
+                // Scores are kept only for documents the rarest word hits, not for the whole index
+                Map<Integer, Match> matches = new HashMap<>();
+                for (int w = 0; w < ordered.size(); w++) {
+                    String word = ordered.get(w);
+                    for (Map.Entry<String, Postings> term : expansions.get(word).entrySet()) {
+                        Postings postings = term.getValue();
+                        // Live documents only; entries of removed documents stay in the postings until compaction
+                        double idf = Math.log(1 + (current.live - postings.live + 0.5) / (postings.live + 0.5));
+                        float factor = term.getKey().equals(word) ? 1f : PREFIX_FACTOR;
+                        for (int i = 0; i < postings.size; i++) {
+                            int d = postings.docs[i];
+                            Match match = matches.get(d);
+                            if (match == null) {
+                                if (w > 0) {
+                                    continue;
+                                }
+                                Doc doc = current.docs.get(d);
+                                if (doc == null) {
+                                    continue;
+                                }
+                                match = new Match(doc);
+                                matches.put(d, match);
+                            } else if (match.words < w) {
+                                continue;
+                            }
+                            double tf = postings.weights[i];
+                            float contribution = (float) (factor * idf * tf * (K1 + 1)
+                                    / (tf + K1 * (1 - B + B * match.doc.length / averageLength)));
+                            // A word counts once per document, through its best-scoring expansion
+                            if (match.words == w) {
+                                match.words++;
+                                match.best = contribution;
+                                match.score += contribution;
+                            } else if (contribution > match.best) {
+                                match.score += contribution - match.best;
+                                match.best = contribution;
+                            }
+                        }
+                    }
+                }
+
+                int wanted = (pageNumber + 1) * pageSize;
+                PriorityQueue<Match> top = new PriorityQueue<>(Comparator.comparingDouble((Match match) -> match.score));
+                for (Match match : matches.values()) {
+                    if (match.words != words.size()) {
+                        continue;
+                    }
+                    if (type != null && !match.doc.type.equals(type)) {
+                        continue;
+                    }
+                    total++;
+                    if (top.size() == wanted && match.score <= top.peek().score) {
+                        continue;
+                    }
+                    top.add(match);
+                    if (top.size() > wanted) {
+                        top.poll();
+                    }
+                }
+
+                List<Match> ranked = new ArrayList<>(top);
+                ranked.sort(Comparator.comparingDouble((Match match) -> match.score).reversed());
+                for (int r = pageNumber * pageSize; r < ranked.size(); r++) {
+                    Doc doc = ranked.get(r).doc;
+                    results.add(new SearchHit(doc.type, doc.id, doc.title, doc.collectionId, ranked.get(r).score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("query", query);
+        response.put("total", total);
+        response.put("page", pageNumber);
+        response.put("size", pageSize);
+        response.put("results", results);
+        return response;
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("documents", index.live);
+            stats.put("terms", index.terms.size());
+            stats.put("removedPendingCompaction", index.dead);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cased words with accents removed, so "Pokémon" and "pokemon" match
+     */
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded)).filter(token -> !token.isEmpty()).toList();
+    }
+
+    private void putItem(Index index, ItemResponse item) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, item.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, item.getCategory(), TAG_WEIGHT);
+        if (item.getMetadata() != null) {
+            item.getMetadata().values().forEach(value -> addTerms(terms, value, TEXT_WEIGHT));
+        }
+        index.put(new Doc(ITEM, item.getId(), item.getTitle(), item.getCollectionId(), length(terms)), terms);
+    }
+
+    private void putCollection(Index index, String id, String name) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, name, TITLE_WEIGHT);
+        index.put(new Doc(COLLECTION, id, name, null, length(terms)), terms);
+    }
+
+    private void putStory(Index index, Story story) {
+        index.put(storyDoc(story), storyTerms(story));
+    }
+
+    private Doc storyDoc(Story story) {
+        return new Doc(STORY, story.getId(), story.getTitle(), story.getCollectionId(), length(storyTerms(story)));
+    }
+
+    private Map<String, Float> storyTerms(Story story) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, story.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, story.getContent(), TEXT_WEIGHT);
+        if (story.getTags() != null) {
+            story.getTags().forEach(tag -> addTerms(terms, tag, TAG_WEIGHT));
+        }
+        return terms;
+    }
+
+    private void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokens(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    private float length(Map<String, Float> terms) {
+        float length = 0;
+        for (float weight : terms.values()) {
+            length += weight;
+        }
+        return length;
+    }
+
+    private static String key(String type, String id) {
+        return type + ":" + id;
+    }
+
+    /**
+     * Apply a change once the surrounding transaction commits, or now outside one
+     */
+    private void apply(Consumer<Index> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyNow(change);
+                }
+            });
+        } else {
+            applyNow(change);
+        }
+    }
+
+    private void applyNow(Consumer<Index> change) {
+        withWriteLock(() -> {
+            change.accept(index);
+            index.compactIfNeeded();
+            if (pending != null) {
+                pending.add(change);
+            }
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Doc {
+        final String type;
+        final String id;
+        final String title;
+        final String collectionId;
+        final float length;
+
+        Doc(String type, String id, String title, String collectionId, float length) {
+            this.type = type;
+            this.id = id;
+            this.title = title;
+            this.collectionId = collectionId;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A document's running score during one search: how many query words it has matched so
+     * far and what the current word's best expansion contributed
+     */
+    private static final class Match {
+        final Doc doc;
+        int words;
+        float best;
+        float score;
+
+        Match(Doc doc) {
+            this.doc = doc;
+        }
+    }
+
+    /**
+     * Documents containing a term, in ascending document number, with the term's weighted
+     * frequency in each. Removed documents keep their entries until compaction; live counts
+     * only the documents still indexed.
+     */
+    private static final class Postings {
+        int[] docs = new int[2];
+        float[] weights = new float[2];
+        int size;
+        int live;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+            live++;
+        }
+    }
+
+    /**
+     * Documents are numbered in insertion order. Replacing or removing one leaves a hole
+     * that searches skip; holes are squeezed out once they outnumber live documents.
+     */
+    private static final class Index {
+        final List<Doc> docs = new ArrayList<>();
+        // The postings each document was added to, by document number, so removal can update their live counts
+        final List<Postings[]> docPostings = new ArrayList<>();
+        final Map<String, Integer> numbers = new HashMap<>();
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        double totalLength;
+        int live;
+        int dead;
+
+        void put(Doc doc, Map<String, Float> termWeights) {
+            String key = key(doc.type, doc.id);
+            remove(key);
+            int number = docs.size();
+            docs.add(doc);
+            numbers.put(key, number);
+            Postings[] added = new Postings[termWeights.size()];
+            int t = 0;
+            for (Map.Entry<String, Float> term : termWeights.entrySet()) {
+                Postings postings = terms.computeIfAbsent(term.getKey(), k -> new Postings());
+                postings.add(number, term.getValue());
+                added[t++] = postings;
+            }
+            docPostings.add(added);
+            totalLength += doc.length;
+            live++;
+        }
+
+        void remove(String key) {
+            Integer number = numbers.remove(key);
+            if (number == null) {
+                return;
+            }
+            Doc doc = docs.set(number, null);
+            for (Postings postings : docPostings.set(number, null)) {
+                postings.live--;
+            }
+            totalLength -= doc.length;
+            live--;
+            dead++;
+        }
+
+        /**
+         * The word itself if indexed, then the indexed words it is a prefix of
+         */
+        Map<String, Postings> expand(String word) {
+            Map<String, Postings> expansions = new LinkedHashMap<>();
+            Postings exact = terms.get(word);
+            if (exact != null) {
+                expansions.put(word, exact);
+            }
+            if (word.length() < 2) {
+                return expansions;
+            }
+            SortedMap<String, Postings> prefixed = terms.subMap(word, word + Character.MAX_VALUE);
+            for (Map.Entry<String, Postings> entry : prefixed.entrySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            return expansions;
+        }
+
+        void compactIfNeeded() {
+            if (dead > 1024 && dead > live) {
+                compact();
+            }
+        }
+
+        private void compact() {
+            int[] renumbered = new int[docs.size()];
+            List<Doc> kept = new ArrayList<>(live);
+            List<Postings[]> keptPostings = new ArrayList<>(live);
+            for (int i = 0; i < docs.size(); i++) {
+                Doc doc = docs.get(i);
+                renumbered[i] = doc == null ? -1 : kept.size();
+                if (doc != null) {
+                    kept.add(doc);
+                    keptPostings.add(docPostings.get(i));
+                }
+            }
+
+            var iterator = terms.values().iterator();
+            while (iterator.hasNext()) {
+                Postings postings = iterator.next();
+                int size = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    int number = renumbered[postings.docs[i]];
+                    if (number >= 0) {
+                        postings.docs[size] = number;
+                        postings.weights[size] = postings.weights[i];
+                        size++;
+                    }
+                }
+                postings.size = size;
+                if (size == 0) {
+                    iterator.remove();
+                }
+            }
+
+            docs.clear();
+            docs.addAll(kept);
+            docPostings.clear();
+            docPostings.addAll(keptPostings);
+            numbers.replaceAll((key, number) -> renumbered[number]);
+            dead = 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.vault.service;
+
+import com.vault.storage.ObjectStore.StoredObject;
+import com.vault.storage.StorageBackend.LocalFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * One-off migration from random UUID names to content-addressed names. Every stored file
+ * is renamed to the SHA-256 of its bytes; files whose content already exists under that
+ * name are folded into the existing blob. Item and collection references are rewritten
+ * before the old file is removed, so the migration can be stopped and re-run safely.
+ */
+@Service
+public class StorageDeduplicationService {
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private MediaReferenceService mediaReferenceService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public Map<String, Object> deduplicate() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Deduplication is already running");
+        }
+
+        int scanned = 0;
+        int renamed = 0;
+        int folded = 0;
+        int referencesRewritten = 0;
+        long bytesReclaimed = 0;
+        int failed = 0;
+
+        try {
+            List<StoredObject> files;
+            try (Stream<StoredObject> objects = storageService.list()) {
+                files = objects.toList();
+            }
+
+            for (StoredObject file : files) {
+                scanned++;
+                String filename = file.filename();
+                try {
+                    String hash;
+                    try (LocalFile local = storageService.load(filename)) {
+                        hash = storageService.hash(local.path());
+                    }
+                    String canonical = storageService.contentAddressedName(hash, extensionOf(filename));
+                    if (canonical.equals(filename)) {
+                        continue;
+                    }
+
+                    long size = file.size();
+                    boolean duplicate = !storageService.storeCopyOf(filename, canonical);
+
+                    // References move first; the old name is only removed once nothing points at it
+                    referencesRewritten += mediaReferenceService.rewriteReferences(filename, canonical);
+                    imageDerivativeService.evictAll(filename);
+                    storageService.delete(filename);
+
+                    if (duplicate) {
+                        folded++;
+                        bytesReclaimed += size;
+                    } else {
+                        renamed++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed++;
+                    System.err.println("Failed to deduplicate " + filename + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list storage: " + e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scanned", scanned);
+        result.put("renamed", renamed);
+        result.put("folded", folded);
+        result.put("referencesRewritten", referencesRewritten);
+        result.put("bytesReclaimed", bytesReclaimed);
+        result.put("failed", failed);
+        return result;
+    }
+
+    private String extensionOf(String filename) {
+        int dotIndex = filename.lastIndexOf('.');
+        return dotIndex > 0 ? filename.substring(dotIndex) : "";
+    }
+}
@@ -0,0 +1,136 @@
+package com.vault.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Moves files from the flat storage directory into hash-prefix shard directories while
+ * the application keeps serving. Reads fall back to the flat location, so files can be
+ * moved in any order; the migration only ever looks at what is still flat, which makes
+ * it resumable after a restart.
+ */
+@Service
+public class StorageLayoutMigrationService {
+
+    @Autowired
+    private StorageService storageService;
+
+    @Value("${storage.migration.on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Value("${storage.migration.batch-size:500}")
+    private int batchSize;
+
+    @Value("${storage.migration.pause-ms:50}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String lastError;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        if (storageService.isSharded() && migrateOnStartup) {
+            start();
+        }
+    }
+
+    /**
+     * Start the migration in the background; returns false if it is already running
+     */
+    public boolean start() {
+        if (!storageService.isSharded()) {
+            throw new IllegalArgumentException("Set storage.layout=sharded before migrating");
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        startedAt = Instant.now();
+        finishedAt = null;
+        lastError = null;
+        Thread.ofVirtual().name("storage-layout-migration").start(this::run);
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("layout", storageService.isSharded() ? "sharded" : "flat");
+        status.put("running", running.get());
+        status.put("moved", moved.get());
+        status.put("skipped", skipped.get());
+        status.put("failed", failed.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                int batchMoved = migrateBatch();
+                if (batchMoved == 0) {
+                    break;
+                }
+                // Leave disk bandwidth for requests between batches
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+            System.err.println("Storage layout migration stopped: " + e.getMessage());
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Move up to one batch of flat files; returns how many were processed
+     */
+    private int migrateBatch() throws IOException {
+        List<Path> batch;
+        try (Stream<Path> paths = Files.list(storageService.getRootLocation())) {
+            batch = paths.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .limit(batchSize)
+                    .toList();
+        }
+
+        int processed = 0;
+        for (Path file : batch) {
+            try {
+                if (storageService.moveToShard(file)) {
+                    moved.incrementAndGet();
+                } else {
+                    skipped.incrementAndGet();
+                }
+                processed++;
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                lastError = file.getFileName() + ": " + e.getMessage();
+            }
+        }
+        // Stop rather than spin if every remaining file fails to move
+        return processed;
+    }
+}
@@ -1,28 +1,93 @@
 package com.vault.service;
 
+import com.vault.storage.CachingStorageBackend;
+import com.vault.storage.LocalStorageBackend;
+import com.vault.storage.StorageBackend;
+import com.vault.storage.StorageBackend.LocalFile;
+import com.vault.storage.ObjectStore.StoredObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+/**
+ * Entry point for stored media. New content is staged in the local storage directory and
+ * then handed to the configured {@link StorageBackend}; with the local backend that hand-off
+ * is a rename within the same volume.
+ */
 @Service
 public class StorageService {
 
+    /**
+     * Published after a file is written to storage
+     */
+    public record FileStoredEvent(String filename) {
+    }
+
+    /**
+     * Published after a file is removed from storage
+     */
+    public record FileDeletedEvent(String filename) {
+    }
+
+    // Local directory; holds the files themselves with the local backend, and staged uploads always
     private final Path rootLocation;
 
-    public StorageService(@Value("${storage.location}") String storageLocation) {
+    private final StorageBackend backend;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    // When enabled, files are named by the SHA-256 of their bytes so identical uploads share one blob
+    private final boolean contentAddressed;
+
+    // Striped by filename. Handing out an existing blob again and deleting an unused one both
+    // hold the name's lock, so a delete never removes a blob in the moment it is reused.
+    private final ReentrantLock[] nameLocks = new ReentrantLock[64];
+
+    @Autowired
+    public StorageService(@Value("${storage.location}") String storageLocation,
+                          @Value("${storage.content-addressed:false}") boolean contentAddressed,
+                          StorageBackend backend) {
         this.rootLocation = Paths.get(storageLocation);
+        this.contentAddressed = contentAddressed;
+        this.backend = backend;
+        for (int i = 0; i < nameLocks.length; i++) {
+            nameLocks[i] = new ReentrantLock();
+        }
         init();
     }
 
+    /**
+     * Local storage in the given layout
+     */
+    public StorageService(String storageLocation, boolean contentAddressed, String layout) {
+        this(storageLocation, contentAddressed,
+                new LocalStorageBackend(Paths.get(storageLocation), "sharded".equalsIgnoreCase(layout)));
+    }
+
     /**
      * Initialize storage directory
      */
@@ -34,6 +99,13 @@ public class StorageService {
         }
     }
 
+    /**
+     * Root directory that originals are stored under
+     */
+    public Path getRootLocation() {
+        return rootLocation;
+    }
+
     /**
      * Store a file and return the generated filename
      */
@@ -51,62 +123,291 @@ public class StorageService {
                 extension = originalFilename.substring(dotIndex);
             }
 
+            if (contentAddressed) {
+                try (InputStream inputStream = file.getInputStream()) {
+                    return storeContentAddressed(inputStream, extension);
+                }
+            }
+
             // Generate unique filename
             String filename = UUID.randomUUID().toString() + extension;
 
-            // Resolve destination path
-            Path destinationFile = rootLocation.resolve(Paths.get(filename))
-                    .normalize().toAbsolutePath();
+            // Stage locally, then hand the finished file to the backend
+            Path temp = Files.createTempFile(rootLocation, ".upload-", ".tmp");
+            try {
+                try (InputStream inputStream = file.getInputStream()) {
+                    Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                backend.store(filename, temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            publish(new FileStoredEvent(filename));
+            return filename;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file", e);
+        }
+    }
 
-            // Security check: ensure file is within root location
-            if (!destinationFile.getParent().equals(rootLocation.toAbsolutePath())) {
-                throw new RuntimeException("Cannot store file outside current directory");
+    /**
+     * Whether new uploads are named by content hash
+     */
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    /**
+     * Store a stream under the hex SHA-256 of its bytes, hashing while copying.
+     * If a blob with the same content already exists, the copy is discarded and
+     * the existing name is returned.
+     */
+    public String storeContentAddressed(InputStream inputStream, String extension) throws IOException {
+        Path temp = Files.createTempFile(rootLocation, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = newSha256();
+            try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                Files.copy(digestStream, temp, StandardCopyOption.REPLACE_EXISTING);
             }
 
-            // Copy file to destination
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+            String filename = contentAddressedName(HexFormat.of().formatHex(digest.digest()), extension);
+            if (reuse(filename)) {
+                return filename;
             }
 
+            // A concurrent upload of the same bytes either wins or stores identical content
+            backend.store(filename, temp);
+            publish(new FileStoredEvent(filename));
             return filename;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Make the content of an existing file available under a new name without moving the
+     * bytes through this service (hard link locally, server-side copy remotely). Returns
+     * false when a file with that name already exists.
+     */
+    public boolean storeCopyOf(String sourceFilename, String filename) throws IOException {
+        if (!backend.copy(sourceFilename, filename)) {
+            return false;
+        }
+        publish(new FileStoredEvent(filename));
+        return true;
+    }
+
+    /**
+     * Hidden file in the storage directory that a chunked upload appends to. It lives on the
+     * same filesystem as the final location so finalizing is a rename, not a copy.
+     */
+    public Path partialPath(String uploadId) {
+        Path root = rootLocation.toAbsolutePath().normalize();
+        Path partial = root.resolve(".upload-" + uploadId + ".part").normalize();
+        if (!root.equals(partial.getParent())) {
+            throw new RuntimeException("Cannot access file outside current directory");
+        }
+        return partial;
+    }
+
+    /**
+     * Move a completed partial upload to its final name and return that name. In
+     * content-addressed mode an existing blob with the same hash wins and the partial is dropped.
+     */
+    public String commitPartial(Path partial, String extension, String sha256) throws IOException {
+        String filename = contentAddressed
+                ? contentAddressedName(sha256, extension)
+                : UUID.randomUUID().toString() + extension;
+
+        if (contentAddressed && reuse(filename)) {
+            Files.deleteIfExists(partial);
+            return filename;
+        }
+
+        // The partial was last written with the final chunk; the stored file counts as new from now
+        Files.setLastModifiedTime(partial, FileTime.from(Instant.now()));
+        backend.store(filename, partial);
+        publish(new FileStoredEvent(filename));
+        return filename;
+    }
+
+    /**
+     * Hand out an existing content-addressed blob again. Touching it under the name's lock
+     * tells a pending deletion that it is in use, even before the new owner's reference
+     * commits (or when, as for library uploads, there never is one). Returns false when
+     * the blob is not stored and the caller should store it.
+     */
+    private boolean reuse(String filename) throws IOException {
+        ReentrantLock lock = lockFor(filename);
+        lock.lock();
+        try {
+            return backend.touch(filename);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hex SHA-256 of a stored file
+     */
+    public String hash(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Name a blob by its hash; extensions are normalized so ".JPEG" and ".jpg" uploads coincide
+     */
+    public String contentAddressedName(String hash, String extension) {
+        String normalized = extension == null ? "" : extension.toLowerCase(Locale.ROOT);
+        if (normalized.equals(".jpeg")) {
+            normalized = ".jpg";
+        }
+        return hash + normalized;
+    }
+
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Whether files live on the local volume rather than a remote store
+     */
+    public boolean isLocal() {
+        return backend instanceof LocalStorageBackend;
+    }
+
+    /**
+     * Whether new files are written into hash-prefix shard directories
+     */
+    public boolean isSharded() {
+        return backend instanceof LocalStorageBackend local && local.isSharded();
+    }
+
+    /**
+     * Load a file onto the local volume, fetching it into the cache tier first for remote
+     * backends. The path does not exist when the file is not stored; the file stays in
+     * place until the handle is closed.
+     */
+    public LocalFile load(String filename) {
+        try {
+            return backend.load(filename);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to store file", e);
+            throw new RuntimeException("Could not read file: " + filename, e);
         }
     }
 
     /**
-     * Load a file as a Path
+     * Open a stored file for reading; throws NoSuchFileException when it is not stored
+     */
+    public InputStream stream(String filename) throws IOException {
+        return backend.stream(filename);
+    }
+
+    /**
+     * Size and modification time of a stored file, or null when it is not stored
      */
-    public Path load(String filename) {
-        return rootLocation.resolve(filename);
+    public StoredObject stat(String filename) throws IOException {
+        return backend.stat(filename);
     }
 
     /**
-     * Load a file as a Resource
+     * Whether a file with this name is stored
      */
-    public org.springframework.core.io.Resource loadAsResource(String filename) {
+    public boolean exists(String filename) {
         try {
-            Path file = load(filename);
-            org.springframework.core.io.Resource resource = new org.springframework.core.io.UrlResource(file.toUri());
-            if (resource.exists() || resource.isReadable()) {
-                return resource;
-            } else {
-                throw new RuntimeException("Could not read file: " + filename);
-            }
-        } catch (Exception e) {
+            return backend.stat(filename) != null;
+        } catch (IOException e) {
             throw new RuntimeException("Could not read file: " + filename, e);
         }
     }
 
     /**
-     * Delete a file
+     * All stored files; the caller must close the stream
+     */
+    public Stream<StoredObject> list() throws IOException {
+        return backend.list();
+    }
+
+    /**
+     * Move a file from the flat layout into its shard directory. Returns false if it was
+     * already there (same name means same content, so the flat copy is dropped).
+     */
+    public boolean moveToShard(Path flatFile) throws IOException {
+        if (!(backend instanceof LocalStorageBackend local)) {
+            throw new IllegalStateException("Layout migration only applies to local storage");
+        }
+        return local.moveToShard(flatFile);
+    }
+
+    /**
+     * Delete a stored file; returns whether anything was deleted
      */
-    public void delete(String filename) {
+    public boolean delete(String filename) {
         try {
-            Path file = load(filename);
-            Files.deleteIfExists(file);
+            boolean deleted = backend.delete(filename);
+            if (deleted) {
+                publish(new FileDeletedEvent(filename));
+            }
+            return deleted;
         } catch (IOException e) {
             throw new RuntimeException("Failed to delete file", e);
         }
     }
+
+    /**
+     * Delete a file unless it was stored or reused after the cutoff. Runs under the name's
+     * lock, so a concurrent reuse either finds the file gone and stores it again, or
+     * touches it first and the delete keeps it. Returns false when the file was kept;
+     * true when it was deleted or was not stored.
+     */
+    public boolean deleteIfUnusedSince(String filename, Instant cutoff) {
+        ReentrantLock lock = lockFor(filename);
+        lock.lock();
+        try {
+            StoredObject stored = backend.stat(filename);
+            if (stored == null) {
+                return true;
+            }
+            if (stored.lastModified().isAfter(cutoff)) {
+                return false;
+            }
+            if (backend.delete(filename)) {
+                publish(new FileDeletedEvent(filename));
+            }
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete file", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", backend.getClass().getSimpleName());
+        stats.put("contentAddressed", contentAddressed);
+        stats.put("sharded", isSharded());
+        if (backend instanceof CachingStorageBackend cache) {
+            stats.put("cache", cache.getStats());
+        }
+        return stats;
+    }
+
+    private ReentrantLock lockFor(String filename) {
+        return nameLocks[Math.floorMod(filename.hashCode(), nameLocks.length)];
+    }
+
+    private void publish(Object event) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
 }
@@ -0,0 +1,275 @@
+package com.vault.service;
+
+import com.vault.dto.CursorPage;
+import com.vault.dto.KeysetCursor;
+import com.vault.dto.KeysetPaging;
+import com.vault.dto.StoryRequest;
+import com.vault.dto.StoryResponse;
+import com.vault.dto.StorySummary;
+import com.vault.entity.Story;
+import com.vault.entity.StoryTag;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import com.vault.repository.StoryRepository;
+import com.vault.repository.StoryTagRepository;
+import com.vault.validation.StoryValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Stories about items and collections. Feeds are keyset-paginated and read the stored excerpt
+ * rather than the content, so a page costs the same however long the stories are. Tags are
+ * indexed in story_tags, so a tag's feed never scans stories.
+ */
+@Service
+public class StoryService {
+
+    private static final int EXCERPT_LENGTH = 280;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private StoryTagRepository storyTagRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private StoryValidator storyValidator;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Fill in excerpts and the tag index for stories written before they existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            int excerpts = 0;
+            List<String> ids;
+            while (!(ids = storyRepository.findIdsWithoutExcerpt(PageRequest.of(0, BACKFILL_BATCH_SIZE))).isEmpty()) {
+                List<String> batch = ids;
+                transaction.executeWithoutResult(status -> storyRepository.findAllById(batch)
+                        .forEach(story -> storyRepository.updateExcerpt(story.getId(), excerpt(story.getContent()))));
+                excerpts += batch.size();
+            }
+            if (excerpts > 0) {
+                System.err.println("Wrote excerpts for " + excerpts + " stories");
+            }
+            if (storyTagRepository.count() == 0 && storyRepository.findAnyIdWithTags().isPresent()) {
+                System.err.println("Rebuilt story tag index for " + rebuildTagIndex() + " stories");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to backfill stories: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild story_tags from the stories' tags, a batch of stories per transaction. Each batch
+     * replaces only its own stories' rows, so tag feeds stay complete while it runs; rows of
+     * deleted stories already went with them. Returns the number of stories indexed.
+     */
+    public int rebuildTagIndex() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Pageable batch = PageRequest.of(0, BACKFILL_BATCH_SIZE);
+        int indexed = 0;
+        KeysetCursor after = null;
+        while (true) {
+            KeysetCursor from = after;
+            List<StorySummary> stories = transaction.execute(status -> {
+                List<StorySummary> rows = from == null
+                        ? storyRepository.findFirstPage(batch)
+                        : storyRepository.findPageAfter(from.getTimestamp(), from.getId(), batch);
+                storyTagRepository.deleteByStoryIds(rows.stream().map(StorySummary::getId).toList());
+                rows.forEach(story -> storyTagRepository.saveAll(tagRows(story.getId(), story.getCreatedAt(), story.getTags())));
+                return rows;
+            });
+            indexed += stories.size();
+            if (stories.size() < BACKFILL_BATCH_SIZE) {
+                return indexed;
+            }
+            StorySummary last = stories.get(stories.size() - 1);
+            after = new KeysetCursor(last.getCreatedAt(), last.getId());
+        }
+    }
+
+    @Transactional
+    public StoryResponse createStory(StoryRequest request) {
+        storyValidator.validateRequest(request);
+        Story story = new Story();
+        apply(story, request);
+        Story savedStory = storyRepository.save(story);
+        storyTagRepository.saveAll(tagRows(savedStory.getId(), savedStory.getCreatedAt(), savedStory.getTags()));
+        searchIndexService.indexStory(savedStory);
+        return new StoryResponse(savedStory);
+    }
+
+    @Transactional
+    public StoryResponse updateStory(String id, StoryRequest request) {
+        storyValidator.validateRequest(request);
+        Story story = storyRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Story not found with id: " + id));
+        apply(story, request);
+        Story updatedStory = storyRepository.save(story);
+        storyTagRepository.deleteByStoryIds(List.of(id));
+        storyTagRepository.saveAll(tagRows(id, updatedStory.getCreatedAt(), updatedStory.getTags()));
+        searchIndexService.indexStory(updatedStory);
+        return new StoryResponse(updatedStory);
+    }
+
+    @Transactional
+    public void deleteStory(String id) {
+        Story story = storyRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Story not found with id: " + id));
+        // Tag rows go with the story (ON DELETE CASCADE)
+        storyRepository.delete(story);
+        searchIndexService.removeStories(List.of(id));
+    }
+
+    @Transactional(readOnly = true)
+    public StoryResponse findById(String id) {
+        return storyRepository.findById(id)
+                .map(StoryResponse::new)
+                .orElseThrow(() -> new IllegalArgumentException("Story not found with id: " + id));
+    }
+
+    /**
+     * One page of stories, newest first: all of them, or those with a tag, about an item or
+     * about a collection (at most one of the three)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<StorySummary> findPage(String tag, String itemId, String collectionId, String cursor, Integer limit) {
+        int filters = (tag != null ? 1 : 0) + (itemId != null ? 1 : 0) + (collectionId != null ? 1 : 0);
+        if (filters > 1) {
+            throw new IllegalArgumentException("Use only one of tag, itemId and collectionId");
+        }
+        if (tag != null) {
+            String key = normalizeTag(tag);
+            return feedPage(cursor, limit,
+                    pageable -> storyRepository.findFirstPageByTag(key, pageable),
+                    (after, pageable) -> storyRepository.findPageByTagAfter(key, after.getTimestamp(), after.getId(), pageable));
+        }
+        if (itemId != null) {
+            return feedPage(cursor, limit,
+                    pageable -> storyRepository.findFirstPageByItemId(itemId, pageable),
+                    (after, pageable) -> storyRepository.findPageByItemIdAfter(itemId, after.getTimestamp(), after.getId(), pageable));
+        }
+        if (collectionId != null) {
+            return feedPage(cursor, limit,
+                    pageable -> storyRepository.findFirstPageByCollectionId(collectionId, pageable),
+                    (after, pageable) -> storyRepository.findPageByCollectionIdAfter(collectionId, after.getTimestamp(), after.getId(), pageable));
+        }
+        return feedPage(cursor, limit, storyRepository::findFirstPage,
+                (after, pageable) -> storyRepository.findPageAfter(after.getTimestamp(), after.getId(), pageable));
+    }
+
+    /**
+     * Every tag with its number of stories, most used first
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findTags() {
+        List<Map<String, Object>> tags = new ArrayList<>();
+        for (Object[] row : storyTagRepository.countByTag()) {
+            Map<String, Object> tag = new LinkedHashMap<>();
+            tag.put("tag", row[0]);
+            tag.put("count", row[1]);
+            tags.add(tag);
+        }
+        return tags;
+    }
+
+    /**
+     * The content's opening as plain text, cut at a word boundary
+     */
+    static String excerpt(String content) {
+        String text = WHITESPACE.matcher(content == null ? "" : content).replaceAll(" ").trim();
+        if (text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+        int cut = text.lastIndexOf(' ', EXCERPT_LENGTH);
+        if (cut < EXCERPT_LENGTH / 2) {
+            cut = Character.isHighSurrogate(text.charAt(EXCERPT_LENGTH - 1)) ? EXCERPT_LENGTH - 1 : EXCERPT_LENGTH;
+        }
+        return text.substring(0, cut).stripTrailing() + "…";
+    }
+
+    private void apply(Story story, StoryRequest request) {
+        if (request.getItemId() != null && !itemRepository.existsById(request.getItemId())) {
+            throw new IllegalArgumentException("Item not found with id: " + request.getItemId());
+        }
+        if (request.getCollectionId() != null && !collectionRepository.existsById(request.getCollectionId())) {
+            throw new IllegalArgumentException("Collection not found with id: " + request.getCollectionId());
+        }
+        story.setTitle(request.getTitle().trim());
+        story.setContent(request.getContent());
+        story.setExcerpt(excerpt(request.getContent()));
+        story.setItemId(request.getItemId());
+        story.setCollectionId(request.getCollectionId());
+        story.setCoverImage(request.getCoverImage());
+        story.setTags(cleanTags(request.getTags()));
+    }
+
+    private List<String> cleanTags(List<String> tags) {
+        if (tags == null) {
+            return null;
+        }
+        Set<String> cleaned = new LinkedHashSet<>();
+        for (String tag : tags) {
+            if (tag != null && !tag.isBlank()) {
+                cleaned.add(tag.trim());
+            }
+        }
+        return new ArrayList<>(cleaned);
+    }
+
+    private List<StoryTag> tagRows(String storyId, LocalDateTime createdAt, List<String> tags) {
+        if (tags == null) {
+            return List.of();
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        tags.forEach(tag -> keys.add(normalizeTag(tag)));
+        keys.remove("");
+        return keys.stream().map(key -> new StoryTag(key, storyId, createdAt)).toList();
+    }
+
+    private String normalizeTag(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private CursorPage<StorySummary> feedPage(String cursor, Integer limit,
+                                              Function<Pageable, List<StorySummary>> firstPage,
+                                              BiFunction<KeysetCursor, Pageable, List<StorySummary>> pageAfter) {
+        return KeysetPaging.page(cursor, limit, firstPage, pageAfter, story -> new KeysetCursor(story.getCreatedAt(), story.getId()));
+    }
+}
@@ -0,0 +1,371 @@
+package com.vault.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded local read-through cache in front of a remote {@link ObjectStore}. Reads
+ * fetch the file into the cache directory once and serve it from disk afterwards; least
+ * recently used files are removed once the cache exceeds its byte budget. Writes go to the
+ * remote store first and keep a local copy, so a freshly uploaded image is already hot.
+ * Files handed out by {@link #load} are pinned until their handle is closed; eviction
+ * skips pinned files, so a reader never loses a file between loading and opening it.
+ */
+public class CachingStorageBackend implements StorageBackend {
+
+    private final ObjectStore remote;
+    private final Path cacheLocation;
+    private final long maxBytes;
+
+    // filename -> size, in access order; guarded by itself
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    // filename -> open handles; guarded by index
+    private final Map<String, Integer> pins = new HashMap<>();
+
+    // One download per file at a time; concurrent readers wait for it and complete with whether it was stored
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingStorageBackend(ObjectStore remote, Path cacheLocation, long maxBytes) {
+        this.remote = remote;
+        this.cacheLocation = cacheLocation;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(cacheLocation);
+            loadIndex();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize storage cache", e);
+        }
+    }
+
+    @Override
+    public void store(String filename, Path source) throws IOException {
+        Path cached = cachePath(filename);
+        boolean keptLocal = keepLocalCopy(source, cached);
+        try {
+            remote.store(filename, source);
+        } catch (IOException | RuntimeException e) {
+            // Never serve bytes the remote store does not have
+            if (keptLocal) {
+                Files.deleteIfExists(cached);
+            }
+            throw e;
+        }
+        if (keptLocal) {
+            admit(filename, Files.size(cached), false);
+        }
+    }
+
+    @Override
+    public LocalFile load(String filename) throws IOException {
+        Path cached = cachePath(filename);
+        while (true) {
+            LocalFile pinned = pin(filename, cached);
+            if (pinned != null) {
+                hits.incrementAndGet();
+                return pinned;
+            }
+
+            CompletableFuture<Boolean> download = new CompletableFuture<>();
+            CompletableFuture<Boolean> existing = inFlight.putIfAbsent(filename, download);
+            if (existing != null) {
+                if (!await(existing)) {
+                    return () -> cached;
+                }
+                // Pin the copy the other reader fetched, or fetch again if it was already evicted
+                continue;
+            }
+
+            try {
+                // Another reader may have finished the download since the first check
+                pinned = pin(filename, cached);
+                if (pinned != null) {
+                    hits.incrementAndGet();
+                    download.complete(true);
+                    return pinned;
+                }
+                misses.incrementAndGet();
+                boolean stored = fetch(filename, cached);
+                download.complete(stored);
+                return stored ? new PinnedFile(filename, cached) : () -> cached;
+            } catch (IOException | RuntimeException e) {
+                download.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(filename, download);
+            }
+        }
+    }
+
+    @Override
+    public InputStream stream(String filename) throws IOException {
+        // An open stream keeps reading the bytes even if the cached file is evicted afterwards
+        try (LocalFile file = load(filename)) {
+            if (!Files.exists(file.path())) {
+                throw new NoSuchFileException(filename);
+            }
+            return Files.newInputStream(file.path());
+        }
+    }
+
+    @Override
+    public StoredObject stat(String filename) throws IOException {
+        // A cached copy's timestamps are those of the download, not of the stored object
+        return remote.stat(filename);
+    }
+
+    @Override
+    public boolean copy(String sourceFilename, String filename) throws IOException {
+        return remote.copy(sourceFilename, filename);
+    }
+
+    @Override
+    public boolean touch(String filename) throws IOException {
+        return remote.touch(filename);
+    }
+
+    @Override
+    public boolean delete(String filename) throws IOException {
+        boolean deleted = remote.delete(filename);
+        evict(filename);
+        return deleted;
+    }
+
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        return remote.list();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (index) {
+            stats.put("entries", index.size());
+            stats.put("bytes", currentBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    /**
+     * Download a file into the cache and admit it pinned; returns false when it is not stored
+     */
+    private boolean fetch(String filename, Path cached) throws IOException {
+        Path temp = Files.createTempFile(cacheLocation, ".fetch-", ".tmp");
+        try {
+            try (InputStream inputStream = remote.stream(filename)) {
+                Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException e) {
+                // Not stored; callers see a path that does not exist
+                return false;
+            }
+            try {
+                Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING);
+            }
+            admit(filename, Files.size(cached), true);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Hard-link the staged upload into the cache before the remote store consumes it
+     */
+    private boolean keepLocalCopy(Path source, Path cached) {
+        try {
+            Files.createLink(cached, source);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            // Same name means same content
+            return false;
+        } catch (UnsupportedOperationException | IOException e) {
+            try {
+                Files.copy(source, cached);
+                return true;
+            } catch (IOException copyFailed) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Add a file to the index, optionally pinning it in the same step, and evict least
+     * recently used files until the cache is back within budget. Pinned files are skipped,
+     * so the cache may run over budget while many large files are being read.
+     */
+    private void admit(String filename, long size, boolean pin) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (index) {
+            Long previous = index.put(filename, size);
+            currentBytes += size - (previous == null ? 0 : previous);
+            if (pin) {
+                pins.merge(filename, 1, Integer::sum);
+            }
+
+            Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+            while (currentBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                if (eldest.getKey().equals(filename) || pins.containsKey(eldest.getKey())) {
+                    continue;
+                }
+                currentBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        for (String name : evicted) {
+            deleteQuietly(name);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void evict(String filename) {
+        synchronized (index) {
+            Long size = index.remove(filename);
+            if (size != null) {
+                currentBytes -= size;
+            }
+        }
+        deleteQuietly(filename);
+    }
+
+    /**
+     * Mark a cached file as recently used and pin it; returns null when it is not cached
+     */
+    private LocalFile pin(String filename, Path cached) {
+        synchronized (index) {
+            if (index.get(filename) == null) {
+                return null;
+            }
+            pins.merge(filename, 1, Integer::sum);
+        }
+        if (Files.exists(cached)) {
+            return new PinnedFile(filename, cached);
+        }
+        // Removed from disk behind the index's back; drop the entry and fetch again
+        unpin(filename);
+        evict(filename);
+        return null;
+    }
+
+    private void unpin(String filename) {
+        synchronized (index) {
+            pins.computeIfPresent(filename, (name, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Handle on a pinned cache file; closing it more than once releases the pin only once
+     */
+    private final class PinnedFile implements LocalFile {
+
+        private final String filename;
+        private final Path path;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        PinnedFile(String filename, Path path) {
+            this.filename = filename;
+            this.path = path;
+        }
+
+        @Override
+        public Path path() {
+            return path;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                unpin(filename);
+            }
+        }
+    }
+
+    private void deleteQuietly(String filename) {
+        try {
+            Files.deleteIfExists(cachePath(filename));
+        } catch (IOException e) {
+            System.err.println("Failed to remove cached file " + filename + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index from disk, oldest access first, so a restart keeps the warm set
+     */
+    private void loadIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(cacheLocation)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .sorted(Comparator.comparingLong(CachingStorageBackend::lastAccess))
+                    .toList();
+        }
+        for (Path path : files) {
+            admit(path.getFileName().toString(), Files.size(path), false);
+        }
+    }
+
+    private static long lastAccess(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).lastAccessTime().toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean await(CompletableFuture<Boolean> download) throws IOException {
+        try {
+            return download.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        }
+    }
+
+    private Path cachePath(String filename) {
+        Path root = cacheLocation.toAbsolutePath().normalize();
+        Path file = root.resolve(filename).normalize();
+
+        // Security check: ensure file is directly within the cache directory
+        if (!root.equals(file.getParent()) || filename.startsWith(".")) {
+            throw new RuntimeException("Cannot access file outside current directory");
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,233 @@
+package com.vault.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Files on a local volume, either directly under the root (flat) or under two levels
+ * of hash-prefix directories (sharded). In the sharded layout, files not yet migrated
+ * are still found at their flat location.
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path rootLocation;
+
+    // When enabled, files live under two levels of hash-prefix directories (ab/cd/<name>)
+    private final boolean sharded;
+
+    public LocalStorageBackend(Path rootLocation, boolean sharded) {
+        this.rootLocation = rootLocation;
+        this.sharded = sharded;
+        try {
+            Files.createDirectories(rootLocation);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize storage", e);
+        }
+    }
+
+    public Path getRootLocation() {
+        return rootLocation;
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    @Override
+    public void store(String filename, Path source) throws IOException {
+        Path destinationFile = resolveForWrite(filename);
+        try {
+            // Atomic rename: a concurrent store of the same name either wins or replaces identical bytes
+            Files.move(source, destinationFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    /**
+     * Files are only removed by {@link #delete}, so the handle holds nothing
+     */
+    @Override
+    public LocalFile load(String filename) {
+        Path path = resolve(filename);
+        return () -> path;
+    }
+
+    /**
+     * Where the file is, or where it would be in the current layout when it is not stored
+     */
+    public Path resolve(String filename) {
+        Path flat = flatPath(filename);
+        if (!sharded) {
+            return flat;
+        }
+
+        Path shardedFile = shardedPath(filename);
+        if (Files.exists(shardedFile)) {
+            return shardedFile;
+        }
+        if (Files.exists(flat)) {
+            return flat;
+        }
+        // Either missing, or the migration moved it between the two checks
+        return shardedFile;
+    }
+
+    @Override
+    public InputStream stream(String filename) throws IOException {
+        return Files.newInputStream(resolve(filename));
+    }
+
+    @Override
+    public StoredObject stat(String filename) throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(resolve(filename), BasicFileAttributes.class);
+            return new StoredObject(filename, attrs.size(), attrs.lastModifiedTime().toInstant());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hard-links when the filesystem allows it, so the second name costs no space
+     */
+    @Override
+    public boolean copy(String sourceFilename, String filename) throws IOException {
+        Path source = resolve(sourceFilename);
+        if (!Files.exists(source)) {
+            throw new NoSuchFileException(sourceFilename);
+        }
+        if (Files.exists(resolve(filename))) {
+            return false;
+        }
+        Path target = resolveForWrite(filename);
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (UnsupportedOperationException | IOException e) {
+            try {
+                Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+            } catch (FileAlreadyExistsException alreadyExists) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean touch(String filename) throws IOException {
+        try {
+            Files.setLastModifiedTime(resolve(filename), FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(String filename) throws IOException {
+        boolean deleted = Files.deleteIfExists(flatPath(filename));
+        if (sharded) {
+            deleted |= Files.deleteIfExists(shardedPath(filename));
+        }
+        return deleted;
+    }
+
+    /**
+     * All stored files in either layout; hidden staging files are skipped
+     */
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        return Files.walk(rootLocation, 3)
+                .filter(Files::isRegularFile)
+                .filter(path -> !path.getFileName().toString().startsWith("."))
+                .map(path -> {
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                        return new StoredObject(path.getFileName().toString(), attrs.size(), attrs.lastModifiedTime().toInstant());
+                    } catch (IOException e) {
+                        // Removed while walking
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Path a new file with this name should be written to, creating shard directories as needed
+     */
+    public Path resolveForWrite(String filename) throws IOException {
+        if (!sharded) {
+            return flatPath(filename);
+        }
+        Path shardedFile = shardedPath(filename);
+        Files.createDirectories(shardedFile.getParent());
+        return shardedFile;
+    }
+
+    /**
+     * Move a file from the flat layout into its shard directory. Returns false if it was
+     * already there (same name means same content, so the flat copy is dropped).
+     */
+    public boolean moveToShard(Path flatFile) throws IOException {
+        String filename = flatFile.getFileName().toString();
+        Path shardedFile = shardedPath(filename);
+        Files.createDirectories(shardedFile.getParent());
+        try {
+            Files.move(flatFile, shardedFile, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(flatFile);
+            return false;
+        }
+    }
+
+    /**
+     * Resolve a name directly under the root, rejecting anything that escapes it
+     */
+    public Path flatPath(String filename) {
+        Path root = rootLocation.toAbsolutePath().normalize();
+        Path file = root.resolve(filename).normalize();
+
+        // Security check: ensure file is directly within root location
+        if (!root.equals(file.getParent())) {
+            throw new RuntimeException("Cannot access file outside current directory");
+        }
+
+        return file;
+    }
+
+    /**
+     * Two-level fan-out keyed by a hash of the name, so any naming scheme spreads evenly
+     */
+    private Path shardedPath(String filename) {
+        Path root = flatPath(filename).getParent();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(filename.getBytes(StandardCharsets.UTF_8));
+            String hash = HexFormat.of().formatHex(digest);
+            return root.resolve(hash.substring(0, 2))
+                    .resolve(hash.substring(2, 4))
+                    .resolve(filename);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.vault.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Operations every store of original media supports, including remote ones that cannot
+ * hand out local paths. Files are immutable once stored and addressed by a flat filename.
+ */
+public interface ObjectStore {
+
+    /**
+     * Size and modification time of a stored file
+     */
+    record StoredObject(String filename, long size, Instant lastModified) {
+    }
+
+    /**
+     * Store the content of a finished local file under the given name. The store takes
+     * ownership of the source: it is moved into place or removed once written.
+     */
+    void store(String filename, Path source) throws IOException;
+
+    /**
+     * Open the file for reading; throws NoSuchFileException when it is not stored
+     */
+    InputStream stream(String filename) throws IOException;
+
+    /**
+     * Size and modification time, or null when the file is not stored
+     */
+    StoredObject stat(String filename) throws IOException;
+
+    /**
+     * Make an existing file's content available under a second name. Returns false when
+     * the target name is already taken.
+     */
+    boolean copy(String sourceFilename, String filename) throws IOException;
+
+    /**
+     * Move a stored file's modification time to now, marking it as just used. Returns
+     * false when the file is not stored.
+     */
+    boolean touch(String filename) throws IOException;
+
+    /**
+     * Delete a file; returns whether anything was deleted
+     */
+    boolean delete(String filename) throws IOException;
+
+    /**
+     * Every stored file; the caller must close the stream
+     */
+    Stream<StoredObject> list() throws IOException;
+}
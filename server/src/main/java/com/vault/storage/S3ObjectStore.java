@@ -0,0 +1,378 @@
+package com.vault.storage;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Files in an S3-compatible bucket (AWS S3, MinIO, R2, ...), addressed path-style as
+ * endpoint/bucket/prefix+filename. Requests are signed with AWS Signature V4 using the
+ * JDK HTTP client, so no SDK is needed. A bucket cannot hand out local paths, so this is
+ * an {@link ObjectStore} rather than a {@link StorageBackend}; it is deployed behind
+ * {@link CachingStorageBackend}.
+ */
+public class S3ObjectStore implements ObjectStore {
+
+    private static final String EMPTY_PAYLOAD_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    // Uploads stream the file as-is rather than reading it twice to hash the payload
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final String prefix;
+
+    public S3ObjectStore(String endpoint, String region, String bucket,
+                            String accessKey, String secretKey, String prefix) {
+        if (endpoint == null || endpoint.isBlank() || bucket == null || bucket.isBlank()) {
+            throw new IllegalArgumentException("storage.s3.endpoint and storage.s3.bucket are required");
+        }
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.prefix = prefix == null ? "" : prefix;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public void store(String filename, Path source) throws IOException {
+        HttpResponse<String> response = send("PUT", objectPath(filename), Map.of(), Map.of(),
+                UNSIGNED_PAYLOAD, HttpRequest.BodyPublishers.ofFile(source), HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "PUT " + filename);
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public InputStream stream(String filename) throws IOException {
+        HttpResponse<InputStream> response = send("GET", objectPath(filename), Map.of(), Map.of(),
+                EMPTY_PAYLOAD_HASH, HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 404) {
+            response.body().close();
+            throw new NoSuchFileException(filename);
+        }
+        if (response.statusCode() / 100 != 2) {
+            String error = new String(response.body().readAllBytes(), StandardCharsets.UTF_8);
+            response.body().close();
+            throw new IOException("GET " + filename + " failed with status " + response.statusCode() + ": " + error);
+        }
+        return response.body();
+    }
+
+    @Override
+    public StoredObject stat(String filename) throws IOException {
+        HttpResponse<Void> response = send("HEAD", objectPath(filename), Map.of(), Map.of(),
+                EMPTY_PAYLOAD_HASH, HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HEAD " + filename + " failed with status " + response.statusCode());
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        Instant lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+                .orElse(Instant.EPOCH);
+        return new StoredObject(filename, size, lastModified);
+    }
+
+    /**
+     * Server-side copy; the bytes never pass through this node
+     */
+    @Override
+    public boolean copy(String sourceFilename, String filename) throws IOException {
+        if (stat(filename) != null) {
+            return false;
+        }
+        if (stat(sourceFilename) == null) {
+            throw new NoSuchFileException(sourceFilename);
+        }
+        HttpResponse<String> response = send("PUT", objectPath(filename), Map.of(),
+                Map.of("x-amz-copy-source", encode(objectPath(sourceFilename), false)),
+                EMPTY_PAYLOAD_HASH, HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "COPY " + sourceFilename);
+        // S3 can report a failed copy in the body of a 200 response
+        if (response.body() != null && response.body().contains("<Error>")) {
+            throw new IOException("COPY " + sourceFilename + " failed: " + response.body());
+        }
+        return true;
+    }
+
+    /**
+     * S3 cannot set a modification time directly; copying an object onto itself with
+     * replaced metadata gives it a new one without moving the bytes through this node
+     */
+    @Override
+    public boolean touch(String filename) throws IOException {
+        HttpResponse<String> response = send("PUT", objectPath(filename), Map.of(),
+                Map.of("x-amz-copy-source", encode(objectPath(filename), false),
+                        "x-amz-metadata-directive", "REPLACE"),
+                EMPTY_PAYLOAD_HASH, HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        expectSuccess(response, "TOUCH " + filename);
+        if (response.body() != null && response.body().contains("<Error>")) {
+            throw new IOException("TOUCH " + filename + " failed: " + response.body());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean delete(String filename) throws IOException {
+        // DELETE succeeds whether or not the key existed, so check first to report accurately
+        if (stat(filename) == null) {
+            return false;
+        }
+        HttpResponse<String> response = send("DELETE", objectPath(filename), Map.of(), Map.of(),
+                EMPTY_PAYLOAD_HASH, HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "DELETE " + filename);
+        return true;
+    }
+
+    /**
+     * Every object under the prefix. Pages are fetched as the stream is consumed, following
+     * ListObjectsV2 continuation tokens, so only one page is held at a time; a failure on a
+     * later page surfaces as an UncheckedIOException.
+     */
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        ListPage first = listPage(null);
+        Iterator<StoredObject> objects = new Iterator<>() {
+            private ListPage page = first;
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (next == page.objects().size() && page.continuationToken() != null) {
+                    try {
+                        page = listPage(page.continuationToken());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    next = 0;
+                }
+                return next < page.objects().size();
+            }
+
+            @Override
+            public StoredObject next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.objects().get(next++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(objects, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private record ListPage(List<StoredObject> objects, String continuationToken) {
+    }
+
+    private ListPage listPage(String continuationToken) throws IOException {
+        SortedMap<String, String> query = new TreeMap<>();
+        query.put("list-type", "2");
+        if (!prefix.isEmpty()) {
+            query.put("prefix", prefix);
+        }
+        if (continuationToken != null) {
+            query.put("continuation-token", continuationToken);
+        }
+        HttpResponse<byte[]> response = send("GET", "/" + bucket, query, Map.of(),
+                EMPTY_PAYLOAD_HASH, HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("LIST failed with status " + response.statusCode());
+        }
+
+        Element result = parseXml(response.body());
+        NodeList contents = result.getElementsByTagName("Contents");
+        List<StoredObject> objects = new ArrayList<>(contents.getLength());
+        for (int i = 0; i < contents.getLength(); i++) {
+            Element entry = (Element) contents.item(i);
+            String key = text(entry, "Key");
+            String filename = key.substring(prefix.length());
+            // Only flat names are media files
+            if (filename.isEmpty() || filename.contains("/")) {
+                continue;
+            }
+            objects.add(new StoredObject(filename,
+                    Long.parseLong(text(entry, "Size")),
+                    Instant.parse(text(entry, "LastModified"))));
+        }
+
+        String next = "true".equals(text(result, "IsTruncated")) ? text(result, "NextContinuationToken") : null;
+        return new ListPage(objects, next);
+    }
+
+    private String objectPath(String filename) {
+        if (filename.isEmpty() || filename.contains("/") || filename.contains("\\") || filename.startsWith(".")) {
+            throw new RuntimeException("Cannot access file outside current directory");
+        }
+        return "/" + bucket + "/" + prefix + filename;
+    }
+
+    private <T> HttpResponse<T> send(String method, String path, Map<String, String> query,
+                                     Map<String, String> extraHeaders, String payloadHash,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler) throws IOException {
+        String rawPath = endpoint.getRawPath() + encode(path, false);
+        String rawQuery = new TreeMap<>(query).entrySet().stream()
+                .map(entry -> encode(entry.getKey(), true) + "=" + encode(entry.getValue(), true))
+                .collect(Collectors.joining("&"));
+        URI uri = URI.create(endpoint.getScheme() + "://" + endpoint.getRawAuthority() + rawPath
+                + (rawQuery.isEmpty() ? "" : "?" + rawQuery));
+
+        String amzDate = AMZ_DATE.format(Instant.now());
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("host", uri.getRawAuthority());
+        headers.put("x-amz-content-sha256", payloadHash);
+        headers.put("x-amz-date", amzDate);
+        extraHeaders.forEach((name, value) -> headers.put(name.toLowerCase(), value));
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(5))
+                .method(method, body)
+                .header("Authorization", authorization(method, rawPath, rawQuery, headers, payloadHash, amzDate));
+        // The client sets Host itself
+        headers.forEach((name, value) -> {
+            if (!name.equals("host")) {
+                request.header(name, value);
+            }
+        });
+
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during " + method + " " + path, e);
+        }
+    }
+
+    /**
+     * AWS Signature V4 Authorization header for a request
+     */
+    String authorization(String method, String rawPath, String rawQuery,
+                         SortedMap<String, String> headers, String payloadHash, String amzDate) {
+        String canonicalHeaders = headers.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue().trim() + "\n")
+                .collect(Collectors.joining());
+        String signedHeaders = String.join(";", headers.keySet());
+        String canonicalRequest = method + "\n" + rawPath + "\n" + rawQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+                + HexFormat.of().formatHex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders
+                + ", Signature=" + signature;
+    }
+
+    /**
+     * RFC 3986 percent-encoding as S3 canonicalizes it; slashes are kept in paths
+     */
+    private static String encode(String value, boolean encodeSlash) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static void expectSuccess(HttpResponse<String> response, String operation) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(operation + " failed with status " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static Element parseXml(byte[] body) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(body));
+            return document.getDocumentElement();
+        } catch (Exception e) {
+            throw new IOException("Unreadable listing response: " + e.getMessage(), e);
+        }
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
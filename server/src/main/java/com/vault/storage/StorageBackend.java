@@ -0,0 +1,32 @@
+package com.vault.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where original media bytes live, as seen by the rest of the app. Beyond the
+ * {@link ObjectStore} operations, every backend can hand out a local path to a stored
+ * file; remote stores are deployed behind {@link CachingStorageBackend} to do so.
+ * Callers stage new content in a local file and hand it to {@link #store}.
+ */
+public interface StorageBackend extends ObjectStore {
+
+    /**
+     * A stored file's bytes on the local volume. The file stays at {@link #path()} until
+     * the handle is closed; a cache tier may remove it any time after that.
+     */
+    interface LocalFile extends AutoCloseable {
+
+        Path path();
+
+        @Override
+        default void close() {
+        }
+    }
+
+    /**
+     * A local copy of the file's bytes, fetching it first if the backend is remote. The
+     * path does not exist when the file is not stored. Close the handle once done reading.
+     */
+    LocalFile load(String filename) throws IOException;
+}
@@ -0,0 +1,38 @@
+package com.vault.validation;
+
+import com.vault.dto.StoryRequest;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StoryValidator {
+
+    private static final int MAX_TAGS = 20;
+    private static final int MAX_TAG_LENGTH = 100;
+
+    public void validateRequest(StoryRequest request) {
+        // Validate title
+        if (request.getTitle() == null || request.getTitle().trim().isEmpty()) {
+            throw new IllegalArgumentException("Story title is required");
+        }
+        if (request.getTitle().length() > 255) {
+            throw new IllegalArgumentException("Story title must be at most 255 characters");
+        }
+
+        // Validate content
+        if (request.getContent() == null || request.getContent().trim().isEmpty()) {
+            throw new IllegalArgumentException("Story content is required");
+        }
+
+        // Validate tags
+        if (request.getTags() != null) {
+            if (request.getTags().size() > MAX_TAGS) {
+                throw new IllegalArgumentException("A story can have at most " + MAX_TAGS + " tags");
+            }
+            for (String tag : request.getTags()) {
+                if (tag != null && tag.trim().length() > MAX_TAG_LENGTH) {
+                    throw new IllegalArgumentException("Tags must be at most " + MAX_TAG_LENGTH + " characters");
+                }
+            }
+        }
+    }
+}
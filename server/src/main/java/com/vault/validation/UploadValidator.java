@@ -0,0 +1,38 @@
+package com.vault.validation;
+
+import com.vault.dto.CreateUploadRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UploadValidator {
+
+    @Value("${uploads.max-file-bytes:536870912}")
+    private long maxFileBytes;
+
+    public void validateCreateRequest(CreateUploadRequest request) {
+        // Validate filename
+        if (request.getFilename() == null || request.getFilename().trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename is required");
+        }
+
+        // Validate size
+        if (request.getSize() == null || request.getSize() <= 0) {
+            throw new IllegalArgumentException("File size is required");
+        }
+        if (request.getSize() > maxFileBytes) {
+            throw new IllegalArgumentException("File must be less than " + (maxFileBytes / (1024 * 1024)) + "MB");
+        }
+
+        // Validate file type
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("Upload must be an image file");
+        }
+
+        // Validate checksum format if provided
+        if (request.getSha256() != null && !request.getSha256().matches("(?i)[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("sha256 must be 64 hex characters");
+        }
+    }
+}
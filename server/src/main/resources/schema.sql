@@ -10,8 +10,11 @@ CREATE TABLE IF NOT EXISTS collections (
     aspect_ratio VARCHAR(20) NOT NULL,
     metadata JSON,
     item_categories JSON COMMENT 'Optional array of category names for items in this collection',
+    item_count INT NOT NULL DEFAULT 0 COMMENT 'Maintained on item writes; rebuilt by the nightly repair',
+    items_updated_at DATETIME COMMENT 'Last time an item was added, changed, moved or removed',
     INDEX idx_created_at (created_at),
-    INDEX idx_name (name)
+    INDEX idx_name (name),
+    INDEX idx_cover_photo (cover_photo)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Table: items
@@ -24,10 +27,20 @@ CREATE TABLE IF NOT EXISTS items (
     uploaded_at DATETIME NOT NULL,
     metadata JSON,
     category VARCHAR(100) COMMENT 'Optional category assignment for this item',
+    image_hash BIGINT COMMENT 'Perceptual (difference) hash of the image for near-duplicate lookups',
+    meta_grade VARCHAR(191) AS (LEFT(JSON_UNQUOTE(JSON_EXTRACT(metadata, '$.grade')), 191)) VIRTUAL,
+    meta_set VARCHAR(191) AS (LEFT(JSON_UNQUOTE(JSON_EXTRACT(metadata, '$.set')), 191)) VIRTUAL,
+    meta_year VARCHAR(191) AS (LEFT(JSON_UNQUOTE(JSON_EXTRACT(metadata, '$.year')), 191)) VIRTUAL,
     INDEX idx_collection_id (collection_id),
     INDEX idx_uploaded_at (uploaded_at),
     INDEX idx_title (title),
     INDEX idx_category (category),
+    INDEX idx_filename (filename),
+    INDEX idx_collection_uploaded_at (collection_id, uploaded_at, id),
+    INDEX idx_collection_category (collection_id, category),
+    INDEX idx_collection_meta_grade (collection_id, meta_grade, uploaded_at),
+    INDEX idx_collection_meta_set (collection_id, meta_set, uploaded_at),
+    INDEX idx_collection_meta_year (collection_id, meta_year, uploaded_at),
     FOREIGN KEY (collection_id) REFERENCES collections(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -42,6 +55,7 @@ CREATE TABLE IF NOT EXISTS stories (
     collection_id VARCHAR(36),
     cover_image VARCHAR(255),
     tags JSON,
+    excerpt VARCHAR(320) COMMENT 'Plain-text opening of content for feeds, written with the story',
     INDEX idx_created_at (created_at),
     INDEX idx_title (title),
     INDEX idx_item_id (item_id),
@@ -49,3 +63,160 @@ CREATE TABLE IF NOT EXISTS stories (
     FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE SET NULL,
     FOREIGN KEY (collection_id) REFERENCES collections(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: jobs
+-- Durable background work (e.g. derivative pre-generation), claimed by the job worker pool
+CREATE TABLE IF NOT EXISTS jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    dedupe_key VARCHAR(255) NOT NULL COMMENT 'Idempotency key; a job is only enqueued once per key',
+    payload JSON,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_run_at DATETIME NOT NULL,
+    locked_at DATETIME,
+    last_error VARCHAR(1000),
+    created_at DATETIME NOT NULL,
+    updated_at DATETIME,
+    UNIQUE INDEX idx_dedupe_key (dedupe_key),
+    INDEX idx_status_next_run_at (status, next_run_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: media_files
+-- Inventory of stored files, kept in step with storage writes and reconciled against disk
+CREATE TABLE IF NOT EXISTS media_files (
+    filename VARCHAR(255) PRIMARY KEY,
+    size BIGINT NOT NULL,
+    content_type VARCHAR(100),
+    created_at DATETIME NOT NULL,
+    INDEX idx_size (size),
+    INDEX idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Upgrades for databases created before the indexes above existed.
+-- MySQL has no CREATE INDEX IF NOT EXISTS, so each statement is built conditionally.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'items' AND index_name = 'idx_filename') = 0,
+              'CREATE INDEX idx_filename ON items (filename)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'collections' AND index_name = 'idx_cover_photo') = 0,
+              'CREATE INDEX idx_cover_photo ON collections (cover_photo)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Keyset pages within a collection seek on (collection_id, uploaded_at, id). Global item and
+-- collection pages use idx_uploaded_at / idx_created_at, which InnoDB already suffixes with id.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'items' AND index_name = 'idx_collection_uploaded_at') = 0,
+              'CREATE INDEX idx_collection_uploaded_at ON items (collection_id, uploaded_at, id)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Maintained item counts; existing collections are counted once when the column is added
+SET @needs_item_count = (SELECT COUNT(*) FROM information_schema.columns
+                         WHERE table_schema = DATABASE() AND table_name = 'collections' AND column_name = 'item_count') = 0;
+SET @ddl = IF(@needs_item_count,
+              'ALTER TABLE collections ADD COLUMN item_count INT NOT NULL DEFAULT 0, ADD COLUMN items_updated_at DATETIME', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @ddl = IF(@needs_item_count,
+              'UPDATE collections c SET c.item_count = (SELECT COUNT(*) FROM items i WHERE i.collection_id = c.id)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Table: media_references
+-- One row per (file, owner); maintained by the item and collection write paths so
+-- "is this file used, and by whom" is a primary-key lookup
+CREATE TABLE IF NOT EXISTS media_references (
+    filename VARCHAR(255) NOT NULL,
+    owner_type VARCHAR(20) NOT NULL,
+    owner_id VARCHAR(36) NOT NULL,
+    PRIMARY KEY (filename, owner_type, owner_id),
+    INDEX idx_owner (owner_type, owner_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: upload_sessions
+-- Resumable chunked uploads; bytes are appended to a hidden partial file in the storage directory
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id VARCHAR(36) PRIMARY KEY,
+    original_filename VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100),
+    total_size BIGINT NOT NULL,
+    received_bytes BIGINT NOT NULL DEFAULT 0,
+    sha256 VARCHAR(64) COMMENT 'Expected hex SHA-256, verified at finalize when provided',
+    status VARCHAR(20) NOT NULL,
+    filename VARCHAR(255) COMMENT 'Stored filename once finalized',
+    created_at DATETIME NOT NULL,
+    updated_at DATETIME NOT NULL,
+    INDEX idx_status_updated_at (status, updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Category counts per collection are read from this index alone
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'items' AND index_name = 'idx_collection_category') = 0,
+              'CREATE INDEX idx_collection_category ON items (collection_id, category)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Hot metadata keys get a generated column and a (collection_id, column, uploaded_at) index so
+-- equality filters on them are index lookups already in newest-first order. Keep in step with
+-- ItemMetadataService.HOT_KEY_COLUMNS.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'items' AND column_name = 'meta_grade') = 0,
+              'ALTER TABLE items ADD COLUMN meta_grade VARCHAR(191) AS (LEFT(JSON_UNQUOTE(JSON_EXTRACT(metadata, ''$.grade'')), 191)) VIRTUAL, ADD COLUMN meta_set VARCHAR(191) AS (LEFT(JSON_UNQUOTE(JSON_EXTRACT(metadata, ''$.set'')), 191)) VIRTUAL, ADD COLUMN meta_year VARCHAR(191) AS (LEFT(JSON_UNQUOTE(JSON_EXTRACT(metadata, ''$.year'')), 191)) VIRTUAL, ADD INDEX idx_collection_meta_grade (collection_id, meta_grade, uploaded_at), ADD INDEX idx_collection_meta_set (collection_id, meta_set, uploaded_at), ADD INDEX idx_collection_meta_year (collection_id, meta_year, uploaded_at)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Table: item_metadata
+-- One row per (item, metadata key) for filtering on any key; maintained by the item write paths
+-- and removed with the item. Keys compare case-sensitively like the JSON they come from.
+CREATE TABLE IF NOT EXISTS item_metadata (
+    item_id VARCHAR(36) NOT NULL,
+    meta_key VARCHAR(100) COLLATE utf8mb4_bin NOT NULL,
+    collection_id VARCHAR(36),
+    meta_value VARCHAR(191) NOT NULL COMMENT 'First 191 characters of the value',
+    num_value DECIMAL(30,10) COMMENT 'The value when it is a number, for range filters',
+    PRIMARY KEY (item_id, meta_key),
+    INDEX idx_collection_key_value (collection_id, meta_key, meta_value),
+    INDEX idx_collection_key_number (collection_id, meta_key, num_value),
+    FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Story excerpts; existing stories are filled in by StoryService at startup
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'stories' AND column_name = 'excerpt') = 0,
+              'ALTER TABLE stories ADD COLUMN excerpt VARCHAR(320)', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Table: story_tags
+-- Inverted index from tag to stories, maintained by the story write paths; a tag's feed is a
+-- seek on (tag, created_at, story_id). Tags are stored lower-cased.
+CREATE TABLE IF NOT EXISTS story_tags (
+    tag VARCHAR(100) NOT NULL,
+    story_id VARCHAR(36) NOT NULL,
+    created_at DATETIME NOT NULL,
+    PRIMARY KEY (tag, story_id),
+    INDEX idx_tag_created_at (tag, created_at, story_id),
+    INDEX idx_story_id (story_id),
+    FOREIGN KEY (story_id) REFERENCES stories(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Perceptual image hashes; existing items are hashed by background jobs queued at startup
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'items' AND column_name = 'image_hash') = 0,
+              'ALTER TABLE items ADD COLUMN image_hash BIGINT', 'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
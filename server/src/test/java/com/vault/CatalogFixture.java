@@ -0,0 +1,89 @@
+package com.vault;
+
+import com.vault.entity.AspectRatio;
+import com.vault.entity.Collection;
+import com.vault.entity.Item;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Seeds collections and items straight through the repositories for tests that run against
+ * the configured MySQL database, and removes whatever it created afterwards. Item i of a
+ * collection is titled "Card i" and stored as card-i.jpg.
+ */
+public class CatalogFixture {
+
+    private static final int DELETE_CHUNK = 1000;
+
+    private final CollectionRepository collectionRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transaction;
+    private final List<String> collectionIds = new ArrayList<>();
+
+    public CatalogFixture(CollectionRepository collectionRepository, ItemRepository itemRepository,
+                          PlatformTransactionManager transactionManager) {
+        this.collectionRepository = collectionRepository;
+        this.itemRepository = itemRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public String createCollection(String name) {
+        return createCollection(name, null);
+    }
+
+    public String createCollection(String name, String coverPhoto) {
+        String id = transaction.execute(status -> {
+            Collection collection = new Collection();
+            collection.setName(name);
+            collection.setAspectRatio(AspectRatio.PORTRAIT);
+            collection.setCoverPhoto(coverPhoto);
+            return collectionRepository.save(collection).getId();
+        });
+        collectionIds.add(id);
+        return id;
+    }
+
+    /**
+     * Add count items, letting fill (null for none) set further fields of item i before it
+     * is saved; the item count on the collection is not maintained
+     */
+    public List<Item> addItems(String collectionId, int count, ObjIntConsumer<Item> fill) {
+        return transaction.execute(status -> {
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Item item = new Item();
+                item.setCollectionId(collectionId);
+                item.setTitle("Card " + i);
+                item.setFilename("card-" + i + ".jpg");
+                item.setUrl("/api/images/card-" + i + ".jpg");
+                if (fill != null) {
+                    fill.accept(item, i);
+                }
+                items.add(item);
+            }
+            return itemRepository.saveAll(items);
+        });
+    }
+
+    /**
+     * Delete every collection this fixture created, with its items
+     */
+    public void cleanUp() {
+        if (collectionIds.isEmpty()) {
+            return;
+        }
+        transaction.executeWithoutResult(status -> {
+            while (itemRepository.deleteChunkByCollectionIdIn(collectionIds, DELETE_CHUNK) == DELETE_CHUNK) {
+                // keep deleting
+            }
+            collectionRepository.deleteAllById(collectionRepository.findIdsByIdIn(collectionIds));
+        });
+        collectionIds.clear();
+    }
+}
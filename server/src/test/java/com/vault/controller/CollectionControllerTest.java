@@ -0,0 +1,133 @@
+package com.vault.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.vault.dto.ItemResponse;
+import com.vault.exception.GlobalExceptionHandler;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import com.vault.service.CatalogResponseCache;
+import com.vault.service.CatalogVersionService;
+import com.vault.service.FacetService;
+import com.vault.service.ItemMetadataService;
+import com.vault.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class CollectionControllerTest {
+
+    private ItemRepository itemRepository;
+    private ItemService itemService;
+    private FacetService facetService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        CollectionRepository collectionRepository = mock(CollectionRepository.class);
+        when(collectionRepository.existsById("known")).thenReturn(true);
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        itemService = spy(new ItemService());
+        ReflectionTestUtils.setField(itemService, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(itemService, "collectionRepository", collectionRepository);
+        ReflectionTestUtils.setField(itemService, "objectMapper", objectMapper);
+
+        CatalogVersionService catalogVersions = mock(CatalogVersionService.class);
+        when(catalogVersions.collectionETag(any())).thenReturn("\"c1\"");
+
+        CatalogResponseCache catalogCache = new CatalogResponseCache(1024 * 1024, true);
+        ReflectionTestUtils.setField(catalogCache, "objectMapper", objectMapper);
+        facetService = spy(new FacetService());
+        doReturn(Map.of("total", 3)).when(facetService).findFacets(any(), any(), any(), anyInt());
+
+        CollectionController controller = new CollectionController();
+        ReflectionTestUtils.setField(controller, "itemService", itemService);
+        ReflectionTestUtils.setField(controller, "catalogCache", catalogCache);
+        ReflectionTestUtils.setField(controller, "facetService", facetService);
+        ReflectionTestUtils.setField(controller, "catalogVersions", catalogVersions);
+        ReflectionTestUtils.setField(controller, "itemMetadataService", new ItemMetadataService());
+        mvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void streamOfUnknownCollectionIsNotFoundBeforeStreaming() throws Exception {
+        mvc.perform(get("/api/collections/missing/items").param("stream", "true"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Collection not found with id: missing"));
+
+        verify(itemService, never()).streamItems(any(), any());
+    }
+
+    @Test
+    void streamWritesEveryItemAndClosesTheCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(itemRepository.streamResponsesByCollectionId("known")).thenReturn(Stream.of(
+                new ItemResponse("a", "known", "/api/images/a.jpg", "First", "a.jpg", LocalDateTime.of(2026, 1, 2, 3, 4), Map.of("year", "1952"), null),
+                new ItemResponse("b", "known", "/api/images/b.jpg", "Second", "b.jpg", LocalDateTime.of(2026, 1, 2, 3, 5), null, "Cards")
+        ).onClose(() -> closed.set(true)));
+
+        MvcResult started = mvc.perform(get("/api/collections/known/items").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value("a"))
+                .andExpect(jsonPath("$[0].metadata.year").value("1952"))
+                .andExpect(jsonPath("$[1].category").value("Cards"));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void streamRejectsPagingOptions() throws Exception {
+        mvc.perform(get("/api/collections/known/items").param("stream", "true").param("limit", "10"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/collections/known/items").param("stream", "true").param("metadata.year", "1952"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).streamItems(any(), any());
+    }
+
+    @Test
+    void emptyCollectionStreamsAnEmptyArray() throws Exception {
+        when(itemRepository.streamResponsesByCollectionId("known")).thenReturn(Stream.empty());
+
+        MvcResult started = mvc.perform(get("/api/collections/known/items").param("stream", "true")).andReturn();
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void facetsWithoutLimitShareTheCacheEntryOfTheDefaultLimit() throws Exception {
+        int defaultLimit = facetService.resolveValueLimit(null);
+
+        mvc.perform(get("/api/collections/known/facets").param("keys", "grade")).andExpect(status().isOk());
+        mvc.perform(get("/api/collections/known/facets").param("keys", "grade").param("limit", String.valueOf(defaultLimit)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3));
+
+        verify(facetService, times(1)).findFacets(eq("known"), eq(List.of("grade")), eq(List.of()), eq(defaultLimit));
+        mvc.perform(get("/api/collections/known/facets").param("limit", "0")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,142 @@
+package com.vault.controller;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.vault.dto.ItemResponse;
+import com.vault.exception.GlobalExceptionHandler;
+import com.vault.service.CatalogResponseCache;
+import com.vault.service.CatalogVersionService;
+import com.vault.service.CollectionService;
+import com.vault.service.ItemMetadataService;
+import com.vault.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * If-None-Match handling of the catalog endpoints, against real version counters and a
+ * real response cache. A committed write reaches both as a CollectionChangedEvent.
+ */
+class ConditionalRequestTest {
+
+    private CatalogVersionService catalogVersions;
+    private CatalogResponseCache catalogCache;
+    private CollectionService collectionService;
+    private ItemService itemService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        catalogVersions = new CatalogVersionService();
+        catalogCache = new CatalogResponseCache(1024 * 1024, true);
+        ReflectionTestUtils.setField(catalogCache, "objectMapper", JsonMapper.builder().findAndAddModules().build());
+        collectionService = mock(CollectionService.class);
+        itemService = mock(ItemService.class);
+        when(itemService.findById("x")).thenReturn(
+                new ItemResponse("x", "a", "/api/images/x.jpg", "Card", "x.jpg", LocalDateTime.of(2026, 1, 2, 3, 4), null, null));
+
+        CollectionController collectionController = new CollectionController();
+        ReflectionTestUtils.setField(collectionController, "collectionService", collectionService);
+        ReflectionTestUtils.setField(collectionController, "itemService", itemService);
+        ReflectionTestUtils.setField(collectionController, "catalogCache", catalogCache);
+        ReflectionTestUtils.setField(collectionController, "catalogVersions", catalogVersions);
+        ReflectionTestUtils.setField(collectionController, "itemMetadataService", new ItemMetadataService());
+
+        ItemController itemController = new ItemController();
+        ReflectionTestUtils.setField(itemController, "itemService", itemService);
+        ReflectionTestUtils.setField(itemController, "catalogCache", catalogCache);
+        ReflectionTestUtils.setField(itemController, "catalogVersions", catalogVersions);
+
+        mvc = MockMvcBuilders.standaloneSetup(collectionController, itemController)
+                .setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void anUnchangedListingIsNotModifiedWithoutAQuery() throws Exception {
+        String tag = eTag("/api/collections/a/items");
+
+        mvc.perform(get("/api/collections/a/items").header("If-None-Match", tag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", tag))
+                .andExpect(content().string(""));
+        mvc.perform(get("/api/collections/a/items").param("stream", "true").header("If-None-Match", tag))
+                .andExpect(status().isNotModified());
+
+        verify(itemService, times(1)).findByCollectionId("a");
+        verify(itemService, never()).requireCollection(any());
+    }
+
+    @Test
+    void aWriteChangesItsCollectionTagAndTheCatalogTagOnly() throws Exception {
+        String changed = eTag("/api/collections/a/items");
+        String unrelated = eTag("/api/collections/b/items");
+        String collections = eTag("/api/collections");
+        String items = eTag("/api/items");
+
+        write("a");
+
+        assertNotEquals(changed, modified("/api/collections/a/items", changed));
+        assertNotEquals(changed, modified("/api/collections/a", changed));
+        assertNotEquals(collections, modified("/api/collections", collections));
+        assertNotEquals(items, modified("/api/items", items));
+        mvc.perform(get("/api/collections/b/items").header("If-None-Match", unrelated))
+                .andExpect(status().isNotModified());
+        // The changed collection's items were read again; the unrelated ones were not
+        verify(itemService, times(2)).findByCollectionId("a");
+        verify(itemService, times(1)).findByCollectionId("b");
+    }
+
+    @Test
+    void aChangeAcrossCollectionsChangesEveryCollectionTag() throws Exception {
+        String tag = eTag("/api/collections/b/items");
+
+        write(null);
+
+        assertNotEquals(tag, modified("/api/collections/b/items", tag));
+    }
+
+    @Test
+    void anItemIsTaggedWithTheCatalogVersion() throws Exception {
+        String tag = eTag("/api/items/x");
+        mvc.perform(get("/api/items/x").header("If-None-Match", tag))
+                .andExpect(status().isNotModified());
+        verify(itemService, times(1)).findById("x");
+
+        // The item's collection is not known up front, so a write anywhere changes the tag
+        write("b");
+
+        assertNotEquals(tag, modified("/api/items/x", tag));
+    }
+
+    private void write(String collectionId) {
+        CollectionService.CollectionChangedEvent event = new CollectionService.CollectionChangedEvent(collectionId);
+        catalogCache.onCollectionChanged(event);
+        catalogVersions.onCollectionChanged(event);
+    }
+
+    private String eTag(String path) throws Exception {
+        String tag = mvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(tag, path);
+        return tag;
+    }
+
+    /**
+     * Request path with a stale If-None-Match and return the new ETag
+     */
+    private String modified(String path, String staleTag) throws Exception {
+        return mvc.perform(get(path).header("If-None-Match", staleTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+    }
+}
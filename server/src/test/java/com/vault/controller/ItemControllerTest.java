@@ -0,0 +1,107 @@
+package com.vault.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vault.dto.CursorPage;
+import com.vault.exception.GlobalExceptionHandler;
+import com.vault.service.CatalogResponseCache;
+import com.vault.service.CatalogVersionService;
+import com.vault.service.FieldProjectionService;
+import com.vault.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ItemControllerTest {
+
+    private static final List<String> ID_AND_TITLE = List.of("id", "title");
+
+    private ItemService itemService;
+    private FieldProjectionService fieldProjectionService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        itemService = mock(ItemService.class);
+        CatalogVersionService catalogVersions = mock(CatalogVersionService.class);
+        when(catalogVersions.catalogETag()).thenReturn("\"g1\"");
+        CatalogResponseCache catalogCache = new CatalogResponseCache(1024 * 1024, true);
+        ReflectionTestUtils.setField(catalogCache, "objectMapper", new ObjectMapper());
+        // Real parsing and rendering; only the query is stubbed
+        fieldProjectionService = spy(new FieldProjectionService());
+        doReturn(new CursorPage<>(List.of(new Object[]{"a", "First"}, new Object[]{"b", "Second"}), null))
+                .when(fieldProjectionService).findItems(eq(ID_AND_TITLE), isNull(), isNull(), isNull());
+        doReturn(new CursorPage<>(List.<Object[]>of(new Object[]{"a", "First"}), "next"))
+                .when(fieldProjectionService).findItems(eq(ID_AND_TITLE), isNull(), isNull(), eq(1));
+
+        ItemController controller = new ItemController();
+        ReflectionTestUtils.setField(controller, "itemService", itemService);
+        ReflectionTestUtils.setField(controller, "catalogCache", catalogCache);
+        ReflectionTestUtils.setField(controller, "catalogVersions", catalogVersions);
+        ReflectionTestUtils.setField(controller, "fieldProjectionService", fieldProjectionService);
+        mvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void fieldsReturnObjectsWithOnlyTheSelectedKeys() throws Exception {
+        mvc.perform(get("/api/items").param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":\"a\",\"title\":\"First\"},{\"id\":\"b\",\"title\":\"Second\"}]", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void tupleFormatReturnsFieldNamesOnceAndRowsAsArrays() throws Exception {
+        mvc.perform(get("/api/items").param("fields", "id,title").param("format", "tuples"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"fields\":[\"id\",\"title\"],\"rows\":[[\"a\",\"First\"],[\"b\",\"Second\"]]}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void pagedTuplesCarryTheNextCursor() throws Exception {
+        mvc.perform(get("/api/items").param("fields", "id,title").param("format", "tuples").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(content().json("{\"fields\":[\"id\",\"title\"],\"rows\":[[\"a\",\"First\"]]}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void unknownFieldsFormatsAndMixedViewsAreRejected() throws Exception {
+        mvc.perform(get("/api/items").param("fields", "id,password")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/items").param("fields", "id").param("format", "csv")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/items").param("fields", "id").param("view", "summary")).andExpect(status().isBadRequest());
+        verify(fieldProjectionService, never()).findItems(any(), any(), any(), any());
+    }
+
+    @Test
+    void streamWritesTheWholeListAsynchronously() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("[{\"id\":\"a\"}]".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(itemService).streamItems(isNull(), any());
+
+        MvcResult started = mvc.perform(get("/api/items").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":\"a\"}]", JsonCompareMode.STRICT));
+
+        mvc.perform(get("/api/items").param("stream", "true").param("fields", "id")).andExpect(status().isBadRequest());
+        verify(itemService, times(1)).streamItems(any(), any());
+    }
+}
@@ -0,0 +1,83 @@
+package com.vault.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPagingTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 5, 1, 12, 0, 0, 123_000_000);
+
+    private record Row(LocalDateTime timestamp, String id) {
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor(NOON, "a|b").encode());
+
+        assertEquals(NOON, cursor.getTimestamp());
+        assertEquals("a|b", cursor.getId());
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor"));
+    }
+
+    @Test
+    void pagesWalkEveryRowOnceThroughEqualTimestamps() {
+        // Most rows share a timestamp, so only the id keeps pages apart
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            rows.add(new Row(i < 3 ? NOON.plusSeconds(i) : NOON, String.format("id-%02d", i)));
+        }
+        rows.sort(Comparator.comparing(Row::timestamp).thenComparing(Row::id).reversed());
+
+        List<Row> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Row> page = page(rows, cursor, 5);
+            assertTrue(page.getItems().size() <= 5);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(rows, seen);
+        assertEquals(5, pages);
+    }
+
+    @Test
+    void lastFullPageHasNoCursor() {
+        List<Row> rows = List.of(new Row(NOON, "b"), new Row(NOON, "a"));
+
+        assertNull(page(rows, null, 2).getNextCursor());
+        assertNotNull(page(rows, null, 1).getNextCursor());
+    }
+
+    @Test
+    void limitIsDefaultedCappedAndValidated() {
+        assertEquals(KeysetPaging.DEFAULT_PAGE_SIZE, KeysetPaging.resolvePageSize(null));
+        assertEquals(7, KeysetPaging.resolvePageSize(7));
+        assertEquals(KeysetPaging.MAX_PAGE_SIZE, KeysetPaging.resolvePageSize(KeysetPaging.MAX_PAGE_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPaging.resolvePageSize(0));
+        assertThrows(IllegalArgumentException.class, () -> page(List.of(), null, -1));
+    }
+
+    private CursorPage<Row> page(List<Row> rows, String cursor, Integer limit) {
+        return KeysetPaging.page(cursor, limit,
+                pageable -> take(rows, pageable),
+                (after, pageable) -> take(rows.stream()
+                        .filter(row -> row.timestamp().isBefore(after.getTimestamp())
+                                || row.timestamp().equals(after.getTimestamp()) && row.id().compareTo(after.getId()) < 0)
+                        .toList(), pageable),
+                row -> new KeysetCursor(row.timestamp(), row.id()));
+    }
+
+    private List<Row> take(List<Row> rows, Pageable pageable) {
+        return rows.subList(0, Math.min(rows.size(), pageable.getPageSize()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.vault.repository;
+
+import com.vault.CatalogFixture;
+import com.vault.dto.ItemResponse;
+import com.vault.dto.ItemSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Full, summary and streamed listings of one collection's items come back in the same
+ * order. Needs the configured MySQL database, so it only runs with VAULT_DB_TESTS=true:
+ * <pre>VAULT_DB_TESTS=true gradle :server:test --tests '*ListingOrderTest'</pre>
+ */
+@SpringBootTest
+@ActiveProfiles({ "local" })
+@EnabledIfEnvironmentVariable(named = "VAULT_DB_TESTS", matches = "true")
+class ListingOrderTest {
+
+    private static final int ITEMS = 9;
+    private static final LocalDateTime UPLOADED_AT = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogFixture fixture;
+    private String collectionId;
+
+    @BeforeEach
+    void seed() {
+        fixture = new CatalogFixture(collectionRepository, itemRepository, transactionManager);
+        collectionId = fixture.createCollection("Listing order");
+        // Items share upload times in threes, so the id tie-break decides part of the order
+        fixture.addItems(collectionId, ITEMS, (item, i) -> item.setUploadedAt(UPLOADED_AT.plusMinutes(i / 3)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void everyViewListsTheSameItemsNewestFirst() {
+        List<String> summaries = itemRepository.findSummariesByCollectionId(collectionId).stream()
+                .map(ItemSummary::getId).toList();
+        List<String> responses = itemRepository.findResponsesByCollectionId(collectionId).stream()
+                .map(ItemResponse::getId).toList();
+        List<String> streamed = new TransactionTemplate(transactionManager).execute(status -> {
+            try (Stream<ItemResponse> stream = itemRepository.streamResponsesByCollectionId(collectionId)) {
+                return stream.map(ItemResponse::getId).toList();
+            }
+        });
+
+        assertEquals(ITEMS, summaries.size());
+        assertEquals(summaries, responses);
+        assertEquals(summaries, streamed);
+    }
+}
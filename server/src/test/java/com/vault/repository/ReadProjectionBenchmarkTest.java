@@ -0,0 +1,132 @@
+package com.vault.repository;
+
+import com.vault.dto.ItemResponse;
+import com.vault.entity.AspectRatio;
+import com.vault.entity.Collection;
+import com.vault.entity.Item;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the entity read path with the projection read paths for one collection's items.
+ * Needs the configured MySQL database, so it only runs with VAULT_BENCHMARK=true:
+ * <pre>VAULT_BENCHMARK=true gradle :server:test --tests '*ReadProjectionBenchmarkTest'</pre>
+ */
+@SpringBootTest
+@ActiveProfiles({ "local" })
+@EnabledIfEnvironmentVariable(named = "VAULT_BENCHMARK", matches = "true")
+class ReadProjectionBenchmarkTest {
+
+    private static final int ITEMS = 5_000;
+    private static final int METADATA_KEYS = 8;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private String collectionId;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        collectionId = transactionTemplate.execute(status -> {
+            Collection collection = new Collection();
+            collection.setName("Read benchmark");
+            collection.setAspectRatio(AspectRatio.PORTRAIT);
+            String id = collectionRepository.save(collection).getId();
+
+            List<Item> items = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Item item = new Item();
+                item.setCollectionId(id);
+                item.setTitle("Card " + i);
+                item.setFilename("card-" + i + ".jpg");
+                item.setUrl("/api/images/card-" + i + ".jpg");
+                item.setCategory(i % 2 == 0 ? "Base" : "Insert");
+                Map<String, String> metadata = new LinkedHashMap<>();
+                for (int key = 0; key < METADATA_KEYS; key++) {
+                    metadata.put("field" + key, "value " + key + " of card " + i);
+                }
+                item.setMetadata(metadata);
+                items.add(item);
+            }
+            itemRepository.saveAll(items);
+            return id;
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            while (itemRepository.deleteChunkByCollectionIdIn(List.of(collectionId), 1000) == 1000) {
+                // keep deleting
+            }
+            collectionRepository.deleteById(collectionId);
+        });
+    }
+
+    @Test
+    void projectionsAllocateLessThanEntities() {
+        // What findByCollectionId did before: managed entities, then a copy into DTOs
+        Result entities = measure("entities", () -> transactionTemplate.execute(status ->
+                itemRepository.findByCollectionId(collectionId).stream().map(ItemResponse::new).toList()));
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Result responses = measure("full projection", () -> readOnly.execute(status ->
+                itemRepository.findResponsesByCollectionId(collectionId)));
+        Result summaries = measure("summary projection", () -> readOnly.execute(status ->
+                itemRepository.findSummariesByCollectionId(collectionId)));
+
+        System.out.printf("%-20s %12s %14s%n", "path", "ms/op", "KiB/op");
+        for (Result result : List.of(entities, responses, summaries)) {
+            System.out.printf("%-20s %12.2f %14.1f%n", result.name, result.millisPerOp, result.bytesPerOp / 1024.0);
+        }
+
+        assertTrue(responses.bytesPerOp < entities.bytesPerOp, "projection should not build managed entities");
+        assertTrue(summaries.bytesPerOp < responses.bytesPerOp, "summary should not read metadata");
+    }
+
+    private Result measure(String name, Supplier<List<?>> read) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertEquals(ITEMS, read.get().size());
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            read.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new Result(name, elapsed / 1_000_000.0 / MEASURED_ROUNDS, (double) allocated / MEASURED_ROUNDS);
+    }
+
+    private record Result(String name, double millisPerOp, double bytesPerOp) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.vault.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogResponseCacheTest {
+
+    private CatalogResponseCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new CatalogResponseCache(1024, true);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void servesRepeatedReadsWithoutLoading() {
+        byte[] first = cache.get(CatalogResponseCache.items("a", "full"), () -> load("one"));
+        byte[] second = cache.get(CatalogResponseCache.items("a", "full"), () -> load("two"));
+
+        assertEquals("[\"one\"]", new String(second, StandardCharsets.UTF_8));
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    void aChangeDropsThatCollectionAndTheCatalogListingsOnly() {
+        cache.get(CatalogResponseCache.items("a", "full"), () -> load("a"));
+        cache.get(CatalogResponseCache.items("b", "full"), () -> load("b"));
+        cache.get(CatalogResponseCache.collections("full"), () -> load("all"));
+
+        cache.onCollectionChanged(new CollectionService.CollectionChangedEvent("a"));
+
+        assertEquals(1, cache.getStats().get("entries"));
+        cache.get(CatalogResponseCache.items("b", "full"), () -> load("b"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void aBodyLoadedAcrossAnInvalidationIsNotCached() {
+        cache.get(CatalogResponseCache.items("a", "full"), () -> {
+            // The write commits while this read is still running
+            cache.onCollectionChanged(new CollectionService.CollectionChangedEvent("a"));
+            return load("stale");
+        });
+
+        assertEquals(0, cache.getStats().get("entries"));
+    }
+
+    private List<String> load(String value) {
+        loads.incrementAndGet();
+        return List.of(value);
+    }
+}
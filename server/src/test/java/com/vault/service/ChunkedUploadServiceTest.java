@@ -0,0 +1,173 @@
+package com.vault.service;
+
+import com.vault.dto.CreateUploadRequest;
+import com.vault.entity.UploadSession;
+import com.vault.repository.UploadSessionRepository;
+import com.vault.validation.UploadValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ChunkedUploadServiceTest {
+
+    private static final String CONTENT = "helloworld";
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, UploadSession> sessions = new HashMap<>();
+    private StorageService storageService;
+    private UploadSessionRepository uploadSessionRepository;
+    private DerivativeJobHandler derivativeJobHandler;
+    private ChunkedUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new StorageService(tempDir.resolve("uploads").toString(), true, "flat");
+        uploadSessionRepository = mock(UploadSessionRepository.class);
+        when(uploadSessionRepository.save(any())).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            if (session.getId() == null) {
+                session.setId(UUID.randomUUID().toString());
+            }
+            sessions.put(session.getId(), session);
+            return session;
+        });
+        when(uploadSessionRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(sessions.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> sessions.remove(invocation.<UploadSession>getArgument(0).getId()))
+                .when(uploadSessionRepository).delete(any());
+        derivativeJobHandler = mock(DerivativeJobHandler.class);
+
+        service = new ChunkedUploadService();
+        ReflectionTestUtils.setField(service, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(service, "storageService", storageService);
+        ReflectionTestUtils.setField(service, "uploadValidator", mock(UploadValidator.class));
+        ReflectionTestUtils.setField(service, "derivativeJobHandler", derivativeJobHandler);
+        ReflectionTestUtils.setField(service, "maxChunkBytes", 1024L);
+    }
+
+    @Test
+    void malformedOrOutOfRangeContentRangesAreRejected() {
+        String id = create(null);
+
+        for (String contentRange : new String[]{null, "0-4/10", "bytes a-4/10", "bytes 4/10",
+                "bytes 5-2/10", "bytes 5-10/10", "bytes 0-4/11"}) {
+            assertThrows(IllegalArgumentException.class, () -> append(id, contentRange, "hello"), contentRange);
+        }
+        // An unknown total is accepted
+        assertEquals(5L, append(id, "bytes 0-4/*", "hello").get("offset"));
+    }
+
+    @Test
+    void chunksMustNotLeaveAGap() {
+        String id = create(null);
+        append(id, "bytes 0-4/10", "hello");
+
+        assertThrows(IllegalStateException.class, () -> append(id, "bytes 6-9/10", "orld"));
+        assertEquals(5L, service.getSession(id).get("offset"));
+    }
+
+    @Test
+    void aResentOverlappingChunkReplacesTheEarlierBytes() throws Exception {
+        String id = create(null);
+        // The response to this chunk was lost, and the client resends from an earlier offset
+        append(id, "bytes 0-5/10", "helXXX");
+
+        Map<String, Object> session = append(id, "bytes 3-4/10", "lo");
+
+        assertEquals(5L, session.get("offset"));
+        assertEquals("hello", Files.readString(storageService.partialPath(id)));
+        append(id, "bytes 5-9/10", "world");
+        assertEquals(CONTENT, Files.readString(storageService.partialPath(id)));
+    }
+
+    @Test
+    void aDroppedConnectionKeepsWhatArrivedSoTheClientCanResume() throws Exception {
+        String id = create(sha256(CONTENT));
+
+        // Announced as the whole file, but the body ends after four bytes
+        Map<String, Object> partial = append(id, "bytes 0-9/10", "hell");
+
+        assertEquals(4L, partial.get("offset"));
+        assertEquals("hell", Files.readString(storageService.partialPath(id)));
+
+        append(id, "bytes 4-9/10", "oworld");
+        Map<String, Object> completed = service.complete(id);
+        assertEquals("completed", completed.get("status"));
+        assertEquals(CONTENT, Files.readString(storageService.getRootLocation().resolve((String) completed.get("filename"))));
+    }
+
+    @Test
+    void finalizingBeforeEveryByteArrivedFails() {
+        String id = create(null);
+        append(id, "bytes 0-4/10", "hello");
+
+        assertThrows(IllegalStateException.class, () -> service.complete(id));
+        assertEquals("uploading", service.getSession(id).get("status"));
+    }
+
+    @Test
+    void aChecksumMismatchDropsTheUpload() {
+        String id = create(sha256("something else"));
+        append(id, "bytes 0-9/10", CONTENT);
+
+        assertThrows(IllegalArgumentException.class, () -> service.complete(id));
+
+        assertFalse(Files.exists(storageService.partialPath(id)));
+        assertFalse(sessions.containsKey(id));
+        verifyNoInteractions(derivativeJobHandler);
+    }
+
+    @Test
+    void finalizingTwiceReturnsTheSameFileOnce() throws Exception {
+        String id = create(sha256(CONTENT).toUpperCase());
+        append(id, "bytes 0-9/10", CONTENT);
+
+        Map<String, Object> first = service.complete(id);
+        Map<String, Object> second = service.complete(id);
+
+        assertEquals(first, second);
+        assertEquals(sha256(CONTENT) + ".jpg", first.get("filename"));
+        verify(derivativeJobHandler, times(1)).enqueue(sha256(CONTENT) + ".jpg", null);
+        assertThrows(IllegalArgumentException.class, () -> append(id, "bytes 0-9/10", CONTENT));
+    }
+
+    private String create(String sha256) {
+        CreateUploadRequest request = new CreateUploadRequest();
+        request.setFilename("card.jpg");
+        request.setContentType("image/jpeg");
+        request.setSize((long) CONTENT.length());
+        request.setSha256(sha256);
+        return (String) service.createSession(request).get("id");
+    }
+
+    private Map<String, Object> append(String id, String contentRange, String chunk) {
+        return service.appendChunk(id, contentRange, new ByteArrayInputStream(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.vault.service;
+
+import com.vault.CatalogFixture;
+import com.vault.entity.Item;
+import com.vault.entity.MediaOwnerType;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Set-based deletes of collections and items. Needs the configured MySQL database, so it
+ * only runs with VAULT_DB_TESTS=true:
+ * <pre>VAULT_DB_TESTS=true gradle :server:test --tests '*CollectionDeletionTest'</pre>
+ */
+@SpringBootTest
+@ActiveProfiles({ "local" })
+@EnabledIfEnvironmentVariable(named = "VAULT_DB_TESTS", matches = "true")
+class CollectionDeletionTest {
+
+    // More than one delete chunk
+    private static final int ITEMS = 2_500;
+
+    @Autowired
+    private CollectionService collectionService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private MediaReferenceService mediaReferenceService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new CatalogFixture(collectionRepository, itemRepository, transactionManager);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void deletesCollectionsWithTheirItemsReferencesAndCover() {
+        String doomed = fixture.createCollection("Doomed", "doomed-cover.jpg");
+        String kept = fixture.createCollection("Kept");
+        List<Item> items = fixture.addItems(doomed, ITEMS, null);
+        fixture.addItems(kept, 3, null);
+        mediaReferenceService.replace(MediaOwnerType.COLLECTION, doomed, "doomed-cover.jpg");
+        mediaReferenceService.replace(MediaOwnerType.ITEM, items.get(0).getId(), "doomed-item.jpg");
+        mediaReferenceService.replace(MediaOwnerType.ITEM, items.get(ITEMS - 1).getId(), "doomed-item.jpg");
+
+        // Duplicates and unknown ids are ignored
+        int deleted = collectionService.deleteCollections(Arrays.asList(doomed, "no-such-collection", doomed, null));
+
+        assertEquals(1, deleted);
+        assertFalse(collectionRepository.existsById(doomed));
+        assertEquals(0, itemRepository.countByCollectionId(doomed));
+        assertFalse(mediaReferenceService.isReferenced("doomed-cover.jpg"));
+        assertFalse(mediaReferenceService.isReferenced("doomed-item.jpg"));
+        assertEquals(3, itemRepository.countByCollectionId(kept));
+    }
+
+    @Test
+    void deletesItemsIgnoringDuplicatesAndUnknownIds() {
+        String collectionId = fixture.createCollection("Items");
+        List<Item> items = fixture.addItems(collectionId, 5, null);
+        String first = items.get(0).getId();
+        String second = items.get(1).getId();
+        mediaReferenceService.replace(MediaOwnerType.ITEM, first, "item-delete.jpg");
+
+        int deleted = itemService.deleteItems(Arrays.asList(first, second, first, "no-such-item", null));
+
+        assertEquals(2, deleted);
+        assertEquals(3, itemRepository.countByCollectionId(collectionId));
+        assertFalse(mediaReferenceService.isReferenced("item-delete.jpg"));
+        assertEquals(0, collectionService.deleteCollections(List.of("no-such-collection")));
+    }
+}
@@ -0,0 +1,128 @@
+package com.vault.service;
+
+import com.vault.CatalogFixture;
+import com.vault.dto.MetadataFilter;
+import com.vault.entity.Item;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Facet counts over a seeded collection. Needs the configured MySQL database, so it only
+ * runs with VAULT_DB_TESTS=true:
+ * <pre>VAULT_DB_TESTS=true gradle :server:test --tests '*FacetServiceTest'</pre>
+ */
+@SpringBootTest
+@ActiveProfiles({ "local" })
+@EnabledIfEnvironmentVariable(named = "VAULT_DB_TESTS", matches = "true")
+class FacetServiceTest {
+
+    // Item i: grade PSA(i % 4), year 1990 + i % 5, color i % 8, category none/Base/Insert by i % 3
+    private static final int ITEMS = 40;
+
+    @Autowired
+    private FacetService facetService;
+
+    @Autowired
+    private ItemMetadataService itemMetadataService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogFixture fixture;
+    private String collectionId;
+
+    @BeforeEach
+    void seed() {
+        fixture = new CatalogFixture(collectionRepository, itemRepository, transactionManager);
+        collectionId = fixture.createCollection("Facets");
+        List<Item> items = fixture.addItems(collectionId, ITEMS, (item, i) -> {
+            item.setCategory(i % 3 == 0 ? null : i % 3 == 1 ? "Base" : "Insert");
+            item.setMetadata(Map.of(
+                    "grade", "PSA" + i % 4,
+                    "year", String.valueOf(1990 + i % 5),
+                    "color", "color " + i % 8));
+        });
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> items.forEach(item ->
+                itemMetadataService.replace(item.getId(), item.getCollectionId(), item.getMetadata())));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void aKeysOwnFilterDoesNotNarrowItsValues() {
+        Map<String, Object> facets = facetService.findFacets(collectionId, List.of("grade", "year"),
+                List.of(new MetadataFilter("grade", "=", "PSA1")), null);
+
+        assertEquals(10L, facets.get("total"));
+        assertEquals(Map.of("PSA0", 10L, "PSA1", 10L, "PSA2", 10L, "PSA3", 10L), counts(facets, "grade"));
+        // The other keys only count items the grade filter keeps
+        assertEquals(Map.of("1990", 2L, "1991", 2L, "1992", 2L, "1993", 2L, "1994", 2L), counts(facets, "year"));
+    }
+
+    @Test
+    void itemsWithoutACategoryAreCounted() {
+        Map<String, Object> facets = facetService.findFacets(collectionId, List.of(), List.of(), null);
+
+        Map<String, Long> categories = toMap(entries(facets.get("categories")));
+        assertEquals(14L, categories.get(null));
+        assertEquals(13L, categories.get("Base"));
+        assertEquals(13L, categories.get("Insert"));
+        assertEquals((long) ITEMS, facets.get("total"));
+    }
+
+    @Test
+    void limitCapsTheValuesPerKeyMostFrequentFirst() {
+        Map<String, Object> facets = facetService.findFacets(collectionId, List.of("color", "grade"), List.of(), 3);
+
+        List<Map<String, Object>> colors = metadata(facets, "color");
+        assertEquals(3, colors.size());
+        assertEquals(List.of("color 0", "color 1", "color 2"), colors.stream().map(entry -> entry.get("value")).toList());
+        assertEquals(3, metadata(facets, "grade").size());
+        assertThrows(IllegalArgumentException.class, () -> facetService.findFacets(collectionId, List.of("color"), List.of(), 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> metadata(Map<String, Object> facets, String key) {
+        return entries(((Map<String, Object>) facets.get("metadata")).get(key));
+    }
+
+    private Map<String, Long> counts(Map<String, Object> facets, String key) {
+        return toMap(metadata(facets, key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> entries(Object value) {
+        return (List<Map<String, Object>>) value;
+    }
+
+    private Map<String, Long> toMap(List<Map<String, Object>> entries) {
+        // HashMap, since the uncategorized entry has a null value
+        Map<String, Long> counts = new HashMap<>();
+        entries.forEach(entry -> counts.put((String) entry.get("value"), (Long) entry.get("count")));
+        return counts;
+    }
+}
@@ -0,0 +1,103 @@
+package com.vault.service;
+
+import com.vault.entity.Job;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FileDeletionJobHandlerTest {
+
+    private static final LocalDateTime ENQUEUED_AT = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private StorageService storageService;
+    private MediaReferenceService mediaReferenceService;
+    private ImageDerivativeService imageDerivativeService;
+    private FileDeletionJobHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        storageService = mock(StorageService.class);
+        mediaReferenceService = mock(MediaReferenceService.class);
+        imageDerivativeService = mock(ImageDerivativeService.class);
+        handler = new FileDeletionJobHandler();
+        ReflectionTestUtils.setField(handler, "storageService", storageService);
+        ReflectionTestUtils.setField(handler, "mediaReferenceService", mediaReferenceService);
+        ReflectionTestUtils.setField(handler, "imageDerivativeService", imageDerivativeService);
+        ReflectionTestUtils.setField(handler, "graceSeconds", 900L);
+        when(storageService.deleteIfUnusedSince(anyString(), any())).thenReturn(true);
+    }
+
+    @Test
+    void referencedFilesAreSkipped() {
+        when(mediaReferenceService.findReferenced(Set.of("used.jpg", "unused.jpg"))).thenReturn(Set.of("used.jpg"));
+
+        handler.handle(job("used.jpg\nunused.jpg"));
+
+        verify(storageService, never()).deleteIfUnusedSince(eq("used.jpg"), any());
+        verify(imageDerivativeService, never()).evictAll("used.jpg");
+    }
+
+    @Test
+    void unreferencedFilesAreDeletedAndTheirRenditionsEvicted() {
+        when(mediaReferenceService.findReferenced(any())).thenReturn(Set.of());
+
+        handler.handle(job("unused.jpg"));
+
+        // Anything stored or reused since shortly before the job was enqueued is kept
+        Instant cutoff = ENQUEUED_AT.atZone(ZoneId.systemDefault()).toInstant().minusSeconds(900);
+        verify(storageService).deleteIfUnusedSince("unused.jpg", cutoff);
+        verify(imageDerivativeService).evictAll("unused.jpg");
+    }
+
+    @Test
+    void recentlyReusedFilesKeepTheirRenditions() {
+        when(mediaReferenceService.findReferenced(any())).thenReturn(Set.of());
+        when(storageService.deleteIfUnusedSince(eq("reused.jpg"), any())).thenReturn(false);
+
+        handler.handle(job("reused.jpg"));
+
+        verify(imageDerivativeService, never()).evictAll("reused.jpg");
+    }
+
+    @Test
+    void aPartialFailureRethrowsSoTheBatchIsRetried() {
+        when(mediaReferenceService.findReferenced(any())).thenReturn(Set.of());
+        when(storageService.deleteIfUnusedSince(eq("b.jpg"), any())).thenThrow(new RuntimeException("Failed to delete file"));
+
+        RuntimeException failure = assertThrows(RuntimeException.class, () -> handler.handle(job("a.jpg\nb.jpg\nc.jpg")));
+
+        assertEquals("Failed to delete 1 of 3 files, first: b.jpg", failure.getMessage());
+        // The rest of the batch is still attempted
+        verify(imageDerivativeService).evictAll("a.jpg");
+        verify(imageDerivativeService).evictAll("c.jpg");
+        verify(imageDerivativeService, never()).evictAll("b.jpg");
+    }
+
+    @Test
+    void aJobWithoutFilenamesFailsPermanently() {
+        Job job = job("a.jpg");
+        job.setPayload(Map.of());
+
+        assertThrows(IllegalArgumentException.class, () -> handler.handle(job));
+    }
+
+    private Job job(String filenames) {
+        Job job = new Job();
+        job.setType(FileDeletionJobHandler.TYPE);
+        job.setPayload(Map.of("filenames", filenames));
+        job.setCreatedAt(ENQUEUED_AT);
+        return job;
+    }
+}
@@ -0,0 +1,97 @@
+package com.vault.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotImageCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void admitsOnSecondRequestAndServesExactBytes() throws Exception {
+        HotImageCache cache = new HotImageCache(256 * 1024, 64 * 1024, 2);
+        byte[] content = randomBytes(40_000);
+        Path file = write("cover.jpg", content);
+
+        assertNull(cache.acquire("cover.jpg"));
+        cache.offer("cover.jpg", file, content.length, 1L);
+        assertNull(cache.acquire("cover.jpg"), "one request is not enough to be admitted");
+
+        cache.offer("cover.jpg", file, content.length, 1L);
+        HotImageCache.Entry entry = cache.acquire("cover.jpg");
+        assertNotNull(entry);
+
+        // A range spanning a block boundary
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entry.writeTo(Channels.newChannel(out), 16_000, 10_000);
+        cache.release(entry);
+        byte[] expected = new byte[10_000];
+        System.arraycopy(content, 16_000, expected, 0, expected.length);
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    void rarelyRequestedImagesDoNotDisplaceHotOnes() throws Exception {
+        // Room for exactly two 16 KiB blocks
+        HotImageCache cache = new HotImageCache(32 * 1024, 32 * 1024, 2);
+        Path hot = write("hot.jpg", randomBytes(30_000));
+        Path cold = write("cold.jpg", randomBytes(30_000));
+
+        for (int i = 0; i < 5; i++) {
+            release(cache, cache.acquire("hot.jpg"));
+        }
+        cache.offer("hot.jpg", hot, 30_000, 1L);
+
+        cache.acquire("cold.jpg");
+        cache.acquire("cold.jpg");
+        cache.offer("cold.jpg", cold, 30_000, 1L);
+
+        assertNull(cache.acquire("cold.jpg"));
+        HotImageCache.Entry entry = cache.acquire("hot.jpg");
+        assertNotNull(entry);
+        cache.release(entry);
+        assertEquals(1L, cache.getStats().get("rejections"));
+    }
+
+    @Test
+    void deletingAnOriginalDropsItsRenditions() throws Exception {
+        HotImageCache cache = new HotImageCache(256 * 1024, 64 * 1024, 1);
+        Path original = write("card.jpg", randomBytes(1000));
+        Path rendition = write("card_320_q80.jpg", randomBytes(500));
+        cache.acquire("card.jpg");
+        cache.offer("card.jpg", original, 1000, 1L);
+        cache.acquire("card_320_q80.jpg");
+        cache.offer("card_320_q80.jpg", rendition, 500, 1L);
+
+        cache.onFileDeleted(new StorageService.FileDeletedEvent("card.jpg"));
+
+        assertNull(cache.acquire("card.jpg"));
+        assertNull(cache.acquire("card_320_q80.jpg"));
+        assertEquals(0L, cache.getStats().get("bytesUsed"));
+    }
+
+    private void release(HotImageCache cache, HotImageCache.Entry entry) {
+        if (entry != null) {
+            cache.release(entry);
+        }
+    }
+
+    private Path write(String name, byte[] content) throws Exception {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,68 @@
+package com.vault.service;
+
+import com.vault.service.ImageDerivativeService.DerivativeSpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImageDerivativeService derivativeService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StorageService storageService = new StorageService(tempDir.resolve("uploads").toString(), false, "flat");
+        derivativeService = new ImageDerivativeService(storageService, tempDir.resolve("derivatives").toString(),
+                1024 * 1024, new int[]{160, 320, 640}, 80, 2);
+
+        BufferedImage image = new BufferedImage(1200, 1800, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "jpg", tempDir.resolve("uploads").resolve("card.jpg").toFile());
+    }
+
+    @Test
+    void resizesToSnappedWidthAndKeepsAspectRatio() throws Exception {
+        DerivativeSpec spec = derivativeService.resolveSpec("card.jpg", 300, null, null, null);
+        assertEquals(320, spec.width());
+
+        Path derivative = derivativeService.getOrCreate("card.jpg", spec);
+        BufferedImage resized = ImageIO.read(derivative.toFile());
+        assertEquals(320, resized.getWidth());
+        assertEquals(480, resized.getHeight());
+    }
+
+    @Test
+    void servesSecondRequestFromCache() {
+        DerivativeSpec spec = derivativeService.resolveSpec("card.jpg", 160, 75, "png", null);
+        Path first = derivativeService.getOrCreate("card.jpg", spec);
+        Path second = derivativeService.getOrCreate("card.jpg", spec);
+
+        assertEquals(first, second);
+        assertEquals(1L, derivativeService.getStats().get("hits"));
+        assertEquals(1L, derivativeService.getStats().get("generations"));
+    }
+
+    @Test
+    void evictsAllDerivativesOfAnOriginal() {
+        Path derivative = derivativeService.getOrCreate("card.jpg", derivativeService.resolveSpec("card.jpg", 160, null, null, null));
+        derivativeService.evictAll("card.jpg");
+
+        assertFalse(Files.exists(derivative));
+        assertEquals(0, derivativeService.getStats().get("entries"));
+    }
+
+    @Test
+    void leavesUnsupportedFormatsUntouched() {
+        assertNull(derivativeService.resolveSpec("logo.svg", 160, null, null, null));
+        assertNull(derivativeService.resolveSpec("card.jpg", null, null, null, null));
+    }
+}
@@ -0,0 +1,36 @@
+package com.vault.service;
+
+import com.vault.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImageHashJobHandlerTest {
+
+    @Test
+    void backfillNeverRetriesImagesThatFailedToHash() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        JobService jobService = mock(JobService.class);
+        ImageHashJobHandler handler = new ImageHashJobHandler();
+        ReflectionTestUtils.setField(handler, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(handler, "jobService", jobService);
+        ReflectionTestUtils.setField(handler, "transactionManager", mock(PlatformTransactionManager.class));
+        when(itemRepository.findUnhashedAfter(eq(""), any())).thenReturn(List.of(
+                new Object[]{"i1", "a.jpg"}, new Object[]{"i2", "broken.svg"}, new Object[]{"i3", null}));
+
+        handler.backfill();
+
+        verify(jobService).enqueueOnce(ImageHashJobHandler.TYPE, "IMAGE_HASH:backfill:i1:a.jpg", Map.of("itemId", "i1", "filename", "a.jpg"));
+        verify(jobService).enqueueOnce(ImageHashJobHandler.TYPE, "IMAGE_HASH:backfill:i2:broken.svg", Map.of("itemId", "i2", "filename", "broken.svg"));
+        verify(jobService, never()).enqueue(anyString(), anyString(), any());
+        verify(jobService, times(2)).enqueueOnce(anyString(), anyString(), any());
+    }
+}
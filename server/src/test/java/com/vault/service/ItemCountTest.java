@@ -0,0 +1,109 @@
+package com.vault.service;
+
+import com.vault.CatalogFixture;
+import com.vault.dto.CollectionResponse;
+import com.vault.dto.ItemResponse;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The denormalized item count and last item change on collections. Needs the configured
+ * MySQL database, so it only runs with VAULT_DB_TESTS=true:
+ * <pre>VAULT_DB_TESTS=true gradle :server:test --tests '*ItemCountTest'</pre>
+ */
+@SpringBootTest
+@ActiveProfiles({ "local" })
+@EnabledIfEnvironmentVariable(named = "VAULT_DB_TESTS", matches = "true")
+class ItemCountTest {
+
+    @Autowired
+    private CollectionService collectionService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new CatalogFixture(collectionRepository, itemRepository, transactionManager);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void countFollowsCreateMoveAndDelete() {
+        String from = fixture.createCollection("From");
+        String to = fixture.createCollection("To");
+
+        ItemResponse first = itemService.createItem(request(from, "First"), image());
+        ItemResponse second = itemService.createItem(request(from, "Second"), image());
+        CollectionResponse created = collectionService.findById(from);
+        assertEquals(2, created.getItemCount());
+        assertNotNull(created.getItemsUpdatedAt());
+        assertNull(collectionService.findById(to).getItemsUpdatedAt());
+
+        itemService.updateItem(first.getId(), request(to, "First"), null);
+        assertEquals(1, collectionService.findById(from).getItemCount());
+        CollectionResponse moved = collectionService.findById(to);
+        assertEquals(1, moved.getItemCount());
+        assertNotNull(moved.getItemsUpdatedAt());
+
+        itemService.deleteItem(first.getId());
+        CollectionResponse emptied = collectionService.findById(to);
+        assertEquals(0, emptied.getItemCount());
+        assertFalse(emptied.getItemsUpdatedAt().isBefore(moved.getItemsUpdatedAt()));
+
+        itemService.deleteItem(second.getId());
+        assertEquals(0, collectionService.findById(from).getItemCount());
+    }
+
+    @Test
+    void repairFixesDriftedCount() {
+        String collectionId = fixture.createCollection("Drifted");
+        // The fixture writes items without touching the count
+        fixture.addItems(collectionId, 3, null);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                collectionRepository.adjustItemCount(collectionId, 7, LocalDateTime.now()));
+        assertEquals(7, collectionService.findById(collectionId).getItemCount());
+
+        collectionService.repairItemCounts();
+
+        assertEquals(3, collectionService.findById(collectionId).getItemCount());
+    }
+
+    private String request(String collectionId, String title) {
+        // An existing image keeps the test away from storage
+        return "{\"collectionId\":\"" + collectionId + "\",\"title\":\"" + title + "\",\"existingImage\":\"count-test.jpg\"}";
+    }
+
+    private MockMultipartFile image() {
+        return new MockMultipartFile("image", "count-test.jpg", "image/jpeg", new byte[]{1});
+    }
+}
@@ -0,0 +1,125 @@
+package com.vault.service;
+
+import com.vault.CatalogFixture;
+import com.vault.dto.MetadataFilter;
+import com.vault.entity.Item;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks with EXPLAIN that metadata filters are answered from indexes. Needs the configured
+ * MySQL database, so it only runs with VAULT_DB_TESTS=true:
+ * <pre>VAULT_DB_TESTS=true gradle :server:test --tests '*ItemMetadataExplainTest'</pre>
+ */
+@SpringBootTest
+@ActiveProfiles({ "local" })
+@EnabledIfEnvironmentVariable(named = "VAULT_DB_TESTS", matches = "true")
+class ItemMetadataExplainTest {
+
+    private static final int ITEMS = 2_000;
+
+    // The item_id lookup of a semi-join may go through the primary key instead
+    private static final Set<Object> SIDE_TABLE_KEYS = Set.of("idx_collection_key_value", "idx_collection_key_number", "PRIMARY");
+
+    @Autowired
+    private ItemMetadataService itemMetadataService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogFixture fixture;
+    private String collectionId;
+
+    @BeforeEach
+    void seed() {
+        fixture = new CatalogFixture(collectionRepository, itemRepository, transactionManager);
+        collectionId = fixture.createCollection("Metadata filter plans");
+        List<Item> items = fixture.addItems(collectionId, ITEMS, (item, i) -> item.setMetadata(Map.of(
+                "grade", "PSA" + (1 + i % 10),
+                "year", String.valueOf(1950 + i % 70),
+                "color", "color " + i % 25)));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> items.forEach(item ->
+                itemMetadataService.replace(item.getId(), item.getCollectionId(), item.getMetadata())));
+        jdbcTemplate.execute("ANALYZE TABLE items, item_metadata");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void hotKeyEqualityUsesTheGeneratedColumnIndex() {
+        List<Map<String, Object>> plan = explain(List.of(new MetadataFilter("grade", "=", "PSA10")));
+
+        assertNoFullScans(plan);
+        assertEquals("idx_collection_meta_grade", plan.get(0).get("key"));
+    }
+
+    @Test
+    void otherKeysAndRangesUseTheSideTableIndexes() {
+        List<Map<String, Object>> plan = explain(List.of(
+                new MetadataFilter("color", "=", "color 7"),
+                new MetadataFilter("year", ">=", "1990")));
+
+        assertNoFullScans(plan);
+        List<Object> sideTableKeys = plan.stream()
+                .filter(row -> "item_metadata".equals(row.get("table")) || "m".equals(row.get("table")))
+                .map(row -> row.get("key"))
+                .toList();
+        assertFalse(sideTableKeys.isEmpty(), "side table should be part of the plan: " + plan);
+        assertTrue(SIDE_TABLE_KEYS.containsAll(sideTableKeys), "side table read without its indexes: " + plan);
+    }
+
+    @Test
+    void filtersReturnOnlyMatchingItems() {
+        List<MetadataFilter> filters = List.of(
+                new MetadataFilter("grade", "=", "PSA10"),
+                new MetadataFilter("year", ">=", "1990"));
+
+        List<String> ids = itemMetadataService.findMatchingIds(collectionId, filters, null, null).getItems();
+
+        assertFalse(ids.isEmpty());
+        for (Item item : itemRepository.findAllById(ids)) {
+            assertEquals("PSA10", item.getMetadata().get("grade"));
+            assertTrue(Integer.parseInt(item.getMetadata().get("year")) >= 1990);
+        }
+    }
+
+    private List<Map<String, Object>> explain(List<MetadataFilter> filters) {
+        ItemMetadataService.IdQuery query = itemMetadataService.buildIdQuery(collectionId, filters, null, 51);
+        return jdbcTemplate.queryForList("EXPLAIN " + query.sql(), query.parameters().toArray());
+    }
+
+    private void assertNoFullScans(List<Map<String, Object>> plan) {
+        for (Map<String, Object> row : plan) {
+            assertNotEquals("ALL", row.get("type"), "full scan of " + row.get("table") + ": " + plan);
+            assertNotNull(row.get("key"), "no index used for " + row.get("table") + ": " + plan);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.vault.service;
+
+import com.vault.dto.MetadataFilter;
+import com.vault.repository.ItemMetadataRepository;
+import com.vault.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ItemMetadataServiceTest {
+
+    private ItemMetadataRepository itemMetadataRepository;
+    private ItemRepository itemRepository;
+    private ItemMetadataService service;
+
+    @BeforeEach
+    void setUp() {
+        itemMetadataRepository = mock(ItemMetadataRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        service = spy(new ItemMetadataService());
+        ReflectionTestUtils.setField(service, "itemMetadataRepository", itemMetadataRepository);
+        ReflectionTestUtils.setField(service, "itemRepository", itemRepository);
+    }
+
+    @Test
+    void backfillSkipsLibrariesWithoutMetadata() {
+        when(itemRepository.count()).thenReturn(5_000L);
+        when(itemRepository.findAnyIdWithMetadata()).thenReturn(Optional.empty());
+
+        service.backfillIfEmpty();
+
+        verify(service, never()).rebuild();
+    }
+
+    @Test
+    void backfillRunsWhenItemsHaveMetadataButTheIndexIsEmpty() {
+        when(itemRepository.findAnyIdWithMetadata()).thenReturn(Optional.of("a"));
+        doReturn(1).when(service).rebuild();
+
+        service.backfillIfEmpty();
+
+        verify(service).rebuild();
+    }
+
+    @Test
+    void longValuesAreRecheckedWithTheIndexCollation() {
+        String value = "x".repeat(250);
+
+        ItemMetadataService.IdQuery query = service.buildIdQuery("c1", List.of(new MetadataFilter("notes", "=", value)), null, null);
+
+        assertTrue(query.sql().contains("JSON_UNQUOTE(JSON_EXTRACT(i.metadata, ?)) COLLATE utf8mb4_unicode_ci = ?"), query.sql());
+        assertEquals(List.of("c1", "c1", "notes", value.substring(0, 191), "$.\"notes\"", value), query.parameters());
+    }
+
+    @Test
+    void valuesAsLongAsTheIndexedPrefixAreRecheckedToo() {
+        String value = "x".repeat(191);
+
+        ItemMetadataService.IdQuery equal = service.buildIdQuery("c1", List.of(new MetadataFilter("grade", "=", value)), null, null);
+        ItemMetadataService.IdQuery unequal = service.buildIdQuery("c1", List.of(new MetadataFilter("notes", "!=", value)), null, null);
+
+        // A longer stored value with this prefix must not match
+        assertTrue(equal.sql().contains("JSON_UNQUOTE(JSON_EXTRACT(i.metadata, ?)) COLLATE utf8mb4_unicode_ci = ?"), equal.sql());
+        assertTrue(unequal.sql().contains("JSON_UNQUOTE(JSON_EXTRACT(i.metadata, ?)) COLLATE utf8mb4_unicode_ci <> ?"), unequal.sql());
+        assertFalse(unequal.sql().contains("m.meta_value <> ?"), unequal.sql());
+    }
+}
@@ -0,0 +1,62 @@
+package com.vault.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vault.repository.JobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JobServiceTest {
+
+    private JobRepository jobRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(JobRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        jobService = new JobService();
+        ReflectionTestUtils.setField(jobService, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(jobService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(jobService, "eventPublisher", eventPublisher);
+    }
+
+    @Test
+    void failedJobWithTheSameKeyIsResetInsteadOfIgnored() {
+        when(jobRepository.resetFailed(eq("DERIVATIVE:a_320_q80.jpg"), anyString(), any())).thenReturn(1);
+
+        assertTrue(jobService.enqueue("DERIVATIVE", "DERIVATIVE:a_320_q80.jpg", Map.of("filename", "a.jpg")));
+
+        verify(jobRepository, never()).insertIfAbsent(any(), any(), any(), any(), any());
+        verify(eventPublisher).publishEvent(new JobService.JobsEnqueuedEvent("DERIVATIVE"));
+    }
+
+    @Test
+    void newKeyIsInsertedAndAPendingDuplicateIsIgnored() {
+        when(jobRepository.insertIfAbsent(anyString(), eq("DERIVATIVE"), eq("new"), anyString(), any())).thenReturn(1);
+
+        assertTrue(jobService.enqueue("DERIVATIVE", "new", Map.of("filename", "a.jpg")));
+        assertFalse(jobService.enqueue("DERIVATIVE", "pending", Map.of("filename", "a.jpg")));
+
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void enqueueOnceLeavesAFailedJobAlone() {
+        assertFalse(jobService.enqueueOnce("IMAGE_HASH", "IMAGE_HASH:backfill:i1:a.svg", Map.of("itemId", "i1")));
+
+        verify(jobRepository, never()).resetFailed(any(), any(), any());
+        verify(jobRepository).insertIfAbsent(anyString(), eq("IMAGE_HASH"), eq("IMAGE_HASH:backfill:i1:a.svg"), anyString(), any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+}
@@ -0,0 +1,81 @@
+package com.vault.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerceptualHashServiceTest {
+
+    @Test
+    void resizedCopyHashesCloseAndDifferentPictureFar() {
+        BufferedImage original = picture(640, 480, 1);
+        BufferedImage resized = resize(original, 300, 225);
+
+        long hash = PerceptualHashService.dHash(original);
+        assertTrue(BkTree.distance(hash, PerceptualHashService.dHash(resized)) <= 4);
+        assertTrue(BkTree.distance(hash, PerceptualHashService.dHash(picture(640, 480, 2))) > 10);
+    }
+
+    @Test
+    void treeSearchMatchesBruteForce() {
+        Random random = new Random(42);
+        BkTree tree = new BkTree();
+        List<long[]> entries = new ArrayList<>();
+        long base = random.nextLong();
+        for (int i = 0; i < 5000; i++) {
+            // Clusters of near neighbours around a few bases, like rescans of the same cards
+            long hash = i % 10 == 0 ? (base = random.nextLong()) : base ^ (1L << random.nextInt(64)) ^ (1L << random.nextInt(64));
+            tree.add(hash, String.valueOf(i));
+            entries.add(new long[]{hash, i});
+        }
+        tree.remove(entries.get(7)[0], "7");
+
+        for (int q = 0; q < 50; q++) {
+            long query = entries.get(random.nextInt(entries.size()))[0] ^ (1L << random.nextInt(64));
+            List<String> expected = entries.stream()
+                    .filter(entry -> entry[1] != 7 && BkTree.distance(entry[0], query) <= 6)
+                    .map(entry -> String.valueOf(entry[1]))
+                    .sorted()
+                    .toList();
+            List<String> found = tree.search(query, 6).stream()
+                    .map(BkTree.Match::itemId)
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+            assertEquals(expected, found);
+        }
+        assertEquals(4999, tree.size());
+        assertTrue(tree.search(entries.get(7)[0], 0).stream().noneMatch(match -> match.itemId().equals("7")));
+    }
+
+    private BufferedImage picture(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.GRAY);
+        graphics.fillRect(0, 0, width, height);
+        for (int i = 0; i < 12; i++) {
+            graphics.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            graphics.fillOval(random.nextInt(width), random.nextInt(height), width / 3, height / 3);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return resized;
+    }
+}
@@ -0,0 +1,101 @@
+package com.vault.service;
+
+import com.vault.dto.ItemResponse;
+import com.vault.dto.SearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexServiceTest {
+
+    private SearchIndexService search;
+
+    @BeforeEach
+    void setUp() {
+        search = new SearchIndexService();
+        search.indexItem(item("1", "Charizard Holo", "Pokémon", Map.of("grade", "PSA 10")));
+        search.indexItem(item("2", "Blastoise", "Pokemon", Map.of("grade", "PSA 9", "note", "charizard box")));
+        search.indexItem(item("3", "Mickey Mantle", "Baseball", Map.of("year", "1952")));
+    }
+
+    @Test
+    void matchesWordPrefixesAcrossFieldsAndRanksTitlesFirst() {
+        List<SearchHit> hits = results(search.search("chari pokemon", null, null, null));
+
+        assertEquals(List.of("1", "2"), hits.stream().map(SearchHit::getId).toList());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        assertEquals(List.of("3"), results(search.search("mantle 1952", null, null, null)).stream().map(SearchHit::getId).toList());
+        assertTrue(results(search.search("mantle psa", null, null, null)).isEmpty());
+    }
+
+    @Test
+    void updatesAndRemovalsApplyToLaterSearches() {
+        search.indexItem(item("3", "Willie Mays", "Baseball", Map.of()));
+        assertTrue(results(search.search("mantle", null, null, null)).isEmpty());
+
+        search.removeItems(List.of("1"));
+        Map<String, Object> response = search.search("psa", "item", 0, 1);
+        assertEquals(1, response.get("total"));
+        assertEquals("2", results(response).get(0).getId());
+    }
+
+    @Test
+    void pagesOfALargerIndexHoldEveryMatchOnce() {
+        for (int i = 0; i < 500; i++) {
+            search.indexItem(item("card-" + i, "Card " + i, i % 5 == 0 ? "Holo" : "Common", Map.of()));
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (int page = 0; page < 5; page++) {
+            Map<String, Object> response = search.search("card holo", "item", page, 25);
+            assertEquals(100, response.get("total"));
+            results(response).forEach(hit -> assertTrue(seen.add(hit.getId())));
+        }
+        assertEquals(100, seen.size());
+        assertTrue(seen.stream().allMatch(id -> Integer.parseInt(id.substring(5)) % 5 == 0));
+    }
+
+    @Test
+    void updatesAwaitingCompactionDoNotSkewScores() {
+        SearchIndexService fresh = new SearchIndexService();
+        SearchIndexService updated = new SearchIndexService();
+        for (int i = 0; i < 300; i++) {
+            fresh.indexItem(item("card-" + i, "Card " + i, "Common", Map.of()));
+        }
+        fresh.indexItem(item("other", "Other 7", "Common", Map.of()));
+        // Three rounds of updates leave 900 removed entries behind, too few to compact
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 300; i++) {
+                updated.indexItem(item("card-" + i, "Card " + i, "Common", Map.of()));
+            }
+        }
+        updated.indexItem(item("other", "Other 7", "Common", Map.of()));
+
+        SearchHit hit = results(updated.search("card 7", "item", 0, 1)).get(0);
+        SearchHit expected = results(fresh.search("card 7", "item", 0, 1)).get(0);
+        assertEquals("card-7", hit.getId());
+        assertEquals(expected.getScore(), hit.getScore(), 1e-4);
+        // "card" is in all but one document, so matching it still adds a little to the score
+        assertTrue(hit.getScore() > results(updated.search("7", "item", 0, 1)).get(0).getScore());
+    }
+
+    private static ItemResponse item(String id, String title, String category, Map<String, String> metadata) {
+        return new ItemResponse(id, "c1", "/api/images/" + id, title, id + ".jpg", LocalDateTime.now(), metadata, category);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<SearchHit> results(Map<String, Object> response) {
+        return (List<SearchHit>) response.get("results");
+    }
+}
@@ -0,0 +1,74 @@
+package com.vault.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageServiceTest {
+
+    private static final Instant LONG_AGO = Instant.now().minus(Duration.ofDays(30));
+
+    @TempDir
+    Path tempDir;
+
+    private StorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new StorageService(tempDir.resolve("uploads").toString(), true, "flat");
+    }
+
+    @Test
+    void reusingABlobKeepsItFromAPendingDeletion() throws Exception {
+        String filename = store("same bytes");
+        age(filename);
+        Instant enqueuedAt = Instant.now().minus(Duration.ofMinutes(1));
+
+        assertEquals(filename, store("same bytes"));
+
+        assertFalse(storageService.deleteIfUnusedSince(filename, enqueuedAt));
+        assertTrue(storageService.exists(filename));
+    }
+
+    @Test
+    void filesUntouchedSinceTheCutoffAreDeleted() throws Exception {
+        String filename = store("old bytes");
+        age(filename);
+
+        assertTrue(storageService.deleteIfUnusedSince(filename, Instant.now().minus(Duration.ofMinutes(1))));
+        assertFalse(storageService.exists(filename));
+        // Already gone counts as deleted, so a retried job does not stall on it
+        assertTrue(storageService.deleteIfUnusedSince(filename, Instant.now()));
+    }
+
+    @Test
+    void aFinishedChunkedUploadCountsAsNew() throws Exception {
+        Path partial = storageService.partialPath("upload-1");
+        Files.writeString(partial, "chunked bytes");
+        Files.setLastModifiedTime(partial, FileTime.from(LONG_AGO));
+
+        String filename = storageService.commitPartial(partial, ".jpg", storageService.hash(partial));
+
+        assertFalse(storageService.deleteIfUnusedSince(filename, Instant.now().minus(Duration.ofMinutes(1))));
+        assertTrue(storageService.exists(filename));
+    }
+
+    private String store(String content) throws Exception {
+        return storageService.storeContentAddressed(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), ".jpg");
+    }
+
+    private void age(String filename) throws Exception {
+        Files.setLastModifiedTime(tempDir.resolve("uploads").resolve(filename), FileTime.from(LONG_AGO));
+    }
+}
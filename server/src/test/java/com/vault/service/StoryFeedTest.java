@@ -0,0 +1,147 @@
+package com.vault.service;
+
+import com.vault.CatalogFixture;
+import com.vault.dto.CursorPage;
+import com.vault.dto.StoryRequest;
+import com.vault.dto.StorySummary;
+import com.vault.repository.CollectionRepository;
+import com.vault.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Story feeds and the story_tags index. Needs the configured MySQL database, so it only
+ * runs with VAULT_DB_TESTS=true:
+ * <pre>VAULT_DB_TESTS=true gradle :server:test --tests '*StoryFeedTest'</pre>
+ */
+@SpringBootTest
+@ActiveProfiles({ "local" })
+@EnabledIfEnvironmentVariable(named = "VAULT_DB_TESTS", matches = "true")
+class StoryFeedTest {
+
+    private static final int STORIES = 7;
+
+    @Autowired
+    private StoryService storyService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogFixture fixture;
+    private String collectionId;
+    // Unique per run, so stories already in the database never show up in the tag feed
+    private String tag;
+    private final List<String> storyIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        fixture = new CatalogFixture(collectionRepository, itemRepository, transactionManager);
+        collectionId = fixture.createCollection("Stories");
+        tag = "Feed Test " + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        storyIds.forEach(storyService::deleteStory);
+        fixture.cleanUp();
+    }
+
+    @Test
+    void collectionFeedPagesThroughEveryStoryOnceNewestFirst() {
+        // Written back to back, so several stories share a created_at
+        for (int i = 0; i < STORIES; i++) {
+            create("Story " + i, List.of());
+        }
+
+        List<StorySummary> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<StorySummary> page = storyService.findPage(null, null, collectionId, cursor, 3);
+            assertTrue(page.getItems().size() <= 3);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<String> ids = seen.stream().map(StorySummary::getId).toList();
+        assertEquals(STORIES, ids.size());
+        List<String> expected = new ArrayList<>(storyIds);
+        Collections.sort(expected);
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(expected, sorted);
+        for (int i = 1; i < seen.size(); i++) {
+            StorySummary newer = seen.get(i - 1);
+            StorySummary older = seen.get(i);
+            assertFalse(older.getCreatedAt().isAfter(newer.getCreatedAt()));
+            if (older.getCreatedAt().equals(newer.getCreatedAt())) {
+                assertTrue(older.getId().compareTo(newer.getId()) < 0);
+            }
+        }
+    }
+
+    @Test
+    void tagFeedMatchesTagsWhateverTheirCaseAndSpacing() {
+        String tagged = create("Tagged", List.of("  " + tag.toUpperCase(Locale.ROOT) + " ", "other"));
+        create("Untagged", List.of("other"));
+
+        List<StorySummary> feed = storyService.findPage("\t" + tag.toLowerCase(Locale.ROOT), null, null, null, null).getItems();
+
+        assertEquals(List.of(tagged), feed.stream().map(StorySummary::getId).toList());
+    }
+
+    @Test
+    void updatingTagsReplacesTheIndexedRows() {
+        String id = create("Retagged", List.of(tag));
+
+        storyService.updateStory(id, request("Retagged", List.of(tag + " later")));
+
+        assertTrue(storyService.findPage(tag, null, null, null, null).getItems().isEmpty());
+        assertEquals(List.of(id), storyService.findPage(tag + " later", null, null, null, null).getItems()
+                .stream().map(StorySummary::getId).toList());
+    }
+
+    @Test
+    void rebuildingTheTagIndexKeepsEveryStoryTagged() {
+        String id = create("Rebuilt", List.of(tag));
+
+        assertTrue(storyService.rebuildTagIndex() >= 1);
+
+        assertEquals(List.of(id), storyService.findPage(tag, null, null, null, null).getItems()
+                .stream().map(StorySummary::getId).toList());
+    }
+
+    private String create(String title, List<String> tags) {
+        String id = storyService.createStory(request(title, tags)).getId();
+        storyIds.add(id);
+        return id;
+    }
+
+    private StoryRequest request(String title, List<String> tags) {
+        StoryRequest request = new StoryRequest();
+        request.setTitle(title);
+        request.setContent("About " + title);
+        request.setCollectionId(collectionId);
+        request.setTags(tags);
+        return request;
+    }
+}
@@ -0,0 +1,60 @@
+package com.vault.service;
+
+import com.vault.repository.StoryRepository;
+import com.vault.repository.StoryTagRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StoryServiceTest {
+
+    @Test
+    void shortContentIsItsOwnExcerptWithWhitespaceCollapsed() {
+        assertEquals("Found it at a yard sale.", StoryService.excerpt("  Found it\n\nat a   yard sale. "));
+    }
+
+    @Test
+    void longContentIsCutAtAWordBoundary() {
+        String excerpt = StoryService.excerpt("word ".repeat(200));
+
+        assertTrue(excerpt.length() <= 281);
+        assertTrue(excerpt.endsWith("word…"));
+    }
+
+    @Test
+    void tagIndexIsNotRebuiltWhenNoStoryHasTags() {
+        StoryRepository storyRepository = mock(StoryRepository.class);
+        StoryService service = backfilling(storyRepository);
+        when(storyRepository.count()).thenReturn(200L);
+        when(storyRepository.findAnyIdWithTags()).thenReturn(Optional.empty());
+
+        service.backfill();
+
+        verify(service, never()).rebuildTagIndex();
+    }
+
+    @Test
+    void tagIndexIsRebuiltWhenStoriesHaveTagsButTheIndexIsEmpty() {
+        StoryRepository storyRepository = mock(StoryRepository.class);
+        StoryService service = backfilling(storyRepository);
+        when(storyRepository.findAnyIdWithTags()).thenReturn(Optional.of("s1"));
+        doReturn(1).when(service).rebuildTagIndex();
+
+        service.backfill();
+
+        verify(service).rebuildTagIndex();
+    }
+
+    private StoryService backfilling(StoryRepository storyRepository) {
+        StoryService service = spy(new StoryService());
+        ReflectionTestUtils.setField(service, "storyRepository", storyRepository);
+        ReflectionTestUtils.setField(service, "storyTagRepository", mock(StoryTagRepository.class));
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        return service;
+    }
+}